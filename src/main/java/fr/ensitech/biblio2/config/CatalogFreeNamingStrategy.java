@@ -0,0 +1,17 @@
+package fr.ensitech.biblio2.config;
+
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.model.naming.Identifier;
+import org.hibernate.engine.jdbc.env.spi.JdbcEnvironment;
+
+/**
+ * Stratégie de nommage du profil h2 : les entités déclarent le catalogue MySQL
+ * "biblio-database", qui n'existe pas dans une base H2 en mémoire.
+ */
+public class CatalogFreeNamingStrategy extends CamelCaseToUnderscoresNamingStrategy {
+
+  @Override
+  public Identifier toPhysicalCatalogName(Identifier logicalName, JdbcEnvironment jdbcEnvironment) {
+    return null;
+  }
+}
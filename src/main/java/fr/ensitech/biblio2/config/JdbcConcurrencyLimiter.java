@@ -0,0 +1,105 @@
+package fr.ensitech.biblio2.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * En mode threads virtuels, des milliers de requêtes peuvent demander une connexion en même temps.
+ * Chaque pool Hikari est alors précédé d'un sémaphore équitable dimensionné sur sa taille maximale :
+ * les threads virtuels en trop attendent leur tour dans la file du sémaphore au lieu de saturer le pool.
+ */
+public class JdbcConcurrencyLimiter implements BeanPostProcessor {
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof HikariDataSource hikari) {
+      return new PermitLimitedDataSource(hikari, hikari.getMaximumPoolSize(), hikari.getConnectionTimeout());
+    }
+    return bean;
+  }
+
+  static class PermitLimitedDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final long timeoutMillis;
+
+    PermitLimitedDataSource(DataSource target, int maxConnections, long timeoutMillis) {
+      super(target);
+      this.permits = new Semaphore(maxConnections, true);
+      this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      acquire();
+      try {
+        return releasingOnClose(super.getConnection());
+      } catch (SQLException | RuntimeException e) {
+        permits.release();
+        throw e;
+      }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      acquire();
+      try {
+        return releasingOnClose(super.getConnection(username, password));
+      } catch (SQLException | RuntimeException e) {
+        permits.release();
+        throw e;
+      }
+    }
+
+    int availablePermits() {
+      return permits.availablePermits();
+    }
+
+    private void acquire() throws SQLException {
+      try {
+        if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+          throw new SQLTransientConnectionException(
+                  "Aucune connexion JDBC disponible après " + timeoutMillis + " ms");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SQLTransientConnectionException("Attente d'une connexion JDBC interrompue", e);
+      }
+    }
+
+    private Connection releasingOnClose(Connection connection) {
+      AtomicBoolean released = new AtomicBoolean();
+      return (Connection) Proxy.newProxyInstance(
+              Connection.class.getClassLoader(),
+              new Class<?>[]{Connection.class},
+              (proxy, method, args) -> {
+                if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                  try {
+                    connection.close();
+                  } finally {
+                    if (released.compareAndSet(false, true)) {
+                      permits.release();
+                    }
+                  }
+                  return null;
+                }
+                try {
+                  return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                  throw e.getTargetException();
+                }
+              });
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package fr.ensitech.biblio2.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import fr.ensitech.biblio2.dto.JsonBody;
+import fr.ensitech.biblio2.dto.JsonConstant;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Écrit les JsonBody directement dans le flux de la réponse avec le générateur Jackson :
+ * pas d'ObjectMapper ni de String intermédiaire. Un JsonConstant est recopié octet pour octet,
+ * avec son Content-Length. Le temps d'écriture est compté dans RequestTimings.
+ */
+public class JsonBodyHttpMessageConverter extends AbstractHttpMessageConverter<JsonBody> {
+
+  // Le flux de la réponse reste ouvert après l'écriture, le conteneur le ferme
+  private final JsonFactory jsonFactory = JsonFactory.builder()
+          .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+          .build();
+
+  public JsonBodyHttpMessageConverter() {
+    super(MediaType.APPLICATION_JSON);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return JsonBody.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  public boolean canRead(Class<?> clazz, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  protected JsonBody readInternal(Class<? extends JsonBody> clazz, HttpInputMessage inputMessage) {
+    throw new HttpMessageNotReadableException("JsonBody is write-only", inputMessage);
+  }
+
+  @Override
+  protected Long getContentLength(JsonBody body, MediaType contentType) {
+    return body instanceof JsonConstant constant ? (long) constant.length() : null;
+  }
+
+  @Override
+  protected void writeInternal(JsonBody body, HttpOutputMessage outputMessage) throws IOException {
+    RequestTimings.writeTimed(outputMessage, out -> {
+      if (body instanceof JsonConstant constant) {
+        constant.writeTo(out);
+        return;
+      }
+      try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+        body.writeTo(generator);
+      }
+    });
+  }
+}
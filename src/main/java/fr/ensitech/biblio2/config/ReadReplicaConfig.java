@@ -0,0 +1,58 @@
+package fr.ensitech.biblio2.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Active le routage lecture/écriture dès qu'un réplica est déclaré :
+ * <pre>
+ * biblio.datasource.replica.jdbc-url=jdbc:mysql://replica:3306/biblio-database
+ * biblio.datasource.replica.username=...
+ * biblio.datasource.replica.password=...
+ * </pre>
+ * Le primaire reste configuré par spring.datasource.*.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "biblio.datasource.replica", name = "jdbc-url")
+public class ReadReplicaConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  @ConfigurationProperties("biblio.datasource.replica")
+  public HikariDataSource replicaDataSource() {
+    return DataSourceBuilder.create().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  public ReadYourWritesStickiness readYourWritesStickiness(
+          @Value("${biblio.datasource.sticky-window:5s}") Duration window) {
+    return new ReadYourWritesStickiness(window);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                               @Qualifier("replicaDataSource") DataSource replica,
+                               ReadYourWritesStickiness stickiness) {
+    ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, stickiness);
+    routing.afterPropertiesSet();
+    return new LazyConnectionDataSourceProxy(routing);
+  }
+}
@@ -0,0 +1,129 @@
+package fr.ensitech.biblio2.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Envoie les transactions en lecture seule vers le réplica et tout le reste vers le primaire.
+ * Doit être enveloppée dans un LazyConnectionDataSourceProxy : le drapeau readOnly de la transaction
+ * n'est connu qu'après l'ouverture de celle-ci, donc au moment de la première requête SQL.
+ * Une transaction en écriture ne rend le client collant au primaire qu'après un commit ayant réellement écrit.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+  public enum Route { PRIMARY, REPLICA }
+
+  // Méthodes JDBC recevant le texte SQL en premier argument
+  private static final Set<String> SQL_METHODS = Set.of("prepareStatement", "prepareCall", "execute",
+          "executeUpdate", "executeLargeUpdate", "executeQuery", "addBatch");
+
+  private final ReadYourWritesStickiness stickiness;
+
+  public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesStickiness stickiness) {
+    this.stickiness = stickiness;
+    setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+    setDefaultTargetDataSource(primary);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return trackWrites(super.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return trackWrites(super.getConnection(username, password));
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return currentRoute();
+  }
+
+  Route currentRoute() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return Route.PRIMARY;
+    }
+    return stickiness.isSticky() ? Route.PRIMARY : Route.REPLICA;
+  }
+
+  private Connection trackWrites(Connection connection) {
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+            || !TransactionSynchronizationManager.isSynchronizationActive()) {
+      return connection;
+    }
+    return new WriteTracker().proxy(Connection.class, connection);
+  }
+
+  /**
+   * Les lectures ne comptent pas : SELECT, SHOW, éventuellement précédés d'un commentaire Hibernate.
+   */
+  static boolean isWrite(String sql) {
+    String statement = sql.stripLeading();
+    while (statement.startsWith("/*")) {
+      int end = statement.indexOf("*/");
+      if (end < 0) {
+        break;
+      }
+      statement = statement.substring(end + 2).stripLeading();
+    }
+    return !statement.regionMatches(true, 0, "select", 0, 6)
+            && !statement.regionMatches(true, 0, "show", 0, 4);
+  }
+
+  /**
+   * Suit une connexion et ses Statement : la première instruction d'écriture enregistre le marquage après commit.
+   */
+  private final class WriteTracker {
+
+    private boolean written;
+
+    @SuppressWarnings("unchecked")
+    <T> T proxy(Class<T> type, T target) {
+      return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+        if (method.getName().equals("equals") && args != null && args.length == 1) {
+          return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && args == null) {
+          return System.identityHashCode(proxy);
+        }
+        if (!written && args != null && args.length > 0 && args[0] instanceof String sql
+                && SQL_METHODS.contains(method.getName()) && isWrite(sql)) {
+          onFirstWrite();
+        }
+        Object result;
+        try {
+          result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+          throw e.getTargetException();
+        }
+        if (method.getName().equals("createStatement") && result instanceof Statement statement) {
+          return proxy(Statement.class, statement);
+        }
+        return result;
+      });
+    }
+
+    private void onFirstWrite() {
+      written = true;
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            stickiness.markWrite();
+          }
+        });
+      }
+    }
+  }
+}
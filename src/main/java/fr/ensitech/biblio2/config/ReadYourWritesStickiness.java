@@ -0,0 +1,99 @@
+package fr.ensitech.biblio2.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+/**
+ * Après une écriture validée, les lectures du même client restent sur le primaire pendant
+ * une courte fenêtre, le temps que le réplica rattrape son retard. Pas de session HTTP : l'heure
+ * de la dernière écriture part dans un cookie de courte durée et dans l'en-tête X-Last-Write,
+ * que les clients sans cookies peuvent renvoyer tel quel.
+ */
+public class ReadYourWritesStickiness {
+
+  public static final String HEADER = "X-Last-Write";
+  static final String COOKIE = "last_write";
+  static final String LAST_WRITE_ATTRIBUTE = ReadYourWritesStickiness.class.getName() + ".lastWrite";
+
+  private final long windowMillis;
+  private final int cookieMaxAge;
+
+  public ReadYourWritesStickiness(Duration window) {
+    this.windowMillis = window.toMillis();
+    this.cookieMaxAge = (int) Math.max(1, (windowMillis + 999) / 1000);
+  }
+
+  /**
+   * Appelé après le commit d'une transaction qui a réellement écrit.
+   */
+  public void markWrite() {
+    ServletRequestAttributes attributes = currentAttributes();
+    if (attributes == null) {
+      return;
+    }
+    HttpServletRequest request = attributes.getRequest();
+    boolean alreadyMarked = request.getAttribute(LAST_WRITE_ATTRIBUTE) != null;
+    String now = Long.toString(System.currentTimeMillis());
+    // Les lectures suivantes de la même requête restent aussi sur le primaire
+    request.setAttribute(LAST_WRITE_ATTRIBUTE, now);
+
+    HttpServletResponse response = attributes.getResponse();
+    if (response == null || response.isCommitted()) {
+      return;
+    }
+    response.setHeader(HEADER, now);
+    if (!alreadyMarked) {
+      Cookie cookie = new Cookie(COOKIE, now);
+      cookie.setMaxAge(cookieMaxAge);
+      cookie.setPath("/");
+      cookie.setHttpOnly(true);
+      response.addCookie(cookie);
+    }
+  }
+
+  public boolean isSticky() {
+    ServletRequestAttributes attributes = currentAttributes();
+    if (attributes == null) {
+      return false;
+    }
+    HttpServletRequest request = attributes.getRequest();
+    long now = System.currentTimeMillis();
+    if (isRecent((String) request.getAttribute(LAST_WRITE_ATTRIBUTE), now)
+            || isRecent(request.getHeader(HEADER), now)) {
+      return true;
+    }
+    Cookie[] cookies = request.getCookies();
+    if (cookies != null) {
+      for (Cookie cookie : cookies) {
+        if (COOKIE.equals(cookie.getName()) && isRecent(cookie.getValue(), now)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // Valeur fournie par le client : une heure illisible ou dans le futur est ignorée
+  private boolean isRecent(String lastWrite, long now) {
+    if (lastWrite == null) {
+      return false;
+    }
+    try {
+      long timestamp = Long.parseLong(lastWrite);
+      return timestamp <= now && now - timestamp < windowMillis;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  private ServletRequestAttributes currentAttributes() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    return attributes instanceof ServletRequestAttributes servletAttributes ? servletAttributes : null;
+  }
+}
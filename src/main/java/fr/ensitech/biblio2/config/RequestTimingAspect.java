@@ -0,0 +1,57 @@
+package fr.ensitech.biblio2.config;
+
+import fr.ensitech.biblio2.config.RequestTimings.Metric;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cumule dans RequestTimings le temps des repositories, du hash BCrypt et de EmailService.
+ * Hors requête ou en-tête désactivé, l'appel passe sans mesure.
+ */
+@Aspect
+@Component
+public class RequestTimingAspect {
+
+  // Profondeur par poste : un repository qui en appelle un autre n'est compté qu'une fois
+  private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[Metric.values().length]);
+
+  @Around("this(org.springframework.data.repository.Repository)")
+  public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(Metric.DB, joinPoint);
+  }
+
+  @Around("execution(* fr.ensitech.biblio2.service.PasswordHasher.encode(..))"
+          + " || execution(* fr.ensitech.biblio2.service.PasswordHasher.matches(..))")
+  public Object timePasswordHashing(ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(Metric.BCRYPT, joinPoint);
+  }
+
+  @Around("execution(public * fr.ensitech.biblio2.service.EmailService.*(..))")
+  public Object timeMail(ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(Metric.MAIL, joinPoint);
+  }
+
+  private static Object time(Metric metric, ProceedingJoinPoint joinPoint) throws Throwable {
+    RequestTimings timings = RequestTimings.current();
+    if (timings == null) {
+      return joinPoint.proceed();
+    }
+    int[] depth = DEPTH.get();
+    if (depth[metric.ordinal()]++ > 0) {
+      try {
+        return joinPoint.proceed();
+      } finally {
+        depth[metric.ordinal()]--;
+      }
+    }
+    long start = System.nanoTime();
+    try {
+      return joinPoint.proceed();
+    } finally {
+      depth[metric.ordinal()]--;
+      timings.add(metric, System.nanoTime() - start);
+    }
+  }
+}
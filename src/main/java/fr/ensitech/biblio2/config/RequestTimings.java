@@ -0,0 +1,132 @@
+package fr.ensitech.biblio2.config;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Temps passé par une requête en base, dans BCrypt, dans l'envoi des mails et à sérialiser la réponse,
+ * journalisé pour les requêtes lentes et, si exposeHeader, annoncé dans l'en-tête Server-Timing.
+ * Rangé dans les attributs de la requête par ServerTimingFilter : les threads de requestExecutor
+ * le voient grâce au TaskDecorator de ThreadingConfig.
+ */
+public final class RequestTimings {
+
+  public static final String HEADER = "Server-Timing";
+  static final String ATTRIBUTE = RequestTimings.class.getName();
+
+  // Descriptions en ASCII : elles partent dans un en-tête HTTP
+  public enum Metric {
+    DB("db", "JPA"),
+    BCRYPT("bcrypt", "BCrypt"),
+    MAIL("mail", "SMTP"),
+    SERIALIZATION("ser", "JSON");
+
+    private final String key;
+    private final String description;
+
+    Metric(String key, String description) {
+      this.key = key;
+      this.description = description;
+    }
+  }
+
+  /**
+   * Écrit le corps de la réponse.
+   */
+  @FunctionalInterface
+  public interface BodyWriter {
+    void writeTo(OutputStream out) throws IOException;
+  }
+
+  private final long startNanos;
+  private final boolean exposeHeader;
+  private final AtomicLongArray nanos = new AtomicLongArray(Metric.values().length);
+  private final AtomicLongArray counts = new AtomicLongArray(Metric.values().length);
+
+  RequestTimings(long startNanos, boolean exposeHeader) {
+    this.startNanos = startNanos;
+    this.exposeHeader = exposeHeader;
+  }
+
+  /**
+   * Mesures de la requête en cours, ou null hors requête (tâche planifiée, thread de mail) ou si l'en-tête est désactivé.
+   */
+  public static RequestTimings current() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) {
+      return null;
+    }
+    try {
+      return (RequestTimings) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    } catch (IllegalStateException e) {
+      // Requête déjà terminée
+      return null;
+    }
+  }
+
+  /**
+   * Écrit le corps directement dans la réponse, sans copie en mémoire : l'en-tête part avant le corps,
+   * donc sans la sérialisation, qui n'est comptée que pour le journal des requêtes lentes.
+   */
+  public static void writeTimed(HttpOutputMessage outputMessage, BodyWriter writer) throws IOException {
+    RequestTimings timings = current();
+    if (timings == null) {
+      writer.writeTo(outputMessage.getBody());
+      return;
+    }
+    if (timings.exposeHeader) {
+      outputMessage.getHeaders().set(HEADER, timings.headerValue());
+    }
+    long start = System.nanoTime();
+    writer.writeTo(outputMessage.getBody());
+    timings.add(Metric.SERIALIZATION, System.nanoTime() - start);
+  }
+
+  public boolean isExposeHeader() {
+    return exposeHeader;
+  }
+
+  public void add(Metric metric, long elapsedNanos) {
+    nanos.addAndGet(metric.ordinal(), elapsedNanos);
+    counts.incrementAndGet(metric.ordinal());
+  }
+
+  public long getNanos(Metric metric) {
+    return nanos.get(metric.ordinal());
+  }
+
+  public long getCount(Metric metric) {
+    return counts.get(metric.ordinal());
+  }
+
+  public long elapsedNanos() {
+    return System.nanoTime() - startNanos;
+  }
+
+  /**
+   * db;dur=12.3;desc="JPA", ..., total;dur=45.6 — seulement les postes réellement utilisés.
+   */
+  public String headerValue() {
+    StringBuilder value = new StringBuilder(128);
+    for (Metric metric : Metric.values()) {
+      if (getCount(metric) > 0) {
+        appendEntry(value, metric.key, getNanos(metric));
+        value.append(";desc=\"").append(metric.description).append('"');
+        value.append(", ");
+      }
+    }
+    appendEntry(value, "total", elapsedNanos());
+    return value.toString();
+  }
+
+  // Millisecondes avec un chiffre après la virgule, sans String.format
+  private static void appendEntry(StringBuilder value, String key, long elapsedNanos) {
+    long tenths = elapsedNanos / 100_000;
+    value.append(key).append(";dur=").append(tenths / 10).append('.').append(tenths % 10);
+  }
+}
@@ -0,0 +1,93 @@
+package fr.ensitech.biblio2.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ouvre les mesures RequestTimings de chaque requête et journalise les requêtes lentes.
+ * L'en-tête Server-Timing détaille le travail interne (base, BCrypt, mails) : désactivé par défaut,
+ * à n'activer (expose-header) que derrière un accès interne. Il est écrit par les convertisseurs JSON
+ * juste avant le corps, ou ici pour une réponse sans corps encore non envoyée.
+ * Une requête asynchrone est suivie jusqu'à la fin du dispatch qui écrit le résultat.
+ */
+@Component
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+  private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+  private final boolean enabled;
+  private final boolean exposeHeader;
+  private final long slowThresholdNanos;
+
+  @Autowired
+  public ServerTimingFilter(@Value("${biblio.server-timing.enabled:true}") boolean enabled,
+                            @Value("${biblio.server-timing.expose-header:false}") boolean exposeHeader,
+                            @Value("${biblio.server-timing.slow-threshold-ms:1000}") long slowThresholdMillis) {
+    this.enabled = enabled;
+    this.exposeHeader = exposeHeader;
+    this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !enabled;
+  }
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+          throws ServletException, IOException {
+    RequestTimings timings = (RequestTimings) request.getAttribute(RequestTimings.ATTRIBUTE);
+    if (timings == null) {
+      timings = new RequestTimings(System.nanoTime(), exposeHeader);
+      request.setAttribute(RequestTimings.ATTRIBUTE, timings);
+    }
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      // Traitement asynchrone en cours : le dispatch suivant terminera la requête
+      if (!request.isAsyncStarted()) {
+        complete(request, response, timings);
+      }
+    }
+  }
+
+  private void complete(HttpServletRequest request, HttpServletResponse response, RequestTimings timings) {
+    if (timings.isExposeHeader() && !response.isCommitted() && !response.containsHeader(RequestTimings.HEADER)) {
+      response.setHeader(RequestTimings.HEADER, timings.headerValue());
+    }
+    if (slowThresholdNanos > 0 && timings.elapsedNanos() >= slowThresholdNanos) {
+      log.atWarn()
+              .setMessage("Requête lente {} {} ({}) : {}")
+              .addArgument(request.getMethod())
+              .addArgument(request.getRequestURI())
+              .addArgument(response.getStatus())
+              .addArgument(timings::headerValue)
+              .addKeyValue("method", request.getMethod())
+              .addKeyValue("uri", request.getRequestURI())
+              .addKeyValue("status", response.getStatus())
+              .addKeyValue("total_ms", TimeUnit.NANOSECONDS.toMillis(timings.elapsedNanos()))
+              .addKeyValue("db_ms", TimeUnit.NANOSECONDS.toMillis(timings.getNanos(RequestTimings.Metric.DB)))
+              .addKeyValue("db_calls", timings.getCount(RequestTimings.Metric.DB))
+              .addKeyValue("bcrypt_ms", TimeUnit.NANOSECONDS.toMillis(timings.getNanos(RequestTimings.Metric.BCRYPT)))
+              .addKeyValue("mail_ms", TimeUnit.NANOSECONDS.toMillis(timings.getNanos(RequestTimings.Metric.MAIL)))
+              .addKeyValue("ser_ms", TimeUnit.NANOSECONDS.toMillis(timings.getNanos(RequestTimings.Metric.SERIALIZATION)))
+              .log();
+    }
+  }
+}
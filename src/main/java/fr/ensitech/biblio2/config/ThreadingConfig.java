@@ -0,0 +1,84 @@
+package fr.ensitech.biblio2.config;
+
+import fr.ensitech.biblio2.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.Executor;
+
+@Configuration(proxyBeanMethods = false)
+public class ThreadingConfig {
+
+  @Bean
+  @ConditionalOnThreading(Threading.VIRTUAL)
+  public static JdbcConcurrencyLimiter jdbcConcurrencyLimiter() {
+    return new JdbcConcurrencyLimiter();
+  }
+
+  /**
+   * Exécute le travail en base des contrôleurs asynchrones, une fois le thread du conteneur rendu.
+   */
+  @Bean(name = "requestExecutor")
+  @ConditionalOnThreading(Threading.PLATFORM)
+  public ThreadPoolTaskExecutor requestExecutor(@Value("${biblio.executor.request.pool-size:16}") int poolSize,
+                                                @Value("${biblio.executor.request.queue-capacity:500}") int queueCapacity) {
+    ThreadPoolTaskExecutor executor = pool("request-", poolSize, queueCapacity);
+    executor.setTaskDecorator(ThreadingConfig::withRequestAttributes);
+    return executor;
+  }
+
+  @Bean(name = "requestExecutor")
+  @ConditionalOnThreading(Threading.VIRTUAL)
+  public Executor virtualRequestExecutor() {
+    SimpleAsyncTaskExecutor executor = virtual("request-");
+    executor.setTaskDecorator(ThreadingConfig::withRequestAttributes);
+    return executor;
+  }
+
+  // La requête reste ouverte pendant le traitement asynchrone : ReadYourWritesStickiness doit encore la voir.
+  // Le contexte précédent du thread est remis ensuite, pas effacé.
+  static Runnable withRequestAttributes(Runnable task) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    return () -> {
+      RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+      RequestContextHolder.setRequestAttributes(attributes);
+      try {
+        task.run();
+      } finally {
+        if (previous != null) {
+          RequestContextHolder.setRequestAttributes(previous);
+        } else {
+          RequestContextHolder.resetRequestAttributes();
+        }
+      }
+    };
+  }
+
+  private static ThreadPoolTaskExecutor pool(String prefix, int poolSize, int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix(prefix);
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    // Pool et file pleins : 503 avec Retry-After plutôt qu'exécuter sur le thread du conteneur
+    executor.setRejectedExecutionHandler((task, pool) -> {
+      throw new ServiceBusyException("Serveur momentanément saturé, veuillez réessayer", 1);
+    });
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    executor.setAwaitTerminationSeconds(10);
+    return executor;
+  }
+
+  private static SimpleAsyncTaskExecutor virtual(String prefix) {
+    SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+    executor.setVirtualThreads(true);
+    return executor;
+  }
+}
@@ -0,0 +1,35 @@
+package fr.ensitech.biblio2.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Convertisseur Jackson de Spring Boot dont la sérialisation est comptée dans RequestTimings.
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+  public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+    super(objectMapper);
+  }
+
+  @Override
+  protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+    RequestTimings.writeTimed(outputMessage, out -> super.writeInternal(object, type, new HttpOutputMessage() {
+      @Override
+      public OutputStream getBody() {
+        return out;
+      }
+
+      @Override
+      public HttpHeaders getHeaders() {
+        return outputMessage.getHeaders();
+      }
+    }));
+  }
+}
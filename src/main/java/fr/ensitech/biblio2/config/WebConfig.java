@@ -0,0 +1,27 @@
+package fr.ensitech.biblio2.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration(proxyBeanMethods = false)
+public class WebConfig implements WebMvcConfigurer {
+
+  /**
+   * En tête de liste : les JsonBody ne passent pas par le convertisseur Jackson générique.
+   * Le convertisseur Jackson de Spring Boot est remplacé par sa version mesurée, avec le même ObjectMapper.
+   */
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    for (int i = 0; i < converters.size(); i++) {
+      if (converters.get(i) instanceof MappingJackson2HttpMessageConverter jackson
+              && !(jackson instanceof TimedJacksonHttpMessageConverter)) {
+        converters.set(i, new TimedJacksonHttpMessageConverter(jackson.getObjectMapper()));
+      }
+    }
+    converters.add(0, new JsonBodyHttpMessageConverter());
+  }
+}
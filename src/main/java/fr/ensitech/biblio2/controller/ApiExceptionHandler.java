@@ -0,0 +1,55 @@
+package fr.ensitech.biblio2.controller;
+
+import fr.ensitech.biblio2.dto.JsonBody;
+import fr.ensitech.biblio2.dto.MessageResponse;
+import fr.ensitech.biblio2.exception.AuthenticationFailedException;
+import fr.ensitech.biblio2.exception.BusinessException;
+import fr.ensitech.biblio2.exception.ConflictException;
+import fr.ensitech.biblio2.exception.InvalidRequestException;
+import fr.ensitech.biblio2.exception.NotFoundException;
+import fr.ensitech.biblio2.exception.ServiceBusyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Traduction des refus métier en réponses HTTP, pour tous les contrôleurs.
+ * Les contrôleurs relancent les BusinessException (y compris depuis les CompletableFuture)
+ * et ne gardent leur propre catch que pour les erreurs inattendues.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+  @ExceptionHandler(NotFoundException.class)
+  public ResponseEntity<JsonBody> handleNotFound(NotFoundException e) {
+    return body(HttpStatus.NOT_FOUND, e);
+  }
+
+  @ExceptionHandler(ConflictException.class)
+  public ResponseEntity<JsonBody> handleConflict(ConflictException e) {
+    return body(HttpStatus.CONFLICT, e);
+  }
+
+  @ExceptionHandler(InvalidRequestException.class)
+  public ResponseEntity<JsonBody> handleInvalidRequest(InvalidRequestException e) {
+    return body(HttpStatus.BAD_REQUEST, e);
+  }
+
+  @ExceptionHandler(AuthenticationFailedException.class)
+  public ResponseEntity<JsonBody> handleAuthenticationFailed(AuthenticationFailedException e) {
+    return body(HttpStatus.UNAUTHORIZED, e);
+  }
+
+  @ExceptionHandler(ServiceBusyException.class)
+  public ResponseEntity<JsonBody> handleServiceBusy(ServiceBusyException e) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(new MessageResponse(e.getMessage()));
+  }
+
+  private static ResponseEntity<JsonBody> body(HttpStatus status, BusinessException e) {
+    return ResponseEntity.status(status).body(new MessageResponse(e.getMessage()));
+  }
+}
@@ -1,28 +1,67 @@
 package fr.ensitech.biblio2.controller;
 
+import fr.ensitech.biblio2.dto.BookBatchResponse;
+import fr.ensitech.biblio2.dto.BookBrowseResponse;
+import fr.ensitech.biblio2.dto.BookSuggestion;
+import fr.ensitech.biblio2.dto.JsonBody;
+import fr.ensitech.biblio2.dto.JsonConstant;
+import fr.ensitech.biblio2.dto.MessageResponse;
+import fr.ensitech.biblio2.dto.ReservationResponse;
 import fr.ensitech.biblio2.entity.Book;
 import fr.ensitech.biblio2.entity.Reservation;
+import fr.ensitech.biblio2.exception.BusinessException;
+import fr.ensitech.biblio2.service.CatalogSnapshotService;
+import fr.ensitech.biblio2.service.CatalogVersionService;
+import fr.ensitech.biblio2.service.ErrorReporter;
 import fr.ensitech.biblio2.service.IBookService;
 import fr.ensitech.biblio2.service.IReservationService;
+import fr.ensitech.biblio2.utils.BookFields;
+import fr.ensitech.biblio2.utils.ContentEncodings;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @RestController
 @CrossOrigin(origins = "http://localhost:8080")
 @RequestMapping("/api/books")
 public class BookController implements IBookController {
 
+  private static final int MAX_BATCH_IDS = 500;
+  private static final int MAX_BROWSE_PAGE = 10_000;
+  private static final JsonConstant EMAIL_REQUIRED = MessageResponse.constant("L'email est requis");
+  // Erreurs inattendues : le détail part dans ErrorReporter, jamais dans la réponse
+  private static final JsonConstant RESERVATION_FAILED = MessageResponse.constant("Erreur lors de la réservation");
+
   @Autowired
   private IBookService bookService;
 
   @Autowired
   private IReservationService reservationService;
 
+  @Autowired
+  private CatalogVersionService catalogVersionService;
+
+  @Autowired
+  private CatalogSnapshotService catalogSnapshotService;
+
+  @Autowired
+  private ErrorReporter errorReporter;
+
+  @Autowired
+  @Qualifier("requestExecutor")
+  private Executor requestExecutor;
+
   @PostMapping("/create")
   @Override
   public ResponseEntity<Book> createBook(@RequestBody Book book) {
@@ -41,31 +80,70 @@ public class BookController implements IBookController {
     try {
       bookService.addOrUpdateBook(book);
       return new ResponseEntity<>(book, HttpStatus.CREATED);
+    } catch (BusinessException e) {
+      throw e;
     } catch (Exception e) {
-      e.printStackTrace();
+      errorReporter.report("BookController.createBook", e);
       throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Erreur lors de la création du livre");
     }
   }
 
   @GetMapping("/{id}")
   @Override
-  public ResponseEntity<Book> getBookById(@PathVariable("id") long id) {
+  public ResponseEntity<Book> getBookById(@PathVariable("id") long id, WebRequest request) {
 
     if (id <= 0) {
       return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
 
+    CatalogVersionService.BookStamp stamp = catalogVersionService.getStamp(id);
+    if (stamp != null && request.checkNotModified(stamp.eTag(), stamp.lastModified())) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+    }
+
     try {
       Book book = bookService.getBook(id);
       if (book == null) {
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
       }
-      return new ResponseEntity<>(book, HttpStatus.OK);
+      stamp = catalogVersionService.record(book);
+      return ResponseEntity.ok()
+              .eTag(stamp.eTag())
+              .lastModified(stamp.lastModified())
+              .body(book);
     } catch (Exception e) {
       throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Erreur lors de la récupération du livre");
     }
   }
 
+  @GetMapping(params = "ids")
+  @Override
+  public ResponseEntity<BookBatchResponse> getBooksByIds(@RequestParam List<Long> ids) {
+    return resolveBooks(ids);
+  }
+
+  // Même réponse que le GET, pour les listes d'ids trop longues pour une URL
+  @PostMapping("/batch")
+  @Override
+  public ResponseEntity<BookBatchResponse> getBooksByIdsBatch(@RequestBody List<Long> ids) {
+    return resolveBooks(ids);
+  }
+
+  private ResponseEntity<BookBatchResponse> resolveBooks(List<Long> ids) {
+    if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_IDS
+            || ids.stream().anyMatch(id -> id == null || id <= 0)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    try {
+      return new ResponseEntity<>(bookService.getBooksByIds(ids), HttpStatus.OK);
+    } catch (Exception e) {
+      errorReporter.report("BookController.getBooksByIdsBatch", e);
+      throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+              "Erreur lors de la récupération des livres");
+    }
+  }
+
   @Override
   @PutMapping("/update")
   public ResponseEntity<Book> updateBook(@RequestBody Book book) {
@@ -92,6 +170,8 @@ public class BookController implements IBookController {
 
       bookService.addOrUpdateBook(book);
       return new ResponseEntity<>(book, HttpStatus.OK);
+    } catch (BusinessException e) {
+      throw e;
     } catch (Exception e) {
       throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Erreur lors de la mise à jour du livre");
     }
@@ -109,21 +189,38 @@ public class BookController implements IBookController {
       bookService.deleteBook(id);
       String message = "Book id ".concat(String.valueOf(id)).concat(" deleted");
       return new ResponseEntity<>(HttpStatus.OK);
+    } catch (BusinessException e) {
+      throw e;
     } catch (Exception e) {
-      String error = "Erreur interne" + e.getMessage();
-      return new ResponseEntity<String>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+      errorReporter.report("BookController.deleteBookById", e);
+      return new ResponseEntity<>("Erreur interne", HttpStatus.INTERNAL_SERVER_ERROR);
     }
   }
 
   @GetMapping("/all")
   @Override
-  public ResponseEntity<List<Book>> getAllBooks() {
+  public ResponseEntity<byte[]> getAllBooks(WebRequest request) {
     try {
-      List<Book> books = bookService.getBooks();
-      if (books.isEmpty()) {
+      CatalogSnapshotService.Snapshot snapshot = catalogSnapshotService.getSnapshot();
+      // Un ETag par codage : la version gzip et la version brute sont deux représentations distinctes
+      boolean gzip = ContentEncodings.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+      String eTag = gzip ? snapshot.gzipETag() : snapshot.eTag();
+      if (request.checkNotModified(eTag, snapshot.lastModified())) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).varyBy(HttpHeaders.ACCEPT_ENCODING).build();
+      }
+      if (snapshot.isEmpty()) {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
       }
-      return new ResponseEntity<>(books, HttpStatus.OK);
+
+      ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+              .contentType(MediaType.APPLICATION_JSON)
+              .eTag(eTag)
+              .lastModified(snapshot.lastModified())
+              .varyBy(HttpHeaders.ACCEPT_ENCODING);
+      if (gzip) {
+        response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+      }
+      return response.body(gzip ? snapshot.gzip() : snapshot.json());
     } catch (Exception e) {
       throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Erreur lors de la récupération des livres");
     }
@@ -131,31 +228,25 @@ public class BookController implements IBookController {
 
   @PutMapping("/reserver/{bookId}/{email}")
   @Override
-  public ResponseEntity<String> reserveBook(@PathVariable long bookId, @PathVariable String email) {
+  public CompletableFuture<ResponseEntity<JsonBody>> reserveBook(@PathVariable long bookId, @PathVariable String email) {
     if (email == null || email.isEmpty()) {
-      return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-              .body("{\"message\": \"L'email est requis\"}");
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+              .body(EMAIL_REQUIRED));
     }
 
-    try {
-      Reservation reservation = reservationService.reserveBook(bookId, email);
-      return ResponseEntity.ok("{\"message\": \"Livre réservé avec succès\", \"reservationId\": " + reservation.getId() + "}");
-    } catch (Exception e) {
-      e.printStackTrace();
-
-      if (e.getMessage().contains("non trouvé")) {
-        return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                .body("{\"message\": \"" + e.getMessage() + "\"}");
-      } else if (e.getMessage().contains("déjà réservé") ||
-              e.getMessage().contains("limite") ||
-              e.getMessage().contains("disponible")) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body("{\"message\": \"" + e.getMessage() + "\"}");
-      } else {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        Reservation reservation = reservationService.reserveBook(bookId, email);
+        return ResponseEntity.ok(new ReservationResponse("Livre réservé avec succès", reservation.getId()));
+      } catch (BusinessException e) {
+        // Refus attendu : statut fixé par ApiExceptionHandler
+        throw e;
+      } catch (Exception e) {
+        errorReporter.report("BookController.reserveBook", e);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body("{\"message\": \"Erreur lors de la réservation: " + e.getMessage() + "\"}");
+                .body(RESERVATION_FAILED);
       }
-    }
+    }, requestExecutor);
   }
 
   @GetMapping("/search/by-title")
@@ -172,7 +263,7 @@ public class BookController implements IBookController {
       }
       return new ResponseEntity<>(book, HttpStatus.OK);
     } catch (Exception e) {
-      e.printStackTrace();
+      errorReporter.report("BookController.getBookByTitle", e);
       throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
               "Erreur lors de la recherche du livre par titre");
     }
@@ -180,24 +271,72 @@ public class BookController implements IBookController {
 
   @GetMapping("/search/by-title-containing")
   @Override
-  public ResponseEntity<List<Book>> getBooksByTitleContaining(@RequestParam String title) {
-    if (title == null || title.isEmpty()) {
+  public ResponseEntity<List<?>> getBooksByTitleContaining(@RequestParam String title,
+                                                           @RequestParam(required = false) String fields) {
+    if (title == null || title.isEmpty() || !BookFields.isValid(fields)) {
       return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
 
     try {
-      List<Book> books = bookService.getBooksByTitleContaining(title);
+      List<?> books = fields == null
+              ? bookService.getBooksByTitleContaining(title)
+              : bookService.getBooksByTitleContaining(title, BookFields.parse(fields));
       if (books.isEmpty()) {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
       }
       return new ResponseEntity<>(books, HttpStatus.OK);
     } catch (Exception e) {
-      e.printStackTrace();
+      errorReporter.report("BookController.getBooksByTitleContaining", e);
       throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
               "Erreur lors de la recherche des livres par titre contenant");
     }
   }
 
+  @GetMapping("/search/by-title-fuzzy")
+  @Override
+  public ResponseEntity<List<?>> getBooksByTitleFuzzy(@RequestParam String title,
+                                                      @RequestParam(defaultValue = "2") int maxEdits,
+                                                      @RequestParam(required = false) String fields) {
+    if (title == null || title.isBlank() || maxEdits < 0 || maxEdits > 3 || !BookFields.isValid(fields)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    try {
+      List<?> books = fields == null
+              ? bookService.getBooksByTitleFuzzy(title, maxEdits)
+              : bookService.getBooksByTitleFuzzy(title, maxEdits, BookFields.parse(fields));
+      if (books.isEmpty()) {
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+      }
+      return new ResponseEntity<>(books, HttpStatus.OK);
+    } catch (Exception e) {
+      errorReporter.report("BookController.getBooksByTitleFuzzy", e);
+      throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+              "Erreur lors de la recherche approchée des livres par titre");
+    }
+  }
+
+  @GetMapping("/suggest")
+  @Override
+  public ResponseEntity<List<BookSuggestion>> suggestTitles(@RequestParam String prefix,
+                                                            @RequestParam(defaultValue = "10") int limit) {
+    if (prefix == null || prefix.isBlank() || limit <= 0 || limit > 50) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    try {
+      List<BookSuggestion> suggestions = bookService.suggestTitles(prefix, limit);
+      if (suggestions.isEmpty()) {
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+      }
+      return new ResponseEntity<>(suggestions, HttpStatus.OK);
+    } catch (Exception e) {
+      errorReporter.report("BookController.suggestTitles", e);
+      throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+              "Erreur lors de la suggestion de titres");
+    }
+  }
+
   @GetMapping("/search/by-isbn")
   @Override
   public ResponseEntity<Book> getBookByIsbn(@RequestParam String isbn) {
@@ -212,7 +351,7 @@ public class BookController implements IBookController {
       }
       return new ResponseEntity<>(book, HttpStatus.OK);
     } catch (Exception e) {
-      e.printStackTrace();
+      errorReporter.report("BookController.getBookByIsbn", e);
       throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
               "Erreur lors de la recherche du livre par ISBN");
     }
@@ -220,15 +359,22 @@ public class BookController implements IBookController {
 
   @GetMapping("/search/by-published")
   @Override
-  public ResponseEntity<List<Book>> getBooksByPublished(@RequestParam boolean published) {
+  public ResponseEntity<List<?>> getBooksByPublished(@RequestParam boolean published,
+                                                     @RequestParam(required = false) String fields) {
+    if (!BookFields.isValid(fields)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
     try {
-      List<Book> books = bookService.getBooksByPublished(published);
+      List<?> books = fields == null
+              ? bookService.getBooksByPublished(published)
+              : bookService.getBooksByPublished(published, BookFields.parse(fields));
       if (books.isEmpty()) {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
       }
       return new ResponseEntity<>(books, HttpStatus.OK);
     } catch (Exception e) {
-      e.printStackTrace();
+      errorReporter.report("BookController.getBooksByPublished", e);
       throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
               "Erreur lors de la recherche des livres par statut de publication");
     }
@@ -236,19 +382,22 @@ public class BookController implements IBookController {
 
   @GetMapping("/search/by-keyword")
   @Override
-  public ResponseEntity<List<Book>> searchBooksByTitleOrDescription(@RequestParam String keyword) {
-    if (keyword == null || keyword.isEmpty()) {
+  public ResponseEntity<List<?>> searchBooksByTitleOrDescription(@RequestParam String keyword,
+                                                                 @RequestParam(required = false) String fields) {
+    if (keyword == null || keyword.isEmpty() || !BookFields.isValid(fields)) {
       return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
 
     try {
-      List<Book> books = bookService.getBooksByTitleOrDescription(keyword, keyword);
+      List<?> books = fields == null
+              ? bookService.getBooksByTitleOrDescription(keyword, keyword)
+              : bookService.getBooksByTitleOrDescription(keyword, keyword, BookFields.parse(fields));
       if (books.isEmpty()) {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
       }
       return new ResponseEntity<>(books, HttpStatus.OK);
     } catch (Exception e) {
-      e.printStackTrace();
+      errorReporter.report("BookController.searchBooksByTitleOrDescription", e);
       throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
               "Erreur lors de la recherche des livres par mot-clé");
     }
@@ -256,24 +405,63 @@ public class BookController implements IBookController {
 
   @GetMapping("/search/by-years")
   @Override
-  public ResponseEntity<List<Book>> getBooksBetweenYears(
+  public ResponseEntity<List<?>> getBooksBetweenYears(
           @RequestParam int startYear,
-          @RequestParam int endYear) {
+          @RequestParam int endYear,
+          @RequestParam(required = false) String fields) {
 
-    if (startYear < 0 || endYear < 0 || startYear > endYear) {
+    if (startYear < 0 || endYear < 0 || startYear > endYear || !BookFields.isValid(fields)) {
       return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
 
     try {
-      List<Book> books = bookService.getBooksBetweenYears(startYear, endYear);
+      List<?> books = fields == null
+              ? bookService.getBooksBetweenYears(startYear, endYear)
+              : bookService.getBooksBetweenYears(startYear, endYear, BookFields.parse(fields));
       if (books.isEmpty()) {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
       }
       return new ResponseEntity<>(books, HttpStatus.OK);
     } catch (Exception e) {
-      e.printStackTrace();
+      errorReporter.report("BookController.getBooksBetweenYears", e);
       throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
               "Erreur lors de la recherche des livres entre deux années");
     }
   }
-}
\ No newline at end of file
+
+  @GetMapping("/facets/years")
+  @Override
+  public ResponseEntity<Map<Integer, Integer>> getYearFacets() {
+    try {
+      return new ResponseEntity<>(bookService.getBookCountsByYear(), HttpStatus.OK);
+    } catch (Exception e) {
+      errorReporter.report("BookController.getYearFacets", e);
+      throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+              "Erreur lors du comptage des livres par année");
+    }
+  }
+
+  @GetMapping("/browse")
+  @Override
+  public ResponseEntity<BookBrowseResponse> browseBooks(
+          @RequestParam(required = false) String category,
+          @RequestParam(required = false) String language,
+          @RequestParam(required = false) Boolean published,
+          @RequestParam(required = false) Integer year,
+          @RequestParam(defaultValue = "0") int page,
+          @RequestParam(defaultValue = "20") int size) {
+
+    if (page < 0 || page > MAX_BROWSE_PAGE || size <= 0 || size > 100) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    try {
+      return new ResponseEntity<>(bookService.browseBooks(category, language, published, year, page, size),
+              HttpStatus.OK);
+    } catch (Exception e) {
+      errorReporter.report("BookController.browseBooks", e);
+      throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+              "Erreur lors de la navigation dans le catalogue");
+    }
+  }
+}
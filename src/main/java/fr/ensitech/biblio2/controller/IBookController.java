@@ -1,24 +1,41 @@
 package fr.ensitech.biblio2.controller;
 
+import fr.ensitech.biblio2.dto.BookBatchResponse;
+import fr.ensitech.biblio2.dto.BookBrowseResponse;
+import fr.ensitech.biblio2.dto.BookSuggestion;
+import fr.ensitech.biblio2.dto.JsonBody;
 import fr.ensitech.biblio2.entity.Book;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface IBookController {
 
   ResponseEntity<Book> createBook(Book book);
-  ResponseEntity<Book> getBookById(long id);
+  ResponseEntity<Book> getBookById(long id, WebRequest request);
+  ResponseEntity<BookBatchResponse> getBooksByIds(@RequestParam List<Long> ids);
+  ResponseEntity<BookBatchResponse> getBooksByIdsBatch(List<Long> ids);
   ResponseEntity<Book> updateBook(Book book);
   ResponseEntity<String> deleteBookById(long id);
-  ResponseEntity<List<Book>> getAllBooks();
-  ResponseEntity<String> reserveBook(@PathVariable long bookId, @PathVariable String email);
+  ResponseEntity<byte[]> getAllBooks(WebRequest request);
+  CompletableFuture<ResponseEntity<JsonBody>> reserveBook(@PathVariable long bookId, @PathVariable String email);
   ResponseEntity<Book> getBookByTitle(@RequestParam String title);
-  ResponseEntity<List<Book>> getBooksByTitleContaining(@RequestParam String title);
+  ResponseEntity<List<?>> getBooksByTitleContaining(@RequestParam String title, @RequestParam String fields);
+  ResponseEntity<List<?>> getBooksByTitleFuzzy(@RequestParam String title, @RequestParam int maxEdits,
+                                               @RequestParam String fields);
+  ResponseEntity<List<BookSuggestion>> suggestTitles(@RequestParam String prefix, @RequestParam int limit);
   ResponseEntity<Book> getBookByIsbn(@RequestParam String isbn);
-  ResponseEntity<List<Book>> getBooksByPublished(@RequestParam boolean published);
-  ResponseEntity<List<Book>> searchBooksByTitleOrDescription(@RequestParam String keyword);
-  ResponseEntity<List<Book>> getBooksBetweenYears(@RequestParam int startYear, @RequestParam int endYear);
+  ResponseEntity<List<?>> getBooksByPublished(@RequestParam boolean published, @RequestParam String fields);
+  ResponseEntity<List<?>> searchBooksByTitleOrDescription(@RequestParam String keyword, @RequestParam String fields);
+  ResponseEntity<List<?>> getBooksBetweenYears(@RequestParam int startYear, @RequestParam int endYear,
+                                               @RequestParam String fields);
+  ResponseEntity<Map<Integer, Integer>> getYearFacets();
+  ResponseEntity<BookBrowseResponse> browseBooks(@RequestParam String category, @RequestParam String language,
+                                                 @RequestParam Boolean published, @RequestParam Integer year,
+                                                 @RequestParam int page, @RequestParam int size);
 }
\ No newline at end of file
@@ -1,27 +1,32 @@
 package fr.ensitech.biblio2.controller;
 
+import fr.ensitech.biblio2.dto.JsonBody;
 import fr.ensitech.biblio2.dto.PasswordRenewalRequest;
 import fr.ensitech.biblio2.dto.SecurityAnswerVerificationRequest;
 import fr.ensitech.biblio2.dto.UserRegistrationRequest;
 import fr.ensitech.biblio2.entity.User;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface IUserController {
-  ResponseEntity<?> createUser(@RequestBody UserRegistrationRequest request);
-  ResponseEntity<String> activeUser(@PathVariable long id);
+  CompletableFuture<ResponseEntity<JsonBody>> createUser(@RequestBody UserRegistrationRequest request);
+  CompletableFuture<ResponseEntity<String>> activeUser(@PathVariable long id);
   ResponseEntity<?> authenticatedUser(@RequestParam String email,
-                                      @RequestParam String password);
-  ResponseEntity<String> verifySecurityAnswer(@RequestBody SecurityAnswerVerificationRequest request);
-  ResponseEntity<String> deleteUser(@RequestBody User user);
-  ResponseEntity<String> sendActivationMail(@RequestParam String email);
-  ResponseEntity<String> updateUserProfile(@PathVariable long id, @RequestBody User user);
-  ResponseEntity<String> updateUserPassword(@PathVariable long id,
-                                            @PathVariable String oldPwd,
-                                            @PathVariable String newPwd);
-  ResponseEntity<String> renewPassword(@PathVariable String email,
-                                       @RequestBody PasswordRenewalRequest request);
-  ResponseEntity<String> checkPasswordStatus(@PathVariable String email);
+                                      @RequestParam String password,
+                                      HttpServletRequest httpRequest);
+  ResponseEntity<JsonBody> verifySecurityAnswer(@RequestBody SecurityAnswerVerificationRequest request);
+  CompletableFuture<ResponseEntity<JsonBody>> deleteUser(@RequestBody User user);
+  ResponseEntity<JsonBody> sendActivationMail(@RequestParam String email);
+  ResponseEntity<JsonBody> updateUserProfile(@PathVariable long id, @RequestBody User user);
+  ResponseEntity<JsonBody> updateUserPassword(@PathVariable long id,
+                                              @PathVariable String oldPwd,
+                                              @PathVariable String newPwd);
+  ResponseEntity<JsonBody> renewPassword(@PathVariable String email,
+                                         @RequestBody PasswordRenewalRequest request);
+  ResponseEntity<JsonBody> checkPasswordStatus(@PathVariable String email);
 }
\ No newline at end of file
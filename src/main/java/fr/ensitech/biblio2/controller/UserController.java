@@ -1,27 +1,99 @@
 package fr.ensitech.biblio2.controller;
 
 import fr.ensitech.biblio2.dto.AuthenticationResponse;
+import fr.ensitech.biblio2.dto.JsonBody;
+import fr.ensitech.biblio2.dto.JsonConstant;
+import fr.ensitech.biblio2.dto.MessageResponse;
+import fr.ensitech.biblio2.dto.PasswordStatusResponse;
 import fr.ensitech.biblio2.dto.PasswordRenewalRequest;
 import fr.ensitech.biblio2.dto.SecurityAnswerVerificationRequest;
+import fr.ensitech.biblio2.dto.SecurityAnswerVerificationResponse;
 import fr.ensitech.biblio2.dto.UserRegistrationRequest;
 import fr.ensitech.biblio2.entity.User;
+import fr.ensitech.biblio2.exception.AuthenticationFailedException;
+import fr.ensitech.biblio2.exception.BusinessException;
+import fr.ensitech.biblio2.exception.NotFoundException;
+import fr.ensitech.biblio2.service.ErrorReporter;
 import fr.ensitech.biblio2.service.IUserService;
+import fr.ensitech.biblio2.service.LoginThrottle;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 @RestController
 @CrossOrigin(origins = "http://localhost:8080")
 @RequestMapping("/api/users")
 public class UserController implements IUserController {
 
+  // Corps fixes sérialisés une fois
+  private static final JsonConstant ALL_FIELDS_REQUIRED =
+          MessageResponse.constant("Tous les champs sont obligatoires, y compris la question et réponse de sécurité");
+  private static final JsonConstant SECURITY_ANSWER_TOO_LONG =
+          MessageResponse.constant("La réponse de sécurité ne peut pas dépasser 32 caractères");
+  private static final JsonConstant USER_CREATED =
+          MessageResponse.constant("Utilisateur créé avec succès. Un email d'activation a été envoyé.");
+  private static final JsonConstant ACTIVATION_MAIL_SENT = MessageResponse.constant("Email d'activation envoyé");
+  private static final JsonConstant ACTIVATION_MAIL_FAILED =
+          MessageResponse.constant("Erreur lors de l'envoi de l'email");
+  private static final JsonConstant CREDENTIALS_REQUIRED = MessageResponse.constant("Email et mot de passe requis");
+  private static final JsonConstant TOO_MANY_ATTEMPTS =
+          MessageResponse.constant("Trop de tentatives de connexion, réessayez plus tard");
+  private static final JsonConstant INVALID_CREDENTIALS =
+          MessageResponse.constant("Identifiants invalides ou compte non activé");
+  private static final JsonConstant SECURITY_ANSWER_REQUIRED =
+          MessageResponse.constant("ID utilisateur et réponse de sécurité requis");
+  private static final JsonConstant SECURITY_ANSWER_VALID =
+          JsonConstant.of(new SecurityAnswerVerificationResponse("Authentification réussie", true));
+  private static final JsonConstant SECURITY_ANSWER_INVALID =
+          JsonConstant.of(new SecurityAnswerVerificationResponse("Réponse de sécurité incorrecte", false));
+  private static final JsonConstant UNSUBSCRIBED =
+          MessageResponse.constant("Votre compte a été désactivé avec succès. Un email de confirmation vous a été envoyé.");
+  private static final JsonConstant UNSUBSCRIBE_FAILED =
+          MessageResponse.constant("Erreur lors de la désinscription. Veuillez réessayer.");
+  private static final JsonConstant PROFILE_REQUIRED =
+          MessageResponse.constant("Les données de l'utilisateur sont requises");
+  private static final JsonConstant PROFILE_UPDATED = MessageResponse.constant("Profil mis à jour avec succès");
+  private static final JsonConstant PASSWORDS_REQUIRED =
+          MessageResponse.constant("L'ancien et le nouveau mot de passe sont requis");
+  private static final JsonConstant PASSWORD_TOO_SHORT =
+          MessageResponse.constant("Le nouveau mot de passe doit contenir au moins 6 caractères");
+  private static final JsonConstant PASSWORD_UPDATED = MessageResponse.constant("Mot de passe mis à jour avec succès");
+  private static final JsonConstant PASSWORD_RENEWED = MessageResponse.constant("Mot de passe renouvelé avec succès");
+  // Erreurs inattendues : le détail part dans ErrorReporter, jamais dans la réponse
+  private static final JsonConstant USER_CREATION_FAILED =
+          MessageResponse.constant("Erreur lors de la création de l'utilisateur");
+  private static final JsonConstant VERIFICATION_FAILED = MessageResponse.constant("Erreur lors de la vérification");
+  private static final JsonConstant PROFILE_UPDATE_FAILED =
+          MessageResponse.constant("Erreur lors de la mise à jour du profil");
+  private static final JsonConstant PASSWORD_UPDATE_FAILED =
+          MessageResponse.constant("Erreur lors de la mise à jour du mot de passe");
+  private static final JsonConstant RENEWAL_FAILED = MessageResponse.constant("Erreur lors du renouvellement");
+  private static final JsonConstant PASSWORD_EXPIRED =
+          JsonConstant.of(new PasswordStatusResponse(true, 0, "Votre mot de passe a expiré. Veuillez le renouveler."));
+
   @Autowired
   private IUserService userService;
 
+  @Autowired
+  private LoginThrottle loginThrottle;
+
+  @Autowired
+  private ErrorReporter errorReporter;
+
+  @Autowired
+  @Qualifier("requestExecutor")
+  private Executor requestExecutor;
+
   @PostMapping("/register")
   @Override
-  public ResponseEntity<?> createUser(@RequestBody UserRegistrationRequest request) {
+  public CompletableFuture<ResponseEntity<JsonBody>> createUser(@RequestBody UserRegistrationRequest request) {
     if (request == null
             || request.getFirstName() == null || request.getFirstName().isEmpty()
             || request.getLastName() == null || request.getLastName().isEmpty()
@@ -30,215 +102,243 @@ public class UserController implements IUserController {
             || request.getSecurityQuestion() == null
             || request.getSecurityAnswer() == null || request.getSecurityAnswer().isEmpty()) {
 
-      return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-              .body("{\"message\": \"Tous les champs sont obligatoires, y compris la question et réponse de sécurité\"}");
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+              .body(ALL_FIELDS_REQUIRED));
     }
 
     if (request.getSecurityAnswer().length() > 32) {
-      return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-              .body("{\"message\": \"La réponse de sécurité ne peut pas dépasser 32 caractères\"}");
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+              .body(SECURITY_ANSWER_TOO_LONG));
     }
 
-    try {
-      User user = new User();
-      user.setFirstName(request.getFirstName());
-      user.setLastName(request.getLastName());
-      user.setEmail(request.getEmail());
-      user.setPassword(request.getPassword());
-      user.setBirthdate(request.getBirthdate());
-      user.setSecurityQuestion(request.getSecurityQuestion());
-      user.setSecurityAnswerHash(request.getSecurityAnswer());
-      user.setRole("U");
-
-      userService.createUser(user);
-      userService.sendActivationMail(user.getEmail());
-
-      return ResponseEntity.status(HttpStatus.CREATED)
-              .body("{\"message\": \"Utilisateur créé avec succès. Un email d'activation a été envoyé.\"}");
-    } catch (Exception e) {
-      e.printStackTrace();
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-              .body("{\"message\": \"" + e.getMessage() + "\"}");
-    }
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        User user = new User();
+        user.setFirstName(request.getFirstName());
+        user.setLastName(request.getLastName());
+        user.setEmail(request.getEmail());
+        user.setPassword(request.getPassword());
+        user.setBirthdate(request.getBirthdate());
+        user.setSecurityQuestion(request.getSecurityQuestion());
+        user.setSecurityAnswerHash(request.getSecurityAnswer());
+        user.setRole("U");
+
+        userService.createUser(user);
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(USER_CREATED);
+      } catch (BusinessException e) {
+        throw e;
+      } catch (Exception e) {
+        errorReporter.report("UserController.createUser", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(USER_CREATION_FAILED);
+      }
+    }, requestExecutor);
   }
 
   @PostMapping("/send-activation")
   @Override
-  public ResponseEntity<String> sendActivationMail(@RequestParam String email) {
+  public ResponseEntity<JsonBody> sendActivationMail(@RequestParam String email) {
     try {
       userService.sendActivationMail(email);
-      return ResponseEntity.ok("{\"message\": \"Email d'activation envoyé\"}");
+      return ResponseEntity.ok(ACTIVATION_MAIL_SENT);
+    } catch (BusinessException e) {
+      throw e;
     } catch (Exception e) {
-      e.printStackTrace();
+      errorReporter.report("UserController.sendActivationMail", e);
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-              .body("{\"message\": \"Erreur lors de l'envoi de l'email\"}");
+              .body(ACTIVATION_MAIL_FAILED);
     }
   }
 
   @GetMapping("/activate/{id}")
   @Override
-  public ResponseEntity<String> activeUser(@PathVariable long id) {
-    try {
-      User activatedUser = userService.activeUser(id);
-      return ResponseEntity.ok("Votre compte a été activé avec succès ! Vous pouvez maintenant vous connecter.");
-    } catch (Exception e) {
-      e.printStackTrace();
-      return ResponseEntity.status(HttpStatus.NOT_FOUND)
-              .body("Erreur lors de l'activation du compte. Lien invalide ou compte déjà activé.");
-    }
+  public CompletableFuture<ResponseEntity<String>> activeUser(@PathVariable long id) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        User activatedUser = userService.activeUser(id);
+        return ResponseEntity.ok("Votre compte a été activé avec succès ! Vous pouvez maintenant vous connecter.");
+      } catch (Exception e) {
+        // Lien invalide : refus attendu, pas de trace
+        if (!(e instanceof NotFoundException)) {
+          errorReporter.report("UserController.activeUser", e);
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body("Erreur lors de l'activation du compte. Lien invalide ou compte déjà activé.");
+      }
+    }, requestExecutor);
   }
 
   @PostMapping("/login")
   @Override
   public ResponseEntity<?> authenticatedUser(@RequestParam String email,
-                                             @RequestParam String password) {
+                                             @RequestParam String password,
+                                             HttpServletRequest httpRequest) {
     if (email == null || email.isEmpty() || password == null || password.isEmpty()) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-              .body("{\"message\": \"Email et mot de passe requis\"}");
+              .body(CREDENTIALS_REQUIRED);
+    }
+
+    // Refus avant la lecture de l'utilisateur et le calcul BCrypt
+    if (!loginThrottle.tryAcquire(email, httpRequest.getRemoteAddr())) {
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+              .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginThrottle.getRetryAfterSeconds()))
+              .body(TOO_MANY_ATTEMPTS);
     }
 
     try {
       AuthenticationResponse response = userService.authenticatedUser(email, password);
       return ResponseEntity.ok(response);
+    } catch (AuthenticationFailedException e) {
+      // Même réponse pour un email inconnu, un mauvais mot de passe ou un compte inactif
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+              .body(INVALID_CREDENTIALS);
     } catch (Exception e) {
-      e.printStackTrace();
+      errorReporter.report("UserController.authenticatedUser", e);
       return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-              .body("{\"message\": \"Identifiants invalides ou compte non activé\"}");
+              .body(INVALID_CREDENTIALS);
     }
   }
 
   @PostMapping("/verify-security-answer")
   @Override
-  public ResponseEntity<String> verifySecurityAnswer(@RequestBody SecurityAnswerVerificationRequest request) {
+  public ResponseEntity<JsonBody> verifySecurityAnswer(@RequestBody SecurityAnswerVerificationRequest request) {
     if (request == null || request.getUserId() == null ||
             request.getSecurityAnswer() == null || request.getSecurityAnswer().isEmpty()) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-              .body("{\"message\": \"ID utilisateur et réponse de sécurité requis\"}");
+              .body(SECURITY_ANSWER_REQUIRED);
     }
 
     try {
       boolean isValid = userService.verifySecurityAnswer(request.getUserId(), request.getSecurityAnswer());
 
       if (isValid) {
-        return ResponseEntity.ok("{\"message\": \"Authentification réussie\", \"authenticated\": true}");
+        return ResponseEntity.ok(SECURITY_ANSWER_VALID);
       } else {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                .body("{\"message\": \"Réponse de sécurité incorrecte\", \"authenticated\": false}");
+                .body(SECURITY_ANSWER_INVALID);
       }
+    } catch (BusinessException e) {
+      throw e;
     } catch (Exception e) {
-      e.printStackTrace();
+      errorReporter.report("UserController.verifySecurityAnswer", e);
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-              .body("{\"message\": \"Erreur lors de la vérification: " + e.getMessage() + "\"}");
+              .body(VERIFICATION_FAILED);
     }
   }
 
   @PutMapping("/unsubscribe")
   @Override
-  public ResponseEntity<String> deleteUser(@RequestBody User user) {
-    try {
-      User deletedUser = userService.deleteUser(user.getId());
-      return ResponseEntity.ok("{\"message\": \"Votre compte a été désactivé avec succès. Un email de confirmation vous a été envoyé.\"}");
-    } catch (Exception e) {
-      e.printStackTrace();
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-              .body("{\"message\": \"Erreur lors de la désinscription. Veuillez réessayer.\"}");
-    }
+  public CompletableFuture<ResponseEntity<JsonBody>> deleteUser(@RequestBody User user) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        User deletedUser = userService.deleteUser(user.getId());
+        return ResponseEntity.ok(UNSUBSCRIBED);
+      } catch (BusinessException e) {
+        throw e;
+      } catch (Exception e) {
+        errorReporter.report("UserController.deleteUser", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(UNSUBSCRIBE_FAILED);
+      }
+    }, requestExecutor);
   }
 
   @PutMapping("/{id}/profile")
   @Override
-  public ResponseEntity<String> updateUserProfile(@PathVariable long id, @RequestBody User user) {
+  public ResponseEntity<JsonBody> updateUserProfile(@PathVariable long id, @RequestBody User user) {
     if (user == null) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-              .body("{\"message\": \"Les données de l'utilisateur sont requises\"}");
+              .body(PROFILE_REQUIRED);
     }
 
     try {
       userService.updateUserProfile(id, user);
-      return ResponseEntity.ok("{\"message\": \"Profil mis à jour avec succès\"}");
+      return ResponseEntity.ok(PROFILE_UPDATED);
+    } catch (BusinessException e) {
+      throw e;
     } catch (Exception e) {
-      e.printStackTrace();
+      errorReporter.report("UserController.updateUserProfile", e);
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-              .body("{\"message\": \"Erreur lors de la mise à jour du profil: " + e.getMessage() + "\"}");
+              .body(PROFILE_UPDATE_FAILED);
     }
   }
 
   @PutMapping("/{id}/{oldPwd}/{newPwd}")
   @Override
-  public ResponseEntity<String> updateUserPassword(@PathVariable long id,
-                                                   @PathVariable String oldPwd,
-                                                   @PathVariable String newPwd) {
+  public ResponseEntity<JsonBody> updateUserPassword(@PathVariable long id,
+                                                     @PathVariable String oldPwd,
+                                                     @PathVariable String newPwd) {
     if (oldPwd == null || oldPwd.isEmpty() || newPwd == null || newPwd.isEmpty()) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-              .body("{\"message\": \"L'ancien et le nouveau mot de passe sont requis\"}");
+              .body(PASSWORDS_REQUIRED);
     }
 
     if (newPwd.length() < 6) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-              .body("{\"message\": \"Le nouveau mot de passe doit contenir au moins 6 caractères\"}");
+              .body(PASSWORD_TOO_SHORT);
     }
 
     try {
       userService.updateUserPassword(id, oldPwd, newPwd);
-      return ResponseEntity.ok("{\"message\": \"Mot de passe mis à jour avec succès\"}");
+      return ResponseEntity.ok(PASSWORD_UPDATED);
+    } catch (BusinessException e) {
+      throw e;
     } catch (Exception e) {
-      e.printStackTrace();
-      return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-              .body("{\"message\": \"" + e.getMessage() + "\"}");
+      // Ancien mot de passe incorrect ou réutilisé : BusinessException, traitée par ApiExceptionHandler
+      errorReporter.report("UserController.updateUserPassword", e);
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+              .body(PASSWORD_UPDATE_FAILED);
     }
   }
 
   @PutMapping("/{email}/password/renew")
   @Override
-  public ResponseEntity<String> renewPassword(@PathVariable String email,
-                                              @RequestBody PasswordRenewalRequest request) {
+  public ResponseEntity<JsonBody> renewPassword(@PathVariable String email,
+                                                @RequestBody PasswordRenewalRequest request) {
     if (request == null ||
             request.getOldPassword() == null || request.getOldPassword().isEmpty() ||
             request.getNewPassword() == null || request.getNewPassword().isEmpty()) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-              .body("{\"message\": \"L'ancien et le nouveau mot de passe sont requis\"}");
+              .body(PASSWORDS_REQUIRED);
     }
 
     if (request.getNewPassword().length() < 6) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-              .body("{\"message\": \"Le nouveau mot de passe doit contenir au moins 6 caractères\"}");
+              .body(PASSWORD_TOO_SHORT);
     }
 
     try {
       userService.renewPassword(email, request.getOldPassword(), request.getNewPassword());
-      return ResponseEntity.ok("{\"message\": \"Mot de passe renouvelé avec succès\"}");
+      return ResponseEntity.ok(PASSWORD_RENEWED);
+    } catch (BusinessException e) {
+      throw e;
     } catch (Exception e) {
-      e.printStackTrace();
-
-      if (e.getMessage().contains("5 derniers")) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body("{\"message\": \"" + e.getMessage() + "\"}");
-      } else if (e.getMessage().contains("incorrect")) {
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                .body("{\"message\": \"" + e.getMessage() + "\"}");
-      } else {
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body("{\"message\": \"Erreur lors du renouvellement: " + e.getMessage() + "\"}");
-      }
+      errorReporter.report("UserController.renewPassword", e);
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+              .body(RENEWAL_FAILED);
     }
   }
 
   @GetMapping("/{email}/password/status")
   @Override
-  public ResponseEntity<String> checkPasswordStatus(@PathVariable String email) {
+  public ResponseEntity<JsonBody> checkPasswordStatus(@PathVariable String email) {
     try {
       boolean isExpired = userService.isPasswordExpired(email);
       long daysRemaining = userService.getDaysUntilPasswordExpiration(email);
 
       if (isExpired) {
-        return ResponseEntity.ok("{\"expired\": true, \"daysRemaining\": 0, \"message\": \"Votre mot de passe a expiré. Veuillez le renouveler.\"}");
+        return ResponseEntity.ok(PASSWORD_EXPIRED);
       } else {
-        return ResponseEntity.ok("{\"expired\": false, \"daysRemaining\": " + daysRemaining + ", \"message\": \"Votre mot de passe est valide.\"}");
+        return ResponseEntity.ok(new PasswordStatusResponse(false, daysRemaining, "Votre mot de passe est valide."));
       }
+    } catch (BusinessException e) {
+      throw e;
     } catch (Exception e) {
-      e.printStackTrace();
+      errorReporter.report("UserController.checkPasswordStatus", e);
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-              .body("{\"message\": \"Erreur lors de la vérification: " + e.getMessage() + "\"}");
+              .body(VERIFICATION_FAILED);
     }
   }
 }
\ No newline at end of file
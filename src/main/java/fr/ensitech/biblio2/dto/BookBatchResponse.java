@@ -0,0 +1,15 @@
+package fr.ensitech.biblio2.dto;
+
+import fr.ensitech.biblio2.entity.Book;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+public class BookBatchResponse {
+  private List<Book> books;
+  private List<Long> missingIds;
+}
@@ -0,0 +1,19 @@
+package fr.ensitech.biblio2.dto;
+
+import fr.ensitech.biblio2.entity.Book;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+public class BookBrowseResponse {
+  private int total;
+  private int page;
+  private int size;
+  private List<Book> books;
+  private Map<String, Map<String, Integer>> facets;
+}
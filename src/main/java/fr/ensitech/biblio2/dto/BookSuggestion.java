@@ -0,0 +1,13 @@
+package fr.ensitech.biblio2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+public class BookSuggestion {
+  private long id;
+  private String title;
+  private int reservations;
+}
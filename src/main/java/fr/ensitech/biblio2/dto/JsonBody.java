@@ -0,0 +1,14 @@
+package fr.ensitech.biblio2.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Réponse qui s'écrit elle-même dans le générateur Jackson, sans introspection ni chaîne intermédiaire.
+ * Écrite par JsonBodyHttpMessageConverter ; les corps fixes sont précalculés une fois avec JsonConstant.
+ */
+public interface JsonBody {
+
+  void writeTo(JsonGenerator generator) throws IOException;
+}
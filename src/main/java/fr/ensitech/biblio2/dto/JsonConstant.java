@@ -0,0 +1,54 @@
+package fr.ensitech.biblio2.dto;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Corps JSON sérialisé une seule fois (à l'initialisation du contrôleur) puis recopié tel quel à chaque réponse.
+ */
+public final class JsonConstant implements JsonBody {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final byte[] bytes;
+
+  private JsonConstant(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  public static JsonConstant of(JsonBody body) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+      body.writeTo(generator);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return new JsonConstant(out.toByteArray());
+  }
+
+  public void writeTo(OutputStream out) throws IOException {
+    out.write(bytes);
+  }
+
+  public int length() {
+    return bytes.length;
+  }
+
+  // Inclus dans un autre document
+  @Override
+  public void writeTo(JsonGenerator generator) throws IOException {
+    generator.writeRawValue(toString());
+  }
+
+  @Override
+  public String toString() {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
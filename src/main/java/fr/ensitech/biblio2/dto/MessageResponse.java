@@ -0,0 +1,22 @@
+package fr.ensitech.biblio2.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * {"message": "..."}
+ */
+public record MessageResponse(String message) implements JsonBody {
+
+  public static JsonConstant constant(String message) {
+    return JsonConstant.of(new MessageResponse(message));
+  }
+
+  @Override
+  public void writeTo(JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("message", message);
+    generator.writeEndObject();
+  }
+}
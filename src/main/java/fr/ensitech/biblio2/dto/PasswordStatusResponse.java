@@ -0,0 +1,17 @@
+package fr.ensitech.biblio2.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+public record PasswordStatusResponse(boolean expired, long daysRemaining, String message) implements JsonBody {
+
+  @Override
+  public void writeTo(JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    generator.writeBooleanField("expired", expired);
+    generator.writeNumberField("daysRemaining", daysRemaining);
+    generator.writeStringField("message", message);
+    generator.writeEndObject();
+  }
+}
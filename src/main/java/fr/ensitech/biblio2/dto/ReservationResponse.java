@@ -0,0 +1,16 @@
+package fr.ensitech.biblio2.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+public record ReservationResponse(String message, long reservationId) implements JsonBody {
+
+  @Override
+  public void writeTo(JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("message", message);
+    generator.writeNumberField("reservationId", reservationId);
+    generator.writeEndObject();
+  }
+}
@@ -0,0 +1,16 @@
+package fr.ensitech.biblio2.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+public record SecurityAnswerVerificationResponse(String message, boolean authenticated) implements JsonBody {
+
+  @Override
+  public void writeTo(JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("message", message);
+    generator.writeBooleanField("authenticated", authenticated);
+    generator.writeEndObject();
+  }
+}
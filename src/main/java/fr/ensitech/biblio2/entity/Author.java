@@ -1,13 +1,18 @@
 package fr.ensitech.biblio2.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
 @Table(name = "author", catalog = "biblio-database")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "author")
 @Getter @Setter @ToString @NoArgsConstructor @AllArgsConstructor
 public class Author {
 
@@ -21,6 +26,7 @@ public class Author {
   @Column(name = "lastname", nullable = false, length = 48)
   private String lastName;
 
+  @JsonIgnore
   @ManyToMany(mappedBy = "authors", fetch = FetchType.LAZY)
   private Set<Book> books = new HashSet<Book>();
 }
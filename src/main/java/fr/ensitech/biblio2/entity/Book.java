@@ -1,8 +1,13 @@
 package fr.ensitech.biblio2.entity;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import fr.ensitech.biblio2.utils.Isbn;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.util.Date;
 import java.util.HashSet;
@@ -10,6 +15,8 @@ import java.util.Set;
 
 @Entity
 @Table(name="book", catalog = "biblio-database")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book")
 @Getter @Setter @ToString @NoArgsConstructor @AllArgsConstructor
 @Builder
 public class Book {
@@ -37,6 +44,11 @@ public class Book {
   @Column(name = "isbn", nullable = false, length = 13, unique = true)
   private String isbn;
 
+  // ISBN-13 validé sous forme numérique, null si l'ISBN saisi n'est pas valide
+  @JsonIgnore
+  @Column(name = "isbn13", unique = true)
+  private Long isbn13;
+
   @Column(name = "nbPage", nullable = false)
   private short nbPage;
 
@@ -49,13 +61,30 @@ public class Book {
   @Column(name = "stock", nullable = false)
   private int stock = 0;
 
+  @Version
+  @Column(name = "version", nullable = false)
+  private long version;
+
+  @UpdateTimestamp
+  @Column(name = "last_modified")
+  @Temporal(TemporalType.TIMESTAMP)
+  private Date lastModified;
+
   @ManyToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book.authors")
   @JoinTable(name = "author-book",
           joinColumns = @JoinColumn(name = "author-id"),
           inverseJoinColumns = @JoinColumn(name = "book-id")
   )
   private Set<Author> authors = new HashSet<Author>();
 
+  @JsonIgnore
   @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, orphanRemoval = true)
   private Set<Reservation> reservations = new HashSet<>();
-}
\ No newline at end of file
+
+  @PrePersist
+  @PreUpdate
+  void normalizeIsbn() {
+    isbn13 = Isbn.toIsbn13(isbn);
+  }
+}
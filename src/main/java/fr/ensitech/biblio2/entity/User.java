@@ -8,10 +8,14 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "users", catalog = "biblio-database")
+@Table(name = "users", catalog = "biblio-database",
+        uniqueConstraints = @UniqueConstraint(name = User.EMAIL_UNIQUE_CONSTRAINT, columnNames = "email"))
 @Getter @Setter @ToString @NoArgsConstructor @AllArgsConstructor
 public class User {
 
+  // Nommée pour reconnaître un email déjà inscrit parmi les violations de contraintes
+  public static final String EMAIL_UNIQUE_CONSTRAINT = "uk_users_email";
+
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private long id;
@@ -22,7 +26,7 @@ public class User {
   @Column(name="lastName", nullable=false, length=48)
   private String lastName;
 
-  @Column(name = "email", nullable=false, length=48, unique=true)
+  @Column(name = "email", nullable=false, length=48)
   private String email;
 
   @Column(name = "password", nullable=false, length=128)
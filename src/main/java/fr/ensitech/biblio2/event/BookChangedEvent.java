@@ -0,0 +1,22 @@
+package fr.ensitech.biblio2.event;
+
+import fr.ensitech.biblio2.entity.Book;
+
+/**
+ * Publié par BookService après l'enregistrement ou la suppression d'un livre.
+ * book vaut null pour une suppression.
+ */
+public record BookChangedEvent(Long bookId, Book book) {
+
+  public static BookChangedEvent saved(Book book) {
+    return new BookChangedEvent(book.getId(), book);
+  }
+
+  public static BookChangedEvent deleted(long bookId) {
+    return new BookChangedEvent(bookId, null);
+  }
+
+  public boolean isDeletion() {
+    return book == null;
+  }
+}
@@ -0,0 +1,7 @@
+package fr.ensitech.biblio2.event;
+
+/**
+ * Publié par ReservationService après l'enregistrement d'une réservation.
+ */
+public record BookReservedEvent(long bookId) {
+}
@@ -0,0 +1,11 @@
+package fr.ensitech.biblio2.exception;
+
+/**
+ * Identifiants ou mot de passe actuel incorrects, compte non activé (401).
+ */
+public class AuthenticationFailedException extends BusinessException {
+
+  public AuthenticationFailedException(String message) {
+    super(message);
+  }
+}
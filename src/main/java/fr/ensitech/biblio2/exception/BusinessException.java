@@ -0,0 +1,12 @@
+package fr.ensitech.biblio2.exception;
+
+/**
+ * Refus métier attendu (introuvable, déjà réservé, limite atteinte...), traduit en code HTTP par ApiExceptionHandler.
+ * Sans pile d'appels ni suppression : un refus coûte une allocation, pas un parcours de la pile.
+ */
+public abstract class BusinessException extends RuntimeException {
+
+  protected BusinessException(String message) {
+    super(message, null, false, false);
+  }
+}
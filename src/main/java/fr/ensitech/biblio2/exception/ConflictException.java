@@ -0,0 +1,11 @@
+package fr.ensitech.biblio2.exception;
+
+/**
+ * Demande incompatible avec l'état courant : déjà réservé, limite atteinte, plus de stock, email déjà inscrit (409).
+ */
+public class ConflictException extends BusinessException {
+
+  public ConflictException(String message) {
+    super(message);
+  }
+}
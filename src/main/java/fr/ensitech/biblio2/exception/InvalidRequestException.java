@@ -0,0 +1,11 @@
+package fr.ensitech.biblio2.exception;
+
+/**
+ * Donnée refusée par une règle de validation (400).
+ */
+public class InvalidRequestException extends BusinessException {
+
+  public InvalidRequestException(String message) {
+    super(message);
+  }
+}
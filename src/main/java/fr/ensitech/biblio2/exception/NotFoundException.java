@@ -0,0 +1,11 @@
+package fr.ensitech.biblio2.exception;
+
+/**
+ * Ressource demandée introuvable (404).
+ */
+public class NotFoundException extends BusinessException {
+
+  public NotFoundException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,18 @@
+package fr.ensitech.biblio2.exception;
+
+/**
+ * Ressource momentanément saturée, la même demande peut réussir un peu plus tard (503 avec Retry-After).
+ */
+public class ServiceBusyException extends BusinessException {
+
+  private final long retryAfterSeconds;
+
+  public ServiceBusyException(String message, long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
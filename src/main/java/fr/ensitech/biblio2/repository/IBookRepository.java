@@ -1,8 +1,14 @@
 package fr.ensitech.biblio2.repository;
 
 import fr.ensitech.biblio2.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Date;
@@ -10,13 +16,44 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface IBookRepository extends JpaRepository<Book, Long> {
+public interface IBookRepository extends JpaRepository<Book, Long>, IBookRepositoryCustom {
 
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+          @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "book-queries")
+  })
   List<Book> findByPublished(boolean published);
   List<Book> findByTitleIgnoreCase(String title);
   List<Book> findByTitleContainingIgnoreCase(String title);
-  Book findByIsbnIgnoreCase(String isbn);
+  Book findByIsbn(String isbn);
+  Book findByIsbn13(Long isbn13);
   List<Book> findByTitleContainingIgnoreCaseOrDescriptionContainingIgnoreCase(String title, String description);
   List<Book> findByPublicationDateBetween(Date start, Date end);
 
+  @EntityGraph(attributePaths = "authors")
+  @Query("select b from Book b")
+  List<Book> findAllWithAuthors();
+
+  @Query("select b.id, b.publicationDate from Book b")
+  List<Object[]> findPublicationDates();
+
+  @Query("select year(b.publicationDate), count(b) from Book b group by year(b.publicationDate) order by year(b.publicationDate)")
+  List<Object[]> countByPublicationYear();
+
+  @Query("select b.id, b.category, b.language, b.published, b.publicationDate from Book b order by b.id")
+  List<Object[]> findFacetValues();
+
+  @Query("select b.id, b.title from Book b")
+  List<Object[]> findTitles();
+
+  @Query("select b.id, b.isbn, b.isbn13 from Book b")
+  List<Object[]> findIsbns();
+
+  @Modifying
+  @Query("update Book b set b.isbn13 = :isbn13 where b.id = :id")
+  void updateIsbn13(@Param("id") long id, @Param("isbn13") long isbn13);
+
+  @Query("select b.id, b.version, b.lastModified from Book b")
+  List<Object[]> findVersionStamps();
+
 }
\ No newline at end of file
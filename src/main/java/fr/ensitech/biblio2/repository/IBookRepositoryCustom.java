@@ -0,0 +1,26 @@
+package fr.ensitech.biblio2.repository;
+
+import fr.ensitech.biblio2.entity.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Requêtes de IBookRepository écrites à la main, implémentées par IBookRepositoryCustomImpl.
+ */
+public interface IBookRepositoryCustom {
+
+  /**
+   * Livres dans l'ordre des ids demandés, null à la place d'un id inconnu.
+   * Les livres déjà en session ou dans le cache de second niveau ne sont pas relus,
+   * les autres sont chargés par une seule requête IN.
+   */
+  List<Book> findAllByIdCached(List<Long> ids);
+
+  /**
+   * Seules les colonnes demandées sont lues ; chaque livre devient une map champ -> valeur
+   * dans l'ordre des champs.
+   */
+  List<Map<String, Object>> findFields(List<String> fields, Specification<Book> specification);
+}
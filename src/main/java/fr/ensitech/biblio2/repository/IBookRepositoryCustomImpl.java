@@ -0,0 +1,59 @@
+package fr.ensitech.biblio2.repository;
+
+import fr.ensitech.biblio2.entity.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class IBookRepositoryCustomImpl implements IBookRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public List<Book> findAllByIdCached(List<Long> ids) {
+    return entityManager.unwrap(Session.class)
+            .byMultipleIds(Book.class)
+            .with(CacheMode.NORMAL)
+            .enableSessionCheck(true)
+            .enableOrderedReturn(true)
+            .withBatchSize(ids.size())
+            .multiLoad(ids);
+  }
+
+  @Override
+  public List<Map<String, Object>> findFields(List<String> fields, Specification<Book> specification) {
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = builder.createTupleQuery();
+    Root<Book> root = query.from(Book.class);
+    List<Selection<?>> selections = new ArrayList<>(fields.size());
+    for (String field : fields) {
+      selections.add(root.get(field).alias(field));
+    }
+    query.multiselect(selections);
+    query.where(specification.toPredicate(root, query, builder));
+
+    List<Tuple> tuples = entityManager.createQuery(query).getResultList();
+    List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+    for (Tuple tuple : tuples) {
+      Map<String, Object> row = new LinkedHashMap<>();
+      for (String field : fields) {
+        row.put(field, tuple.get(field));
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+}
@@ -21,4 +21,7 @@ public interface IReservationRepository extends JpaRepository<Reservation, Long>
   List<Reservation> findByUserAndStatus(User user, String status);
 
   List<Reservation> findByBookAndStatus(Book book, String status);
+
+  @Query("SELECT r.book.id, COUNT(r) FROM Reservation r GROUP BY r.book.id")
+  List<Object[]> countReservationsByBook();
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package fr.ensitech.biblio2.repository;
 
 import fr.ensitech.biblio2.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Date;
@@ -15,4 +16,7 @@ public interface IUserRepository extends JpaRepository<User, Long> {
   List<User> findByFirstNameAndLastName(String firstName, String lastName);
   List<User> findByBirthdate(Date birthdate);
   User findByEmail(String email);
+
+  @Query("select u.email from User u")
+  List<String> findAllEmails();
 }
\ No newline at end of file
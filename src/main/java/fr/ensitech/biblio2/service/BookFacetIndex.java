@@ -0,0 +1,290 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index bitmap des facettes du catalogue : chaque livre reçoit un numéro de document,
+ * chaque valeur de facette un BitSet. Un filtre combiné est l'intersection des BitSet concernés.
+ */
+@Component
+public class BookFacetIndex {
+
+  public enum Facet {
+    CATEGORY("category"),
+    LANGUAGE("language"),
+    PUBLISHED("published"),
+    YEAR("year");
+
+    private final String key;
+
+    Facet(String key) {
+      this.key = key;
+    }
+
+    public String getKey() {
+      return key;
+    }
+  }
+
+  /**
+   * Une page de résultats : ids des livres et, par facette, le nombre de livres par valeur.
+   * Les comptes d'une facette ignorent le filtre posé sur cette même facette.
+   */
+  public record Result(int total, List<Long> ids, Map<Facet, Map<String, Integer>> counts) {
+  }
+
+  @Autowired
+  private IBookRepository bookRepository;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Long, Integer> docById = new HashMap<>();
+  private final Map<Facet, Map<String, BitSet>> postings = new EnumMap<>(Facet.class);
+  private final BitSet live = new BitSet();
+  private long[] idByDoc = new long[1024];
+  private int nextDoc;
+  private int deadDocs;
+  private volatile boolean ready;
+
+  public BookFacetIndex() {
+    for (Facet facet : Facet.values()) {
+      postings.put(facet, new HashMap<>());
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    lock.writeLock().lock();
+    try {
+      if (ready) {
+        return;
+      }
+      for (Object[] row : bookRepository.findFacetValues()) {
+        index((Long) row[0], new String[]{
+                (String) row[1],
+                (String) row[2],
+                String.valueOf(row[3]),
+                row[4] == null ? null : String.valueOf(PublicationYearIndex.yearOf((Date) row[4]))});
+      }
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Appliqué tout de suite, et relu depuis la base si la transaction qui écrit est annulée.
+   */
+  @EventListener
+  public void onBookChanged(BookChangedEvent event) {
+    Long bookId = event.bookId();
+    if (bookId == null) {
+      return;
+    }
+    if (event.isDeletion()) {
+      remove(bookId);
+    } else {
+      put(event.book());
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status == STATUS_ROLLED_BACK) {
+            refresh(bookId);
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Livres correspondant à tous les filtres (valeur exacte par facette), par ordre d'entrée dans l'index.
+   */
+  public Result browse(Map<Facet, String> filters, int page, int size) {
+    if (!ready) {
+      load();
+    }
+    lock.readLock().lock();
+    try {
+      BitSet matching = filter(filters, null);
+      List<Long> ids = new ArrayList<>(size);
+      // En long : page * size peut dépasser Integer.MAX_VALUE
+      long skip = (long) page * size;
+      for (int doc = matching.nextSetBit(0); doc >= 0 && ids.size() < size; doc = matching.nextSetBit(doc + 1)) {
+        if (skip > 0) {
+          skip--;
+        } else {
+          ids.add(idByDoc[doc]);
+        }
+      }
+
+      Map<Facet, Map<String, Integer>> counts = new EnumMap<>(Facet.class);
+      for (Facet facet : Facet.values()) {
+        BitSet others = filters.containsKey(facet) ? filter(filters, facet) : matching;
+        Map<String, Integer> values = new TreeMap<>();
+        for (Map.Entry<String, BitSet> posting : postings.get(facet).entrySet()) {
+          int count = intersectionCount(others, posting.getValue());
+          if (count > 0) {
+            values.put(posting.getKey(), count);
+          }
+        }
+        counts.put(facet, values);
+      }
+      return new Result(matching.cardinality(), ids, counts);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  void refresh(long bookId) {
+    Optional<Book> book = bookRepository.findById(bookId);
+    if (book.isPresent()) {
+      put(book.get());
+    } else {
+      remove(bookId);
+    }
+  }
+
+  void put(Book book) {
+    String year = book.getPublicationDate() == null
+            ? null : String.valueOf(PublicationYearIndex.yearOf(book.getPublicationDate()));
+    lock.writeLock().lock();
+    try {
+      index(book.getId(), new String[]{
+              book.getCategory(), book.getLanguage(), String.valueOf(book.isPublished()), year});
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  void remove(long bookId) {
+    lock.writeLock().lock();
+    try {
+      Integer doc = docById.remove(bookId);
+      if (doc != null) {
+        live.clear(doc);
+        clearPostings(doc);
+        // Comme TitleTrigramIndex : compacté quand les documents morts dépassent le quart
+        if (++deadDocs > 1024 && deadDocs > nextDoc / 4) {
+          compact();
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Appelé sous le verrou d'écriture ; values suit l'ordre de l'enum Facet.
+  // Une mise à jour garde le numéro de document du livre, seules ses valeurs changent.
+  private void index(long bookId, String[] values) {
+    Integer existing = docById.get(bookId);
+    int doc;
+    if (existing != null) {
+      doc = existing;
+      clearPostings(doc);
+    } else {
+      doc = nextDoc++;
+      if (doc == idByDoc.length) {
+        idByDoc = Arrays.copyOf(idByDoc, doc * 2);
+      }
+      idByDoc[doc] = bookId;
+      docById.put(bookId, doc);
+      live.set(doc);
+    }
+    for (Facet facet : Facet.values()) {
+      String value = values[facet.ordinal()];
+      if (value != null) {
+        postings.get(facet).computeIfAbsent(value, v -> new BitSet()).set(doc);
+      }
+    }
+  }
+
+  int docSlots() {
+    lock.readLock().lock();
+    try {
+      return nextDoc;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // Appelé sous le verrou d'écriture : renumérote les documents vivants dans le même ordre
+  private void compact() {
+    int[] newDoc = new int[nextDoc];
+    long[] ids = new long[Math.max(1024, docById.size())];
+    int n = 0;
+    for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+      newDoc[doc] = n;
+      ids[n] = idByDoc[doc];
+      docById.put(ids[n], n);
+      n++;
+    }
+    for (Map<String, BitSet> values : postings.values()) {
+      for (Map.Entry<String, BitSet> posting : values.entrySet()) {
+        BitSet renumbered = new BitSet(n);
+        BitSet bits = posting.getValue();
+        for (int doc = bits.nextSetBit(0); doc >= 0; doc = bits.nextSetBit(doc + 1)) {
+          renumbered.set(newDoc[doc]);
+        }
+        posting.setValue(renumbered);
+      }
+    }
+    live.clear();
+    live.set(0, n);
+    idByDoc = ids;
+    nextDoc = n;
+    deadDocs = 0;
+  }
+
+  private void clearPostings(int doc) {
+    for (Map<String, BitSet> values : postings.values()) {
+      values.values().removeIf(bits -> {
+        bits.clear(doc);
+        return bits.isEmpty();
+      });
+    }
+  }
+
+  private BitSet filter(Map<Facet, String> filters, Facet ignored) {
+    BitSet result = (BitSet) live.clone();
+    for (Map.Entry<Facet, String> filter : filters.entrySet()) {
+      if (filter.getKey() == ignored) {
+        continue;
+      }
+      BitSet bits = postings.get(filter.getKey()).get(filter.getValue());
+      if (bits == null) {
+        return new BitSet();
+      }
+      result.and(bits);
+    }
+    return result;
+  }
+
+  private static int intersectionCount(BitSet a, BitSet b) {
+    BitSet smaller = a.length() <= b.length() ? a : b;
+    BitSet copy = (BitSet) smaller.clone();
+    copy.and(smaller == a ? b : a);
+    return copy.cardinality();
+  }
+}
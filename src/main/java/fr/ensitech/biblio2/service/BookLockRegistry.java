@@ -0,0 +1,102 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.exception.ServiceBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verrous équitables répartis par livre (lock striping).
+ * Deux réservations sur le même livre sont sérialisées, deux livres différents
+ * ne partagent un verrou que s'ils tombent sur la même bande.
+ */
+@Component
+public class BookLockRegistry {
+
+  private final ReentrantLock[] stripes;
+  private final long timeoutMillis;
+  private final Timer acquiredTimer;
+  private final Timer timeoutTimer;
+
+  @Autowired
+  public BookLockRegistry(@Value("${biblio.reservation.lock.stripes:64}") int stripeCount,
+                          @Value("${biblio.reservation.lock.timeout-ms:2000}") long timeoutMillis,
+                          MeterRegistry meterRegistry) {
+    if (stripeCount <= 0) {
+      throw new IllegalArgumentException("stripeCount must be greater than 0");
+    }
+    // Puissance de 2 pour indexer par masque
+    int size = Integer.highestOneBit(stripeCount - 1) << 1;
+    if (size <= 0) {
+      size = 1;
+    }
+    this.stripes = new ReentrantLock[size];
+    for (int i = 0; i < size; i++) {
+      this.stripes[i] = new ReentrantLock(true);
+    }
+    this.timeoutMillis = timeoutMillis;
+    this.acquiredTimer = Timer.builder("biblio.reservation.lock.wait")
+            .description("Temps d'attente du verrou de réservation par livre")
+            .tag("outcome", "acquired")
+            .register(meterRegistry);
+    this.timeoutTimer = Timer.builder("biblio.reservation.lock.wait")
+            .description("Temps d'attente du verrou de réservation par livre")
+            .tag("outcome", "timeout")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Exécute l'action sous le verrou du livre. À appeler avant d'ouvrir la transaction qui lit et écrit :
+   * en REPEATABLE READ, une transaction déjà commencée ne verrait pas l'insertion validée par le détenteur précédent.
+   * Appelé depuis une transaction existante, le verrou est conservé jusqu'à la fin de celle-ci.
+   */
+  public <T> T withLock(long bookId, Callable<T> action) throws Exception {
+    ReentrantLock lock = stripeFor(bookId);
+    long start = System.nanoTime();
+    boolean acquired = lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+    long waited = System.nanoTime() - start;
+
+    if (!acquired) {
+      timeoutTimer.record(waited, TimeUnit.NANOSECONDS);
+      throw new ServiceBusyException("Ce livre est très demandé et momentanément indisponible, veuillez réessayer",
+              Math.max(1, (timeoutMillis + 999) / 1000));
+    }
+    acquiredTimer.record(waited, TimeUnit.NANOSECONDS);
+
+    boolean releaseOnCompletion = false;
+    try {
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            lock.unlock();
+          }
+        });
+        releaseOnCompletion = true;
+      }
+      return action.call();
+    } finally {
+      if (!releaseOnCompletion) {
+        lock.unlock();
+      }
+    }
+  }
+
+  ReentrantLock stripeFor(long bookId) {
+    long h = bookId * 0x9E3779B97F4A7C15L;
+    int index = (int) (h ^ (h >>> 32)) & (stripes.length - 1);
+    return stripes[index];
+  }
+
+  int stripeCount() {
+    return stripes.length;
+  }
+}
@@ -1,15 +1,32 @@
 package fr.ensitech.biblio2.service;
 
+import fr.ensitech.biblio2.dto.BookBatchResponse;
+import fr.ensitech.biblio2.dto.BookBrowseResponse;
+import fr.ensitech.biblio2.dto.BookSuggestion;
 import fr.ensitech.biblio2.entity.Author;
 import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.exception.InvalidRequestException;
+import fr.ensitech.biblio2.exception.NotFoundException;
 import fr.ensitech.biblio2.repository.IBookRepository;
+import fr.ensitech.biblio2.utils.Isbn;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Service
 public class BookService implements IBookService {
@@ -17,18 +34,37 @@ public class BookService implements IBookService {
   @Autowired
   private IBookRepository bookRepository;
 
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private PublicationYearIndex publicationYearIndex;
+
+  @Autowired
+  private BookFacetIndex bookFacetIndex;
+
+  @Autowired
+  private TitleTrigramIndex titleTrigramIndex;
+
+  @Autowired
+  private IsbnIndex isbnIndex;
+
+  @Autowired
+  private TitleSuggestIndex titleSuggestIndex;
+
   @Override
   public Book addOrUpdateBook(Book book) throws Exception {
     if (book.getId() == null || book.getId() == 0) {
-      bookRepository.save(book);
+      Book saved = bookRepository.save(book);
+      eventPublisher.publishEvent(BookChangedEvent.saved(saved));
     } else {
       if (book.getId() < 0) {
-        throw new Exception("Book id must be greater than 0");
+        throw new InvalidRequestException("Book id must be greater than 0");
       }
 
       Optional<Book> optionalBook = bookRepository.findById(book.getId());
       if (optionalBook.isEmpty()) {
-        throw new Exception("Book with id " + book.getId() + " not found");
+        throw new NotFoundException("Book with id " + book.getId() + " not found");
       }
 
       Book _book = optionalBook.get();
@@ -41,7 +77,8 @@ public class BookService implements IBookService {
       _book.setLanguage(book.getLanguage());
       _book.setNbPage(book.getNbPage());
       _book.setPublished(book.isPublished());
-      bookRepository.save(_book);
+      Book saved = bookRepository.save(_book);
+      eventPublisher.publishEvent(BookChangedEvent.saved(saved));
 
       return _book;
     }
@@ -52,31 +89,102 @@ public class BookService implements IBookService {
   public void deleteBook(long id) throws Exception {
     Optional<Book> optionalBook = bookRepository.findById(id);
     if (optionalBook.isEmpty()) {
-      throw new Exception("Book with id " + id + " not found");
+      throw new NotFoundException("Book with id " + id + " not found");
     }
     bookRepository.deleteById(id);
+    eventPublisher.publishEvent(BookChangedEvent.deleted(id));
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<Book> getBooks() throws Exception {
     return bookRepository.findAll();
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Book getBook(long id) throws Exception {
     Optional<Book> optional = bookRepository.findById(id);
     return optional.orElse(null);
   }
 
   @Override
+  @Transactional(readOnly = true)
+  public BookBatchResponse getBooksByIds(List<Long> ids) {
+    List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+    List<Book> found = bookRepository.findAllByIdCached(distinctIds);
+    List<Book> books = new ArrayList<>(distinctIds.size());
+    List<Long> missingIds = new ArrayList<>();
+    for (int i = 0; i < distinctIds.size(); i++) {
+      Book book = found.get(i);
+      if (book == null) {
+        missingIds.add(distinctIds.get(i));
+      } else {
+        books.add(book);
+      }
+    }
+    return new BookBatchResponse(books, missingIds);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
   public Book getBookByTitle(String title) throws Exception {
     List<Book> books = bookRepository.findByTitleIgnoreCase(title);
     return books.isEmpty() ? null : books.get(0);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<Book> getBooksByTitleContaining(String title) throws Exception {
-    return bookRepository.findByTitleContainingIgnoreCase(title);
+    List<Book> books = bookRepository.findByTitleContainingIgnoreCase(title);
+    if (books.isEmpty()) {
+      // Titre probablement mal orthographié : on propose les titres proches plutôt qu'une réponse vide
+      return getBooksByTitleFuzzy(title, title.length() <= 5 ? 1 : 2);
+    }
+    return books;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<Map<String, Object>> getBooksByTitleContaining(String title, List<String> fields) {
+    List<Map<String, Object>> books = bookRepository.findFields(fields, containsIgnoreCase("title", title));
+    if (books.isEmpty()) {
+      return getBooksByTitleFuzzy(title, title.length() <= 5 ? 1 : 2, fields);
+    }
+    return books;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<Book> getBooksByTitleFuzzy(String title, int maxEdits) throws Exception {
+    List<Long> ids = fuzzyTitleMatches(title, maxEdits);
+    return ids.isEmpty() ? new ArrayList<>() : inIndexOrder(ids, bookRepository.findAllById(ids), Book::getId);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<Map<String, Object>> getBooksByTitleFuzzy(String title, int maxEdits, List<String> fields) {
+    List<Long> ids = fuzzyTitleMatches(title, maxEdits);
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return inIndexOrder(ids, bookRepository.findFields(fields, idIn(ids)), BookService::idOf);
+  }
+
+  // Au plus 20 ids : le IN qui charge ensuite les livres reste borné
+  private List<Long> fuzzyTitleMatches(String title, int maxEdits) {
+    List<TitleTrigramIndex.Match> matches = titleTrigramIndex.search(title, maxEdits, 20);
+    List<Long> ids = new ArrayList<>(matches.size());
+    for (TitleTrigramIndex.Match match : matches) {
+      ids.add(match.bookId());
+    }
+    return ids;
+  }
+
+  @Override
+  public List<BookSuggestion> suggestTitles(String prefix, int limit) {
+    // Servi entièrement depuis l'index : aucune requête SQL par frappe au clavier
+    return titleSuggestIndex.suggest(prefix, limit);
   }
 
   @Override
@@ -84,35 +192,162 @@ public class BookService implements IBookService {
     return null;
   }
 
+  /**
+   * Les lignes viennent toujours du parcours de l'index publication_date : une liste d'ids de toute
+   * une plage d'années ferait un IN sans limite. L'index en mémoire évite seulement la requête d'une plage vide.
+   */
   @Override
+  @Transactional(readOnly = true)
   public List<Book> getBooksBetweenYears(int startYear, int endYear) throws Exception {
-    Calendar startCalendar = Calendar.getInstance();
-    startCalendar.set(Calendar.YEAR, startYear);
-    startCalendar.set(Calendar.MONTH, Calendar.JANUARY);
-    startCalendar.set(Calendar.DAY_OF_MONTH, 1);
-    Date startDate = startCalendar.getTime();
+    if (isEmptyRange(startYear, endYear)) {
+      return new ArrayList<>();
+    }
+    return bookRepository.findByPublicationDateBetween(firstDayOf(startYear), lastDayOf(endYear));
+  }
 
-    Calendar endCalendar = Calendar.getInstance();
-    endCalendar.set(Calendar.YEAR, endYear);
-    endCalendar.set(Calendar.MONTH, Calendar.DECEMBER);
-    endCalendar.set(Calendar.DAY_OF_MONTH, 31);
-    Date endDate = endCalendar.getTime();
+  @Override
+  @Transactional(readOnly = true)
+  public List<Map<String, Object>> getBooksBetweenYears(int startYear, int endYear, List<String> fields) {
+    if (isEmptyRange(startYear, endYear)) {
+      return new ArrayList<>();
+    }
+    Date startDate = firstDayOf(startYear);
+    Date endDate = lastDayOf(endYear);
+    return bookRepository.findFields(fields,
+            (root, query, builder) -> builder.between(root.<Date>get("publicationDate"), startDate, endDate));
+  }
+
+  private boolean isEmptyRange(int startYear, int endYear) {
+    return publicationYearIndex.isReady() && publicationYearIndex.countBetween(startYear, endYear) == 0;
+  }
+
+  private static Date firstDayOf(int year) {
+    Calendar calendar = Calendar.getInstance();
+    calendar.set(Calendar.YEAR, year);
+    calendar.set(Calendar.MONTH, Calendar.JANUARY);
+    calendar.set(Calendar.DAY_OF_MONTH, 1);
+    return calendar.getTime();
+  }
+
+  private static Date lastDayOf(int year) {
+    Calendar calendar = Calendar.getInstance();
+    calendar.set(Calendar.YEAR, year);
+    calendar.set(Calendar.MONTH, Calendar.DECEMBER);
+    calendar.set(Calendar.DAY_OF_MONTH, 31);
+    return calendar.getTime();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Map<Integer, Integer> getBookCountsByYear() {
+    if (publicationYearIndex.isReady()) {
+      return publicationYearIndex.countByYear();
+    }
+    Map<Integer, Integer> counts = new LinkedHashMap<>();
+    for (Object[] row : bookRepository.countByPublicationYear()) {
+      counts.put((Integer) row[0], ((Long) row[1]).intValue());
+    }
+    return counts;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public BookBrowseResponse browseBooks(String category, String language, Boolean published, Integer year,
+                                        int page, int size) {
+    Map<BookFacetIndex.Facet, String> filters = new EnumMap<>(BookFacetIndex.Facet.class);
+    if (category != null) {
+      filters.put(BookFacetIndex.Facet.CATEGORY, category);
+    }
+    if (language != null) {
+      filters.put(BookFacetIndex.Facet.LANGUAGE, language);
+    }
+    if (published != null) {
+      filters.put(BookFacetIndex.Facet.PUBLISHED, published.toString());
+    }
+    if (year != null) {
+      filters.put(BookFacetIndex.Facet.YEAR, year.toString());
+    }
+
+    BookFacetIndex.Result result = bookFacetIndex.browse(filters, page, size);
+    List<Book> books = result.ids().isEmpty()
+            ? new ArrayList<>()
+            : inIndexOrder(result.ids(), bookRepository.findAllById(result.ids()), Book::getId);
 
-    return bookRepository.findByPublicationDateBetween(startDate, endDate);
+    Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+    result.counts().forEach((facet, counts) -> facets.put(facet.getKey(), counts));
+    return new BookBrowseResponse(result.total(), page, size, books, facets);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<Book> getBooksByPublished(boolean published) {
     return bookRepository.findByPublished(published);
   }
 
   @Override
+  @Transactional(readOnly = true)
+  public List<Map<String, Object>> getBooksByPublished(boolean published, List<String> fields) {
+    return bookRepository.findFields(fields, (root, query, builder) -> builder.equal(root.get("published"), published));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
   public Book getBookByIsbn(String isbn) {
-    return bookRepository.findByIsbnIgnoreCase(isbn);
+    Long isbn13 = Isbn.toIsbn13(isbn);
+    if (isbn13 == null) {
+      // ISBN non valide enregistré tel quel : recherche exacte sur l'index unique de la colonne
+      return bookRepository.findByIsbn(isbn.trim());
+    }
+    if (isbnIndex.isReady()) {
+      long bookId = isbnIndex.findBookId(isbn13);
+      return bookId == IsbnIndex.NOT_FOUND ? null : bookRepository.findById(bookId).orElse(null);
+    }
+    return bookRepository.findByIsbn13(isbn13);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<Book> getBooksByTitleOrDescription(String title, String description) {
     return bookRepository.findByTitleContainingIgnoreCaseOrDescriptionContainingIgnoreCase(title, description);
   }
-}
\ No newline at end of file
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<Map<String, Object>> getBooksByTitleOrDescription(String title, String description, List<String> fields) {
+    return bookRepository.findFields(fields,
+            containsIgnoreCase("title", title).or(containsIgnoreCase("description", description)));
+  }
+
+  // Même sémantique que les requêtes dérivées ...ContainingIgnoreCase, jokers LIKE échappés
+  private static Specification<Book> containsIgnoreCase(String attribute, String value) {
+    String pattern = "%" + value.toLowerCase()
+            .replace("\\", "\\\\")
+            .replace("%", "\\%")
+            .replace("_", "\\_") + "%";
+    return (root, query, builder) -> builder.like(builder.lower(root.<String>get(attribute)), pattern, '\\');
+  }
+
+  private static Specification<Book> idIn(List<Long> ids) {
+    return (root, query, builder) -> root.get("id").in(ids);
+  }
+
+  private static Long idOf(Map<String, Object> row) {
+    return (Long) row.get("id");
+  }
+
+  // findAllById ne garantit pas l'ordre : on reprend celui de l'index
+  private static <T> List<T> inIndexOrder(List<Long> ids, List<T> found, Function<T, Long> idOf) {
+    Map<Long, T> byId = new HashMap<>();
+    for (T book : found) {
+      byId.put(idOf.apply(book), book);
+    }
+    List<T> books = new ArrayList<>(ids.size());
+    for (Long id : ids) {
+      T book = byId.get(id);
+      if (book != null) {
+        books.add(book);
+      }
+    }
+    return books;
+  }
+}
@@ -0,0 +1,145 @@
+package fr.ensitech.biblio2.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Catalogue complet déjà sérialisé en JSON (brut et gzip), servi tel quel par /api/books/all.
+ * Reconstruit en arrière-plan après les écritures : les écritures rapprochées ne déclenchent qu'une reconstruction.
+ */
+@Service
+public class CatalogSnapshotService {
+
+  private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+  public record Snapshot(byte[] json, byte[] gzip, int size, String eTag, long lastModified) {
+
+    public boolean isEmpty() {
+      return size == 0;
+    }
+
+    /**
+     * ETag de la version gzip : une représentation différente ne peut pas partager un ETag fort.
+     */
+    public String gzipETag() {
+      return eTag.substring(0, eTag.length() - 1) + "-gz\"";
+    }
+  }
+
+  private final IBookRepository bookRepository;
+  private final CatalogVersionService catalogVersionService;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final long debounceMillis;
+  private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "catalog-snapshot");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private volatile Snapshot current;
+
+  @Autowired
+  public CatalogSnapshotService(IBookRepository bookRepository,
+                                CatalogVersionService catalogVersionService,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${biblio.catalog.snapshot.debounce-ms:200}") long debounceMillis) {
+    this.bookRepository = bookRepository;
+    this.catalogVersionService = catalogVersionService;
+    this.objectMapper = objectMapper;
+    // Pas en readOnly : la reconstruction suit une écriture et ne doit pas lire un réplica en retard
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.debounceMillis = debounceMillis;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void init() {
+    scheduler.execute(this::rebuildQuietly);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onBookChanged(BookChangedEvent event) {
+    // Une seule reconstruction en attente : les écritures suivantes s'y greffent
+    if (rebuildScheduled.compareAndSet(false, true)) {
+      scheduler.schedule(this::rebuildQuietly, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Dernier instantané construit, ou construit immédiatement s'il n'y en a pas encore.
+   */
+  public Snapshot getSnapshot() {
+    Snapshot snapshot = current;
+    return snapshot != null ? snapshot : rebuild();
+  }
+
+  synchronized Snapshot rebuild() {
+    // Remis à zéro avant la lecture : une écriture pendant la construction en programme une autre
+    rebuildScheduled.set(false);
+    // Lus avant le chargement : en cas d'écriture concurrente, l'ETag est plus ancien que le contenu
+    String eTag = catalogVersionService.getCatalogETag();
+    long lastModified = catalogVersionService.getCatalogLastModified();
+
+    Snapshot snapshot = transactionTemplate.execute(status -> {
+      List<Book> books = bookRepository.findAllWithAuthors();
+      try {
+        byte[] json = objectMapper.writeValueAsBytes(books);
+        return new Snapshot(json, gzip(json), books.size(), eTag, lastModified);
+      } catch (JsonProcessingException e) {
+        throw new IllegalStateException("Sérialisation du catalogue impossible", e);
+      }
+    });
+    current = snapshot;
+    return snapshot;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  private void rebuildQuietly() {
+    try {
+      rebuild();
+    } catch (RuntimeException e) {
+      // L'ancien instantané reste servi jusqu'à la prochaine écriture
+      log.error("Reconstruction de l'instantané du catalogue impossible", e);
+    }
+  }
+
+  private static byte[] gzip(byte[] json) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,88 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions des livres et du catalogue gardées en mémoire, pour répondre aux requêtes
+ * conditionnelles (If-None-Match / If-Modified-Since) sans toucher à la base.
+ */
+@Service
+public class CatalogVersionService {
+
+  public record BookStamp(long id, long version, long lastModified) {
+
+    public String eTag() {
+      return "\"b" + id + "-" + version + "\"";
+    }
+  }
+
+  @Autowired
+  private IBookRepository bookRepository;
+
+  private final Map<Long, BookStamp> stamps = new ConcurrentHashMap<>();
+  private final AtomicLong catalogVersion = new AtomicLong();
+  // Change à chaque démarrage : un ETag du catalogue ne peut pas survivre à un redémarrage
+  private final long epoch = System.currentTimeMillis();
+  private volatile long catalogLastModified = epoch;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    long lastModified = 0;
+    for (Object[] row : bookRepository.findVersionStamps()) {
+      BookStamp stamp = new BookStamp((Long) row[0], (Long) row[1], toMillis((Date) row[2]));
+      stamps.put(stamp.id(), stamp);
+      lastModified = Math.max(lastModified, stamp.lastModified());
+    }
+    catalogLastModified = Math.max(lastModified, epoch);
+    catalogVersion.incrementAndGet();
+  }
+
+  @EventListener
+  public void onBookChanged(BookChangedEvent event) {
+    if (event.bookId() == null) {
+      return;
+    }
+    if (event.isDeletion()) {
+      stamps.remove(event.bookId());
+    } else {
+      record(event.book());
+    }
+    catalogLastModified = System.currentTimeMillis();
+    catalogVersion.incrementAndGet();
+  }
+
+  public BookStamp getStamp(long bookId) {
+    return stamps.get(bookId);
+  }
+
+  public BookStamp record(Book book) {
+    BookStamp stamp = new BookStamp(book.getId(), book.getVersion(), toMillis(book.getLastModified()));
+    stamps.put(stamp.id(), stamp);
+    return stamp;
+  }
+
+  public String getCatalogETag() {
+    return "\"c" + epoch + "-" + catalogVersion.get() + "\"";
+  }
+
+  public long getCatalogLastModified() {
+    return catalogLastModified;
+  }
+
+  private long toMillis(Date date) {
+    // Précision HTTP à la seconde, et lignes antérieures à la colonne last_modified
+    return date == null ? epoch : (date.getTime() / 1000) * 1000;
+  }
+}
@@ -0,0 +1,317 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.repository.IUserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Filtre de Bloom des emails inscrits : un email absent du filtre n'existe pas, inutile d'interroger la base.
+ * Un email présent peut être un faux positif (taux visé : biblio.user.email-filter.fpp), la base tranche.
+ * Chargé au démarrage, complété à chaque inscription, reconstruit périodiquement pour oublier
+ * les comptes supprimés et se redimensionner.
+ * Le filtre ne connaît que les inscriptions faites par cette instance : pendant grace-ms après chaque
+ * chargement, un email absent est tout de même cherché en base (lignes commitées pendant la lecture).
+ * Avec plusieurs instances, une inscription faite ailleurs reste inconnue jusqu'à la reconstruction
+ * suivante : y régler grace-ms au moins égal à rebuild-interval-ms, ce qui revient à toujours vérifier.
+ */
+@Component
+public class EmailBloomFilter {
+
+  private static final Logger log = LoggerFactory.getLogger(EmailBloomFilter.class);
+  private static final int MIN_EXPECTED = 1024;
+
+  private final IUserRepository userRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final double targetFpp;
+  private final long rebuildIntervalMillis;
+  private final long graceMillis;
+  private final LongSupplier clock;
+  private final AtomicLong skipped = new AtomicLong();
+  private final AtomicLong graceLookups = new AtomicLong();
+  private final AtomicLong falsePositives = new AtomicLong();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "email-filter");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  // null tant que le filtre n'est pas chargé : tout email est alors considéré présent
+  private volatile Bits current;
+  private volatile Bits building;
+  private volatile long graceUntil;
+
+  @Autowired
+  public EmailBloomFilter(IUserRepository userRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${biblio.user.email-filter.fpp:0.01}") double targetFpp,
+                          @Value("${biblio.user.email-filter.rebuild-interval-ms:3600000}") long rebuildIntervalMillis,
+                          @Value("${biblio.user.email-filter.grace-ms:300000}") long graceMillis,
+                          MeterRegistry meterRegistry) {
+    this(userRepository, transactionManager, targetFpp, rebuildIntervalMillis, graceMillis, meterRegistry,
+            System::currentTimeMillis);
+  }
+
+  EmailBloomFilter(IUserRepository userRepository, PlatformTransactionManager transactionManager, double targetFpp,
+                   long rebuildIntervalMillis, long graceMillis, MeterRegistry meterRegistry, LongSupplier clock) {
+    if (targetFpp <= 0 || targetFpp >= 1) {
+      throw new IllegalArgumentException("targetFpp must be between 0 and 1");
+    }
+    this.userRepository = userRepository;
+    // Pas en readOnly : un réplica en retard ferait oublier des inscriptions récentes
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.targetFpp = targetFpp;
+    this.rebuildIntervalMillis = rebuildIntervalMillis;
+    this.graceMillis = graceMillis;
+    this.clock = clock;
+
+    Gauge.builder("biblio.user.email-filter.bytes", this, EmailBloomFilter::getMemoryBytes)
+            .description("Mémoire occupée par le filtre des emails")
+            .register(meterRegistry);
+    Gauge.builder("biblio.user.email-filter.expected-fpp", this, EmailBloomFilter::getExpectedFalsePositiveRate)
+            .description("Taux de faux positifs attendu d'après le remplissage du filtre")
+            .register(meterRegistry);
+    Gauge.builder("biblio.user.email-filter.observed-fpp", this, EmailBloomFilter::getObservedFalsePositiveRate)
+            .description("Part des emails inconnus que le filtre n'a pas écartés")
+            .register(meterRegistry);
+    FunctionCounter.builder("biblio.user.email-filter.lookups", skipped, AtomicLong::get)
+            .description("Recherches d'email par le filtre")
+            .tag("outcome", "skipped")
+            .register(meterRegistry);
+    FunctionCounter.builder("biblio.user.email-filter.lookups", falsePositives, AtomicLong::get)
+            .description("Recherches d'email par le filtre")
+            .tag("outcome", "false-positive")
+            .register(meterRegistry);
+    FunctionCounter.builder("biblio.user.email-filter.lookups", graceLookups, AtomicLong::get)
+            .description("Recherches d'email par le filtre")
+            .tag("outcome", "grace")
+            .register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void init() {
+    rebuild();
+    if (rebuildIntervalMillis > 0) {
+      scheduler.scheduleWithFixedDelay(this::rebuildQuietly, rebuildIntervalMillis, rebuildIntervalMillis,
+              TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Faux : l'email n'est certainement pas inscrit.
+   */
+  public boolean mightContain(String email) {
+    Bits bits = current;
+    if (bits == null || email == null) {
+      return true;
+    }
+    if (bits.contains(normalize(email))) {
+      return true;
+    }
+    if (clock.getAsLong() < graceUntil) {
+      graceLookups.incrementAndGet();
+      return true;
+    }
+    skipped.incrementAndGet();
+    return false;
+  }
+
+  /**
+   * Ajout à l'insertion (lectures de la même transaction) puis de nouveau au commit,
+   * pour ne pas manquer une reconstruction dont la lecture n'aurait pas encore vu la ligne.
+   */
+  public void add(String email) {
+    put(email);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          put(email);
+        }
+      });
+    }
+  }
+
+  /**
+   * L'email a passé le filtre mais n'est pas en base (faux positif ou compte supprimé depuis la reconstruction).
+   */
+  public void recordFalsePositive() {
+    falsePositives.incrementAndGet();
+  }
+
+  /**
+   * Recharge tous les emails dans un nouveau filtre dimensionné sur le nombre d'utilisateurs.
+   * Les inscriptions pendant la lecture sont écrites dans l'ancien et le nouveau filtre.
+   */
+  public synchronized void rebuild() {
+    Bits next = new Bits(Math.max(MIN_EXPECTED, userRepository.count() * 2), targetFpp);
+    // Publié avant la lecture des emails : une inscription commitée après cette lecture l'écrira ici
+    building = next;
+    try {
+      List<String> emails = transactionTemplate.execute(status -> userRepository.findAllEmails());
+      for (String email : emails) {
+        next.put(normalize(email));
+      }
+      graceUntil = clock.getAsLong() + graceMillis;
+      current = next;
+    } finally {
+      building = null;
+    }
+  }
+
+  public long getMemoryBytes() {
+    Bits bits = current;
+    return bits == null ? 0 : bits.words.length() * 8L;
+  }
+
+  /**
+   * (bits à 1 / bits)^k : probabilité qu'un email inconnu tombe sur k bits déjà à 1.
+   */
+  public double getExpectedFalsePositiveRate() {
+    Bits bits = current;
+    return bits == null ? 1 : Math.pow((double) bits.setBits.get() / bits.size, bits.hashes);
+  }
+
+  public double getObservedFalsePositiveRate() {
+    long positives = falsePositives.get();
+    long total = positives + skipped.get();
+    return total == 0 ? 0 : (double) positives / total;
+  }
+
+  private void put(String email) {
+    if (email == null) {
+      return;
+    }
+    String key = normalize(email);
+    // building avant current : un filtre en cours de construction ne peut pas être manqué
+    Bits next = building;
+    Bits bits = current;
+    if (bits != null) {
+      bits.put(key);
+    }
+    if (next != null && next != bits) {
+      next.put(key);
+    }
+  }
+
+  private void rebuildQuietly() {
+    try {
+      rebuild();
+    } catch (RuntimeException e) {
+      // L'ancien filtre reste en place jusqu'à la prochaine tentative
+      log.error("Reconstruction du filtre des emails impossible", e);
+    }
+  }
+
+  /**
+   * Au moins aussi large que l'égalité de la base (collation insensible à la casse et aux accents) :
+   * deux emails que la base confond doivent tomber sur la même clé.
+   */
+  static String normalize(String email) {
+    String decomposed = Normalizer.normalize(email.trim(), Normalizer.Form.NFD);
+    StringBuilder out = new StringBuilder(decomposed.length());
+    for (int i = 0; i < decomposed.length(); i++) {
+      char c = decomposed.charAt(i);
+      if (Character.getType(c) != Character.NON_SPACING_MARK) {
+        out.append(c);
+      }
+    }
+    return out.toString().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Tableau de bits partagé sans verrou : un bit ne repasse jamais à 0, chaque mot est complété par CAS.
+   */
+  private static final class Bits {
+
+    private final AtomicLongArray words;
+    private final long size;
+    private final int hashes;
+    private final AtomicLong setBits = new AtomicLong();
+
+    Bits(long expected, double fpp) {
+      long bitCount = (long) Math.ceil(-expected * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+      this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (bitCount + 63) >>> 6));
+      this.size = words.length() * 64L;
+      this.hashes = Math.max(1, (int) Math.round((double) size / expected * Math.log(2)));
+    }
+
+    void put(String key) {
+      long h1 = hash(key);
+      long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+      for (int i = 0; i < hashes; i++) {
+        long bit = ((h1 + i * h2) & Long.MAX_VALUE) % size;
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long word;
+        do {
+          word = words.get(index);
+          if ((word & mask) != 0) {
+            break;
+          }
+        } while (!words.compareAndSet(index, word, word | mask));
+        if ((word & mask) == 0) {
+          setBits.incrementAndGet();
+        }
+      }
+    }
+
+    boolean contains(String key) {
+      long h1 = hash(key);
+      long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+      for (int i = 0; i < hashes; i++) {
+        long bit = ((h1 + i * h2) & Long.MAX_VALUE) % size;
+        if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // FNV-1a 64 bits puis mélange final de murmur3
+    private static long hash(String key) {
+      long h = 0xCBF29CE484222325L;
+      for (int i = 0; i < key.length(); i++) {
+        h ^= key.charAt(i);
+        h *= 0x100000001B3L;
+      }
+      return mix(h);
+    }
+
+    private static long mix(long h) {
+      h ^= h >>> 33;
+      h *= 0xFF51AFD7ED558CCDL;
+      h ^= h >>> 33;
+      h *= 0xC4CEB9FE1A85EC53L;
+      h ^= h >>> 33;
+      return h;
+    }
+  }
+}
@@ -1,9 +1,12 @@
 package fr.ensitech.biblio2.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class EmailService {
@@ -11,6 +14,13 @@ public class EmailService {
   @Autowired
   private JavaMailSender mailSender;
 
+  @Autowired
+  private MailDigestCoalescer mailDigestCoalescer;
+
+  // false : envoi synchrone dans le thread appelant (tests)
+  @Value("${biblio.mail.async:true}")
+  private boolean async;
+
   public void sendActivationEmail(String toEmail, long userId) {
     SimpleMailMessage message = new SimpleMailMessage();
     message.setFrom("dev.kentin@gmail.com");
@@ -23,7 +33,7 @@ public class EmailService {
             "Cordialement,\n" +
             "L'équipe Biblio");
 
-    mailSender.send(message);
+    send(MailDigestCoalescer.MailType.ACTIVATION, message, null, "http://localhost:8080/api/users/activate/" + userId);
   }
 
   public void sendAccountActivatedEmail(String toEmail, String firstName, String lastName) {
@@ -39,7 +49,7 @@ public class EmailService {
             "Cordialement,\n" +
             "L'équipe Biblio");
 
-    mailSender.send(message);
+    send(MailDigestCoalescer.MailType.ACCOUNT_ACTIVATED, message, firstName + " " + lastName, null);
   }
 
   public void sendUnsubscribeConfirmationEmail(String toEmail, String firstName, String lastName) {
@@ -56,7 +66,7 @@ public class EmailService {
             "Cordialement,\n" +
             "L'équipe Biblio");
 
-    mailSender.send(message);
+    send(MailDigestCoalescer.MailType.UNSUBSCRIBE, message, firstName + " " + lastName, null);
   }
 
   public void sendPasswordChangedEmail(String toEmail, String firstName, String lastName) {
@@ -71,7 +81,7 @@ public class EmailService {
             "Cordialement,\n" +
             "L'équipe Biblio");
 
-    mailSender.send(message);
+    send(MailDigestCoalescer.MailType.PASSWORD_CHANGED, message, firstName + " " + lastName, null);
   }
 
   public void sendReservationConfirmationEmail(String toEmail, String firstName, String lastName, String bookTitle) {
@@ -88,6 +98,28 @@ public class EmailService {
             "Cordialement,\n" +
             "L'équipe Biblio");
 
-    mailSender.send(message);
+    send(MailDigestCoalescer.MailType.RESERVATION, message, firstName + " " + lastName, bookTitle);
+  }
+
+  /**
+   * L'appelant n'attend pas le serveur SMTP. Dans une transaction, le mail part après le commit :
+   * une réservation annulée n'envoie pas de confirmation.
+   * name et detail servent si le mail est regroupé avec d'autres dans un récapitulatif.
+   */
+  private void send(MailDigestCoalescer.MailType type, SimpleMailMessage message, String name, String detail) {
+    if (!async) {
+      mailSender.send(message);
+      return;
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          mailDigestCoalescer.submit(type, message, name, detail);
+        }
+      });
+    } else {
+      mailDigestCoalescer.submit(type, message, name, detail);
+    }
   }
-}
\ No newline at end of file
+}
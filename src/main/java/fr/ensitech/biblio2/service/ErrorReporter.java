@@ -0,0 +1,206 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.utils.MpscRingBuffer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Journal des erreurs inattendues, à la place de e.printStackTrace() : requêtes des contrôleurs et
+ * tâches de fond répétitives (envoi SMTP). Les tâches ponctuelles (chargement du catalogue,
+ * reconstruction du filtre des emails) écrivent directement dans leur logger SLF4J.
+ * Le thread appelant ne fait que compter et déposer l'erreur dans une file circulaire ;
+ * un thread dédié écrit les traces. Par fenêtre et par type d'erreur (source + classe), seules les
+ * max-per-window premières sont écrites en entier, puis une sur sample-rate ; les autres ne sont que
+ * comptées et résumées en une ligne à la fin de la fenêtre.
+ */
+@Component
+public class ErrorReporter {
+
+  private static final Logger log = LoggerFactory.getLogger(ErrorReporter.class);
+  private static final String OVERFLOW_SOURCE = "autres";
+  private static final long DRAIN_INTERVAL_MILLIS = 100;
+
+  private record Failure(ErrorStats stats, Throwable error, long occurrence, boolean sampled) {
+  }
+
+  private static final class ErrorStats {
+    private final String source;
+    private final String type;
+    // Occurrences dans la fenêtre courante, remis à 0 par le résumé
+    private final AtomicLong occurrences = new AtomicLong();
+
+    private ErrorStats(String source, String type) {
+      this.source = source;
+      this.type = type;
+    }
+  }
+
+  private final MpscRingBuffer<Failure> buffer;
+  private final ConcurrentHashMap<String, ErrorStats> stats = new ConcurrentHashMap<>();
+  private final int maxPerWindow;
+  private final int sampleRate;
+  private final long windowMillis;
+  private final int maxKeys;
+  private final AtomicLong logged = new AtomicLong();
+  private final AtomicLong sampled = new AtomicLong();
+  private final AtomicLong aggregated = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "error-reporter");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @Autowired
+  public ErrorReporter(@Value("${biblio.errors.buffer-size:1024}") int bufferSize,
+                       @Value("${biblio.errors.max-per-window:5}") int maxPerWindow,
+                       @Value("${biblio.errors.sample-rate:100}") int sampleRate,
+                       @Value("${biblio.errors.window-ms:10000}") long windowMillis,
+                       @Value("${biblio.errors.max-keys:1000}") int maxKeys,
+                       MeterRegistry meterRegistry) {
+    if (maxPerWindow < 0 || sampleRate < 0 || windowMillis <= 0 || maxKeys <= 0) {
+      throw new IllegalArgumentException("Invalid error reporter settings");
+    }
+    this.buffer = new MpscRingBuffer<>(bufferSize);
+    this.maxPerWindow = maxPerWindow;
+    this.sampleRate = sampleRate;
+    this.windowMillis = windowMillis;
+    this.maxKeys = maxKeys;
+
+    register(meterRegistry, "logged", logged);
+    register(meterRegistry, "sampled", sampled);
+    register(meterRegistry, "aggregated", aggregated);
+    register(meterRegistry, "dropped", dropped);
+    Gauge.builder("biblio.errors.buffer.size", buffer, MpscRingBuffer::size)
+            .description("Erreurs en attente d'écriture")
+            .register(meterRegistry);
+  }
+
+  @PostConstruct
+  public void start() {
+    scheduler.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    scheduler.scheduleAtFixedRate(this::endWindow, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Écrit ce qui reste en file et les derniers résumés avant l'arrêt.
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    scheduler.shutdown();
+    scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    drain();
+    endWindow();
+  }
+
+  /**
+   * Signale une erreur inattendue ; source identifie l'endpoint (BookController.createBook...).
+   * Ne bloque jamais : file pleine, la trace est perdue mais l'erreur reste comptée dans le résumé.
+   */
+  public void report(String source, Throwable error) {
+    ErrorStats errorStats = statsFor(source, error);
+    long occurrence = errorStats.occurrences.incrementAndGet();
+    boolean full = occurrence <= maxPerWindow;
+    boolean sample = !full && sampleRate > 0 && (occurrence - maxPerWindow) % sampleRate == 0;
+    if (!full && !sample) {
+      aggregated.incrementAndGet();
+    } else if (!buffer.offer(new Failure(errorStats, error, occurrence, sample))) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  /**
+   * Écrit les traces en file. Appelé par le seul thread error-reporter.
+   */
+  void drain() {
+    Failure failure;
+    while ((failure = buffer.poll()) != null) {
+      (failure.sampled() ? sampled : logged).incrementAndGet();
+      log.atError()
+              .setMessage("Erreur inattendue dans {} : {} (occurrence {} de la fenêtre{})")
+              .addArgument(failure.stats().source)
+              .addArgument(failure.error())
+              .addArgument(failure.occurrence())
+              .addArgument(failure.sampled() ? ", échantillon" : "")
+              .addKeyValue("source", failure.stats().source)
+              .addKeyValue("exception", failure.stats().type)
+              .addKeyValue("occurrence", failure.occurrence())
+              .addKeyValue("sampled", failure.sampled())
+              .setCause(failure.error())
+              .log();
+    }
+  }
+
+  /**
+   * Résume chaque type d'erreur qui a dépassé max-per-window, puis ouvre une nouvelle fenêtre.
+   * Les types restés sans erreur pendant toute la fenêtre sont oubliés.
+   */
+  void endWindow() {
+    stats.forEach((key, errorStats) -> {
+      long count = errorStats.occurrences.getAndSet(0);
+      if (count == 0) {
+        stats.remove(key, errorStats);
+      } else if (count > maxPerWindow) {
+        log.atWarn()
+                .setMessage("{} : {} x {} en {} ms, {} tracées au plus")
+                .addArgument(errorStats.source)
+                .addArgument(errorStats.type)
+                .addArgument(count)
+                .addArgument(windowMillis)
+                .addArgument(tracesFor(count))
+                .addKeyValue("source", errorStats.source)
+                .addKeyValue("exception", errorStats.type)
+                .addKeyValue("occurrences", count)
+                .addKeyValue("window_ms", windowMillis)
+                .log();
+      }
+    });
+  }
+
+  int trackedTypes() {
+    return stats.size();
+  }
+
+  private long tracesFor(long count) {
+    long traces = Math.min(count, maxPerWindow);
+    if (sampleRate > 0 && count > maxPerWindow) {
+      traces += (count - maxPerWindow) / sampleRate;
+    }
+    return traces;
+  }
+
+  private ErrorStats statsFor(String source, Throwable error) {
+    String type = error.getClass().getName();
+    String key = source + '|' + type;
+    ErrorStats errorStats = stats.get(key);
+    if (errorStats != null) {
+      return errorStats;
+    }
+    if (stats.size() >= maxKeys) {
+      // Trop de types distincts : regroupés sous une seule clé pour borner la mémoire
+      return stats.computeIfAbsent(OVERFLOW_SOURCE, k -> new ErrorStats(OVERFLOW_SOURCE, "*"));
+    }
+    return stats.computeIfAbsent(key, k -> new ErrorStats(source, type));
+  }
+
+  private static void register(MeterRegistry meterRegistry, String outcome, AtomicLong counter) {
+    FunctionCounter.builder("biblio.errors.reported", counter, AtomicLong::get)
+            .description("Erreurs inattendues signalées par les contrôleurs")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+  }
+}
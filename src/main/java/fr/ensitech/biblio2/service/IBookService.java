@@ -1,9 +1,13 @@
 package fr.ensitech.biblio2.service;
 
+import fr.ensitech.biblio2.dto.BookBatchResponse;
+import fr.ensitech.biblio2.dto.BookBrowseResponse;
+import fr.ensitech.biblio2.dto.BookSuggestion;
 import fr.ensitech.biblio2.entity.Author;
 import fr.ensitech.biblio2.entity.Book;
 
 import java.util.List;
+import java.util.Map;
 
 public interface IBookService {
 
@@ -11,11 +15,21 @@ public interface IBookService {
   void deleteBook(long id) throws Exception;
   List<Book> getBooks() throws Exception;
   Book getBook(long id) throws Exception;
+  BookBatchResponse getBooksByIds(List<Long> ids);
   Book getBookByTitle(String title) throws Exception;
   List<Book> getBooksByTitleContaining(String title) throws Exception;
+  List<Map<String, Object>> getBooksByTitleContaining(String title, List<String> fields);
+  List<Book> getBooksByTitleFuzzy(String title, int maxEdits) throws Exception;
+  List<Map<String, Object>> getBooksByTitleFuzzy(String title, int maxEdits, List<String> fields);
+  List<BookSuggestion> suggestTitles(String prefix, int limit);
   List<Book> getBooksByAuthor(Author author) throws Exception;
   List<Book> getBooksBetweenYears(int startYear, int endYear) throws Exception;
+  List<Map<String, Object>> getBooksBetweenYears(int startYear, int endYear, List<String> fields);
+  Map<Integer, Integer> getBookCountsByYear();
+  BookBrowseResponse browseBooks(String category, String language, Boolean published, Integer year, int page, int size);
   List<Book> getBooksByPublished(boolean published);
+  List<Map<String, Object>> getBooksByPublished(boolean published, List<String> fields);
   Book getBookByIsbn(String isbn);
   List<Book> getBooksByTitleOrDescription(String title, String description);
+  List<Map<String, Object>> getBooksByTitleOrDescription(String title, String description, List<String> fields);
 }
\ No newline at end of file
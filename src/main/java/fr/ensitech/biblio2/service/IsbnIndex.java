@@ -0,0 +1,192 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import fr.ensitech.biblio2.utils.Isbn;
+import fr.ensitech.biblio2.utils.LongLongHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ISBN-13 numérique -> id du livre, en mémoire et sans boxing, pour les scans de code-barres au guichet.
+ */
+@Component
+public class IsbnIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(IsbnIndex.class);
+
+  public static final long NOT_FOUND = -1L;
+
+  @Autowired
+  private IBookRepository bookRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final LongLongHashMap bookIdByIsbn = new LongLongHashMap(1024);
+  // Sens inverse, pour retirer l'ancien ISBN quand un livre change
+  private final LongLongHashMap isbnByBookId = new LongLongHashMap(1024);
+  private volatile boolean ready;
+
+  /**
+   * Charge l'index et renseigne la colonne isbn13 des livres enregistrés avant son ajout.
+   * Un même livre saisi une fois en ISBN-10 et une fois en ISBN-13 violerait la contrainte unique :
+   * le doublon est signalé et sa colonne laissée vide, sans bloquer le démarrage.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    List<Object[]> rows = bookRepository.findIsbns();
+    List<long[]> backfill = new ArrayList<>();
+    lock.writeLock().lock();
+    try {
+      // Les valeurs déjà en base d'abord : ce sont elles qui occupent la contrainte unique
+      for (Object[] row : rows) {
+        if (row[2] != null) {
+          index((Long) row[0], (Long) row[2]);
+        }
+      }
+      for (Object[] row : rows) {
+        Long isbn13 = row[2] == null ? Isbn.toIsbn13((String) row[1]) : null;
+        if (isbn13 == null) {
+          continue;
+        }
+        long owner = bookIdByIsbn.get(isbn13, NOT_FOUND);
+        if (owner != NOT_FOUND) {
+          log.atWarn()
+                  .setMessage("ISBN {} du livre {} déjà porté par le livre {} : isbn13 laissé vide, doublon à fusionner")
+                  .addArgument(row[1])
+                  .addArgument(row[0])
+                  .addArgument(owner)
+                  .addKeyValue("isbn13", isbn13)
+                  .addKeyValue("book_id", row[0])
+                  .addKeyValue("duplicate_of", owner)
+                  .log();
+          continue;
+        }
+        index((Long) row[0], isbn13);
+        backfill.add(new long[]{(Long) row[0], isbn13});
+      }
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    if (!backfill.isEmpty()) {
+      try {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+          for (long[] entry : backfill) {
+            bookRepository.updateIsbn13(entry[0], entry[1]);
+          }
+        });
+      } catch (DataAccessException e) {
+        // Livre ajouté entre la lecture et la mise à jour : l'index en mémoire reste utilisable,
+        // la colonne sera renseignée au prochain démarrage
+        log.error("Renseignement de la colonne isbn13 abandonné", e);
+      }
+    }
+  }
+
+  /**
+   * Appliqué tout de suite, et relu depuis la base si la transaction qui écrit est annulée.
+   */
+  @EventListener
+  public void onBookChanged(BookChangedEvent event) {
+    Long bookId = event.bookId();
+    if (bookId == null) {
+      return;
+    }
+    if (event.isDeletion()) {
+      remove(bookId);
+    } else {
+      put(bookId, event.book().getIsbn());
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status == STATUS_ROLLED_BACK) {
+            refresh(bookId);
+          }
+        }
+      });
+    }
+  }
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Id du livre portant cet ISBN-13, ou NOT_FOUND.
+   */
+  public long findBookId(long isbn13) {
+    lock.readLock().lock();
+    try {
+      return bookIdByIsbn.get(isbn13, NOT_FOUND);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  void refresh(long bookId) {
+    Optional<Book> book = bookRepository.findById(bookId);
+    if (book.isPresent()) {
+      put(bookId, book.get().getIsbn());
+    } else {
+      remove(bookId);
+    }
+  }
+
+  void put(long bookId, String isbn) {
+    Long isbn13 = Isbn.toIsbn13(isbn);
+    lock.writeLock().lock();
+    try {
+      unindex(bookId);
+      if (isbn13 != null) {
+        index(bookId, isbn13);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  void remove(long bookId) {
+    lock.writeLock().lock();
+    try {
+      unindex(bookId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Appelé sous le verrou d'écriture
+  private void index(long bookId, long isbn13) {
+    bookIdByIsbn.put(isbn13, bookId);
+    isbnByBookId.put(bookId, isbn13);
+  }
+
+  private void unindex(long bookId) {
+    long previous = isbnByBookId.get(bookId, NOT_FOUND);
+    if (previous != NOT_FOUND) {
+      isbnByBookId.remove(bookId);
+      bookIdByIsbn.remove(previous);
+    }
+  }
+}
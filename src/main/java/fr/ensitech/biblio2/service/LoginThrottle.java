@@ -0,0 +1,274 @@
+package fr.ensitech.biblio2.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Limite les tentatives de connexion par email et par IP sur une fenêtre glissante,
+ * pour refuser une rafale (credential stuffing) avant toute lecture en base et tout calcul BCrypt.
+ * Chaque clé tient dans un AtomicLong mis à jour par CAS, sans verrou ; les clés sont réparties
+ * sur des bandes de taille bornée. Une bande pleine est purgée de ses clés inactives au plus une fois
+ * par fenêtre ; si elle reste pleine, la nouvelle clé remplace la moins chargée d'un échantillon,
+ * si bien qu'aucune tentative n'échappe au comptage.
+ * L'IP est celle de {@code getRemoteAddr()} : derrière un proxy, elle n'est le vrai client que si
+ * {@code server.forward-headers-strategy} est configuré (voir application.properties).
+ */
+@Component
+public class LoginThrottle {
+
+  private final SlidingWindowLimiter emailLimiter;
+  private final SlidingWindowLimiter ipLimiter;
+  private final boolean enabled;
+  private final long windowMillis;
+  private final LongSupplier clock;
+  private final Counter allowedCounter;
+  private final Counter rejectedEmailCounter;
+  private final Counter rejectedIpCounter;
+
+  @Autowired
+  public LoginThrottle(@Value("${biblio.login.throttle.enabled:true}") boolean enabled,
+                       @Value("${biblio.login.throttle.window-ms:60000}") long windowMillis,
+                       @Value("${biblio.login.throttle.max-per-email:10}") int maxPerEmail,
+                       @Value("${biblio.login.throttle.max-per-ip:50}") int maxPerIp,
+                       @Value("${biblio.login.throttle.max-keys:100000}") int maxKeys,
+                       MeterRegistry meterRegistry) {
+    this(enabled, windowMillis, maxPerEmail, maxPerIp, maxKeys, meterRegistry, System::currentTimeMillis);
+  }
+
+  LoginThrottle(boolean enabled, long windowMillis, int maxPerEmail, int maxPerIp, int maxKeys,
+                MeterRegistry meterRegistry, LongSupplier clock) {
+    if (windowMillis <= 0 || maxPerEmail <= 0 || maxPerIp <= 0 || maxKeys <= 0) {
+      throw new IllegalArgumentException("Login throttle settings must be greater than 0");
+    }
+    this.enabled = enabled;
+    this.windowMillis = windowMillis;
+    this.clock = clock;
+    this.emailLimiter = new SlidingWindowLimiter(windowMillis, maxPerEmail, maxKeys);
+    this.ipLimiter = new SlidingWindowLimiter(windowMillis, maxPerIp, maxKeys);
+    this.allowedCounter = requests(meterRegistry, "allowed");
+    this.rejectedEmailCounter = requests(meterRegistry, "rejected-email");
+    this.rejectedIpCounter = requests(meterRegistry, "rejected-ip");
+    register(meterRegistry, "email", emailLimiter);
+    register(meterRegistry, "ip", ipLimiter);
+  }
+
+  /**
+   * Compte une tentative ; faux si l'IP ou l'email a déjà atteint sa limite sur la fenêtre.
+   * Une tentative refusée n'est pas comptée : le blocage cesse dès que le rythme redescend.
+   */
+  public boolean tryAcquire(String email, String clientIp) {
+    if (!enabled) {
+      return true;
+    }
+    long now = clock.getAsLong();
+    if (clientIp != null && !ipLimiter.tryAcquire(clientIp, now)) {
+      rejectedIpCounter.increment();
+      return false;
+    }
+    if (email != null && !emailLimiter.tryAcquire(email.trim().toLowerCase(Locale.ROOT), now)) {
+      rejectedEmailCounter.increment();
+      return false;
+    }
+    allowedCounter.increment();
+    return true;
+  }
+
+  /**
+   * Délai à annoncer dans Retry-After.
+   */
+  public long getRetryAfterSeconds() {
+    return Math.max(1, (windowMillis + 999) / 1000);
+  }
+
+  double estimateForEmail(String email) {
+    return emailLimiter.estimate(email.trim().toLowerCase(Locale.ROOT), clock.getAsLong());
+  }
+
+  int trackedIps() {
+    return ipLimiter.size();
+  }
+
+  private static Counter requests(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("biblio.login.throttle.requests")
+            .description("Tentatives de connexion passées au limiteur")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+  }
+
+  private static void register(MeterRegistry meterRegistry, String scope, SlidingWindowLimiter limiter) {
+    Gauge.builder("biblio.login.throttle.keys", limiter, SlidingWindowLimiter::size)
+            .description("Clés suivies par le limiteur de connexion")
+            .tag("scope", scope)
+            .register(meterRegistry);
+    FunctionCounter.builder("biblio.login.throttle.evictions", limiter, l -> l.evictions.get())
+            .description("Clés inactives purgées")
+            .tag("scope", scope)
+            .register(meterRegistry);
+    FunctionCounter.builder("biblio.login.throttle.displaced", limiter, l -> l.displaced.get())
+            .description("Clés actives remplacées par une nouvelle clé faute de place")
+            .tag("scope", scope)
+            .register(meterRegistry);
+    Gauge.builder("biblio.login.throttle.limit", limiter, l -> l.limit)
+            .description("Tentatives autorisées par fenêtre")
+            .tag("scope", scope)
+            .register(meterRegistry);
+  }
+
+  /**
+   * Compteur à fenêtre glissante approchée : la fenêtre précédente est pondérée par la part
+   * qui recouvre encore la fenêtre glissante, plus la fenêtre courante.
+   * État d'une clé sur 64 bits : numéro de fenêtre (32) | compte précédent (16) | compte courant (16).
+   */
+  private static final class SlidingWindowLimiter {
+
+    private static final int STRIPES = 16;
+    private static final long MAX_COUNT = 0xFFFF;
+    private static final int DISPLACE_SAMPLE = 8;
+
+    private final long windowMillis;
+    private final int limit;
+    private final int maxKeysPerStripe;
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong displaced = new AtomicLong();
+    private final AtomicLongArray purgedEpochs = new AtomicLongArray(STRIPES);
+
+    @SuppressWarnings("unchecked")
+    SlidingWindowLimiter(long windowMillis, int limit, int maxKeys) {
+      this.windowMillis = windowMillis;
+      this.limit = (int) Math.min(limit, MAX_COUNT);
+      this.maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+      this.stripes = new ConcurrentHashMap[STRIPES];
+      for (int i = 0; i < STRIPES; i++) {
+        stripes[i] = new ConcurrentHashMap<>();
+        purgedEpochs.set(i, -1);
+      }
+    }
+
+    boolean tryAcquire(String key, long now) {
+      AtomicLong window = windowFor(key, now);
+      long epoch = now / windowMillis;
+      long elapsed = now % windowMillis;
+      while (true) {
+        long state = window.get();
+        long current = roll(state, epoch);
+        long previousCount = (current >>> 16) & MAX_COUNT;
+        long currentCount = current & MAX_COUNT;
+        if (estimate(previousCount, currentCount, elapsed) >= limit) {
+          return false;
+        }
+        long next = (current & ~MAX_COUNT) | Math.min(currentCount + 1, MAX_COUNT);
+        if (window.compareAndSet(state, next)) {
+          return true;
+        }
+      }
+    }
+
+    double estimate(String key, long now) {
+      AtomicLong window = stripeFor(key).get(key);
+      if (window == null) {
+        return 0;
+      }
+      long current = roll(window.get(), now / windowMillis);
+      return estimate((current >>> 16) & MAX_COUNT, current & MAX_COUNT, now % windowMillis);
+    }
+
+    int size() {
+      int size = 0;
+      for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+        size += stripe.size();
+      }
+      return size;
+    }
+
+    private double estimate(long previousCount, long currentCount, long elapsed) {
+      return previousCount * (double) (windowMillis - elapsed) / windowMillis + currentCount;
+    }
+
+    // Ramène l'état sur la fenêtre epoch : le compte courant devient le précédent, ou tout expire
+    private static long roll(long state, long epoch) {
+      int stateEpoch = (int) (state >>> 32);
+      if (stateEpoch == (int) epoch) {
+        return state;
+      }
+      long previous = stateEpoch == (int) (epoch - 1) ? state & MAX_COUNT : 0;
+      return (epoch << 32) | (previous << 16);
+    }
+
+    private AtomicLong windowFor(String key, long now) {
+      int index = stripeIndex(key);
+      ConcurrentHashMap<String, AtomicLong> stripe = stripes[index];
+      AtomicLong window = stripe.get(key);
+      if (window != null) {
+        return window;
+      }
+      long epoch = now / windowMillis;
+      if (stripe.size() >= maxKeysPerStripe) {
+        // Une clé ne devient inactive qu'au changement de fenêtre : un seul parcours complet par fenêtre
+        long purged = purgedEpochs.get(index);
+        if (purged != epoch && purgedEpochs.compareAndSet(index, purged, epoch)) {
+          evictIdle(stripe, epoch);
+        }
+        if (stripe.size() >= maxKeysPerStripe) {
+          displaceLightest(stripe, epoch, now % windowMillis);
+        }
+      }
+      return stripe.computeIfAbsent(key, k -> new AtomicLong(epoch << 32));
+    }
+
+    // Bande pleine de clés actives : on sacrifie la moins chargée d'un échantillon, celle dont
+    // la perte fait le moins d'écart ; une clé attaquée, très chargée, reste suivie
+    private void displaceLightest(ConcurrentHashMap<String, AtomicLong> stripe, long epoch, long elapsed) {
+      Map.Entry<String, AtomicLong> lightest = null;
+      double lightestEstimate = Double.MAX_VALUE;
+      int sampled = 0;
+      for (Map.Entry<String, AtomicLong> entry : stripe.entrySet()) {
+        long current = roll(entry.getValue().get(), epoch);
+        double estimate = estimate((current >>> 16) & MAX_COUNT, current & MAX_COUNT, elapsed);
+        if (estimate < lightestEstimate) {
+          lightest = entry;
+          lightestEstimate = estimate;
+        }
+        if (++sampled == DISPLACE_SAMPLE) {
+          break;
+        }
+      }
+      if (lightest != null && stripe.remove(lightest.getKey(), lightest.getValue())) {
+        displaced.incrementAndGet();
+      }
+    }
+
+    // Une clé sans tentative sur la fenêtre courante ni la précédente ne compte plus pour rien
+    private void evictIdle(ConcurrentHashMap<String, AtomicLong> stripe, long epoch) {
+      stripe.entrySet().removeIf(entry -> {
+        int stateEpoch = (int) (entry.getValue().get() >>> 32);
+        boolean idle = stateEpoch != (int) epoch && stateEpoch != (int) (epoch - 1);
+        if (idle) {
+          evictions.incrementAndGet();
+        }
+        return idle;
+      });
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> stripeFor(String key) {
+      return stripes[stripeIndex(key)];
+    }
+
+    private static int stripeIndex(String key) {
+      int hash = key.hashCode();
+      return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+  }
+}
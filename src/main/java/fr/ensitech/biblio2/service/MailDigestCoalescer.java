@@ -0,0 +1,173 @@
+package fr.ensitech.biblio2.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regroupe les notifications d'un même destinataire pendant une courte fenêtre et n'envoie qu'un mail.
+ * La fenêtre dépend du type de mail (biblio.mail.digest.window.&lt;type&gt;) ; 0 envoie tout de suite.
+ * Un mail seul part tel quel, plusieurs mails deviennent un récapitulatif où les réservations forment une liste.
+ */
+@Component
+public class MailDigestCoalescer {
+
+  public enum MailType {
+    ACTIVATION("activation", Duration.ZERO),
+    ACCOUNT_ACTIVATED("account-activated", Duration.ofSeconds(10)),
+    PASSWORD_CHANGED("password-changed", Duration.ofSeconds(10)),
+    UNSUBSCRIBE("unsubscribe", Duration.ZERO),
+    RESERVATION("reservation", Duration.ofSeconds(60));
+
+    private final String key;
+    private final Duration defaultWindow;
+
+    MailType(String key, Duration defaultWindow) {
+      this.key = key;
+      this.defaultWindow = defaultWindow;
+    }
+
+    public String getKey() {
+      return key;
+    }
+  }
+
+  private record Notification(MailType type, SimpleMailMessage message, String detail) {
+  }
+
+  private static final class Digest {
+    private final String name;
+    private final List<Notification> notifications = new ArrayList<>();
+    private long deadlineNanos = Long.MAX_VALUE;
+
+    private Digest(String name) {
+      this.name = name;
+    }
+  }
+
+  private final SmtpMailDispatcher mailDispatcher;
+  private final Map<MailType, Long> windowNanos = new EnumMap<>(MailType.class);
+  private final Map<String, Digest> pending = new HashMap<>();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "mail-digest");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @Autowired
+  public MailDigestCoalescer(SmtpMailDispatcher mailDispatcher, Environment environment) {
+    this.mailDispatcher = mailDispatcher;
+    for (MailType type : MailType.values()) {
+      String window = environment.getProperty("biblio.mail.digest.window." + type.getKey());
+      windowNanos.put(type, (window == null ? type.defaultWindow : DurationStyle.detectAndParse(window)).toNanos());
+    }
+  }
+
+  /**
+   * message est envoyé tel quel s'il reste seul ; name et detail (titre du livre, lien) servent au récapitulatif.
+   */
+  public void submit(MailType type, SimpleMailMessage message, String name, String detail) {
+    String recipient = message.getTo()[0];
+    long window = windowNanos.get(type);
+    SimpleMailMessage immediate = null;
+    long delay = -1;
+    synchronized (this) {
+      Digest digest = pending.get(recipient);
+      if (digest == null && window == 0) {
+        immediate = message;
+      } else {
+        if (digest == null) {
+          digest = new Digest(name);
+          pending.put(recipient, digest);
+        }
+        digest.notifications.add(new Notification(type, message, detail));
+        // Une notification à fenêtre plus courte avance l'envoi de tout le récapitulatif
+        long deadline = System.nanoTime() + window;
+        if (deadline < digest.deadlineNanos) {
+          digest.deadlineNanos = deadline;
+          delay = window;
+        }
+      }
+    }
+    if (immediate != null) {
+      mailDispatcher.enqueue(immediate);
+    } else if (delay >= 0) {
+      scheduler.schedule(() -> flush(recipient), delay, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    scheduler.shutdownNow();
+    List<Map.Entry<String, Digest>> remaining;
+    synchronized (this) {
+      remaining = new ArrayList<>(pending.entrySet());
+      pending.clear();
+    }
+    for (Map.Entry<String, Digest> entry : remaining) {
+      mailDispatcher.enqueue(compose(entry.getKey(), entry.getValue()));
+    }
+  }
+
+  private void flush(String recipient) {
+    Digest digest;
+    synchronized (this) {
+      digest = pending.get(recipient);
+      // Récapitulatif déjà parti, ou nouveau récapitulatif qui a sa propre échéance
+      if (digest == null || digest.deadlineNanos > System.nanoTime()) {
+        return;
+      }
+      pending.remove(recipient);
+    }
+    mailDispatcher.enqueue(compose(recipient, digest));
+  }
+
+  private static SimpleMailMessage compose(String recipient, Digest digest) {
+    List<Notification> notifications = digest.notifications;
+    if (notifications.size() == 1) {
+      return notifications.get(0).message();
+    }
+
+    Map<MailType, List<String>> details = new LinkedHashMap<>();
+    for (Notification notification : notifications) {
+      details.computeIfAbsent(notification.type(), t -> new ArrayList<>()).add(notification.detail());
+    }
+    StringBuilder text = new StringBuilder(digest.name == null ? "Bonjour,\n\n" : "Bonjour " + digest.name + ",\n\n");
+    details.forEach((type, values) -> text.append(section(type, values)).append("\n\n"));
+    text.append("Cordialement,\nL'équipe Biblio");
+
+    SimpleMailMessage message = new SimpleMailMessage();
+    message.setFrom(notifications.get(0).message().getFrom());
+    message.setTo(recipient);
+    message.setSubject(details.size() == 1 && details.containsKey(MailType.RESERVATION)
+            ? "Confirmation de réservation - Biblio"
+            : "Vos notifications - Biblio");
+    message.setText(text.toString());
+    return message;
+  }
+
+  private static String section(MailType type, List<String> details) {
+    return switch (type) {
+      case ACTIVATION -> "Pour activer votre compte, cliquez sur le lien suivant :\n" + details.get(details.size() - 1);
+      case ACCOUNT_ACTIVATED -> "Votre compte a été activé avec succès.";
+      case PASSWORD_CHANGED -> "Votre mot de passe a été modifié avec succès. Si vous n'êtes pas à l'origine "
+              + "de cette modification, veuillez contacter immédiatement notre support.";
+      case UNSUBSCRIBE -> "Votre compte a été désactivé. Vous pouvez le réactiver à tout moment en nous contactant.";
+      case RESERVATION -> "Vos réservations ont été effectuées avec succès :\n- " + String.join("\n- ", details);
+    };
+  }
+}
@@ -0,0 +1,98 @@
+package fr.ensitech.biblio2.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Hash BCrypt des mots de passe partagé par les services.
+ * Le coût est choisi au démarrage : le plus élevé dont le hash tient dans le budget
+ * (biblio.password.bcrypt.target-ms) sur la machine courante, borné par min-cost et max-cost.
+ */
+@Component
+public class PasswordHasher {
+
+  private static final int SAMPLES = 5;
+  private static final String CALIBRATION_PASSWORD = "Calibration-Biblio-2025!";
+
+  private final int cost;
+  private final BCryptPasswordEncoder encoder;
+
+  @Autowired
+  public PasswordHasher(@Value("${biblio.password.bcrypt.min-cost:10}") int minCost,
+                        @Value("${biblio.password.bcrypt.max-cost:14}") int maxCost,
+                        @Value("${biblio.password.bcrypt.target-ms:250}") long targetMillis) {
+    if (minCost < 4 || maxCost > 31 || minCost > maxCost) {
+      throw new IllegalArgumentException("BCrypt cost must satisfy 4 <= minCost <= maxCost <= 31");
+    }
+    this.cost = minCost == maxCost ? minCost : calibrate(minCost, maxCost, targetMillis);
+    this.encoder = new BCryptPasswordEncoder(cost);
+  }
+
+  public String encode(CharSequence rawPassword) {
+    return encoder.encode(rawPassword);
+  }
+
+  /**
+   * Vérifie avec le coût inscrit dans le hash, quel que soit le coût courant.
+   */
+  public boolean matches(CharSequence rawPassword, String hashedPassword) {
+    return encoder.matches(rawPassword, hashedPassword);
+  }
+
+  /**
+   * Vrai si le hash a été calculé avec un coût inférieur au coût courant : à renforcer à la prochaine connexion.
+   * Un hash plus coûteux est gardé tel quel, une calibration basse (démarrage lent) ne doit pas l'affaiblir.
+   */
+  public boolean needsRehash(String hashedPassword) {
+    int hashCost = costOf(hashedPassword);
+    return hashCost > 0 && hashCost < cost;
+  }
+
+  public int getCost() {
+    return cost;
+  }
+
+  // Format $2a$10$... ; -1 si ce n'est pas un hash BCrypt
+  static int costOf(String hashedPassword) {
+    if (hashedPassword == null || hashedPassword.length() < 7 || hashedPassword.charAt(0) != '$'
+            || hashedPassword.charAt(3) != '$' || hashedPassword.charAt(6) != '$') {
+      return -1;
+    }
+    char tens = hashedPassword.charAt(4);
+    char units = hashedPassword.charAt(5);
+    if (tens < '0' || tens > '9' || units < '0' || units > '9') {
+      return -1;
+    }
+    return (tens - '0') * 10 + (units - '0');
+  }
+
+  /**
+   * Mesure le coût minimal (médiane de quelques hashs après chauffe) puis extrapole :
+   * chaque point de coût double le temps de calcul.
+   */
+  private static int calibrate(int minCost, int maxCost, long targetMillis) {
+    BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minCost);
+    probe.encode(CALIBRATION_PASSWORD);
+
+    long[] samples = new long[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      long start = System.nanoTime();
+      probe.encode(CALIBRATION_PASSWORD);
+      samples[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(samples);
+    long elapsed = Math.max(1, samples[SAMPLES / 2]);
+
+    long targetNanos = targetMillis * 1_000_000L;
+    int cost = minCost;
+    while (cost < maxCost && elapsed * 2 <= targetNanos) {
+      elapsed *= 2;
+      cost++;
+    }
+    return cost;
+  }
+}
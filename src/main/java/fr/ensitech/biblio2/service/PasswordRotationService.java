@@ -4,7 +4,6 @@ import fr.ensitech.biblio2.entity.PasswordHistory;
 import fr.ensitech.biblio2.entity.User;
 import fr.ensitech.biblio2.repository.IPasswordHistoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,7 +17,8 @@ public class PasswordRotationService {
   @Autowired
   private IPasswordHistoryRepository passwordHistoryRepository;
 
-  private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+  @Autowired
+  private PasswordHasher passwordHasher;
 
   private static final int PASSWORD_EXPIRATION_WEEKS = 12;
   private static final int PASSWORD_HISTORY_LIMIT = 5;
@@ -40,7 +40,7 @@ public class PasswordRotationService {
     List<PasswordHistory> history = passwordHistoryRepository.findTop5ByUserIdOrderByCreatedAtDesc(user.getId());
 
     for (PasswordHistory ph : history) {
-      if (passwordEncoder.matches(plainPassword, ph.getPasswordHash())) {
+      if (passwordHasher.matches(plainPassword, ph.getPasswordHash())) {
         return true;
       }
     }
@@ -50,16 +50,19 @@ public class PasswordRotationService {
 
   @Transactional
   public void addPasswordToHistory(User user, String passwordHash) {
-    PasswordHistory history = new PasswordHistory();
-    history.setUser(user);
-    history.setPasswordHash(passwordHash);
-    history.setCreatedAt(new Date());
-
-    passwordHistoryRepository.save(history);
+    saveHistory(user, passwordHash);
 
     cleanupOldPasswords(user);
   }
 
+  /**
+   * Premier mot de passe d'un nouvel utilisateur : l'historique est vide, rien à relire ni à purger.
+   */
+  @Transactional
+  public void addInitialPassword(User user, String passwordHash) {
+    saveHistory(user, passwordHash);
+  }
+
   @Transactional
   public void cleanupOldPasswords(User user) {
     List<PasswordHistory> allHistory = passwordHistoryRepository.findByUserOrderByCreatedAtDesc(user);
@@ -70,6 +73,15 @@ public class PasswordRotationService {
     }
   }
 
+  private void saveHistory(User user, String passwordHash) {
+    PasswordHistory history = new PasswordHistory();
+    history.setUser(user);
+    history.setPasswordHash(passwordHash);
+    history.setCreatedAt(new Date());
+
+    passwordHistoryRepository.save(history);
+  }
+
   public long getDaysUntilExpiration(User user) {
     if (user.getPasswordUpdatedAt() == null) {
       return 0;
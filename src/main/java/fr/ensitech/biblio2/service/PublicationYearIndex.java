@@ -0,0 +1,149 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index en mémoire année de publication -> nombre de livres, pour les facettes et les plages vides.
+ * Les recherches par plage d'années restent un parcours d'index en base.
+ * Les lectures ne prennent aucun verrou, les écritures sont sérialisées.
+ */
+@Component
+public class PublicationYearIndex {
+
+  @Autowired
+  private IBookRepository bookRepository;
+
+  private final ConcurrentSkipListMap<Integer, Integer> countsByYear = new ConcurrentSkipListMap<>();
+  private final Map<Long, Integer> yearById = new ConcurrentHashMap<>();
+  private volatile boolean ready;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void load() {
+    Map<Integer, Integer> loaded = new HashMap<>();
+    for (Object[] row : bookRepository.findPublicationDates()) {
+      Long id = (Long) row[0];
+      Date publicationDate = (Date) row[1];
+      if (publicationDate == null) {
+        continue;
+      }
+      int year = yearOf(publicationDate);
+      if (yearById.put(id, year) == null) {
+        loaded.merge(year, 1, Integer::sum);
+      }
+    }
+    countsByYear.putAll(loaded);
+    ready = true;
+  }
+
+  /**
+   * Appliqué tout de suite pour que la transaction qui écrit relise sa propre écriture.
+   * Si elle est annulée ensuite, l'entrée du livre est relue depuis la base.
+   */
+  @EventListener
+  public void onBookChanged(BookChangedEvent event) {
+    Long bookId = event.bookId();
+    if (bookId == null) {
+      return;
+    }
+    if (event.isDeletion()) {
+      remove(bookId);
+    } else {
+      put(event.book());
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status == STATUS_ROLLED_BACK) {
+            refresh(bookId);
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Faux tant que le chargement initial n'est pas terminé : l'appelant doit alors interroger la base.
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Nombre de livres publiés entre les deux années incluses.
+   */
+  public int countBetween(int startYear, int endYear) {
+    int count = 0;
+    for (int yearCount : countsByYear.subMap(startYear, true, endYear, true).values()) {
+      count += yearCount;
+    }
+    return count;
+  }
+
+  /**
+   * Nombre de livres par année, triés par année.
+   */
+  public Map<Integer, Integer> countByYear() {
+    return new LinkedHashMap<>(countsByYear);
+  }
+
+  void refresh(long bookId) {
+    Optional<Book> book = bookRepository.findById(bookId);
+    if (book.isPresent()) {
+      put(book.get());
+    } else {
+      remove(bookId);
+    }
+  }
+
+  synchronized void put(Book book) {
+    if (book.getPublicationDate() == null) {
+      remove(book.getId());
+      return;
+    }
+    int year = yearOf(book.getPublicationDate());
+    Integer previous = yearById.put(book.getId(), year);
+    if (previous != null && previous == year) {
+      return;
+    }
+    if (previous != null) {
+      decrement(previous);
+    }
+    countsByYear.merge(year, 1, Integer::sum);
+  }
+
+  synchronized void remove(long bookId) {
+    Integer previous = yearById.remove(bookId);
+    if (previous != null) {
+      decrement(previous);
+    }
+  }
+
+  // null supprime l'année de l'index quand elle n'a plus de livre
+  private void decrement(int year) {
+    countsByYear.computeIfPresent(year, (y, count) -> count == 1 ? null : count - 1);
+  }
+
+  static int yearOf(Date date) {
+    Calendar calendar = Calendar.getInstance();
+    calendar.setTime(date);
+    return calendar.get(Calendar.YEAR);
+  }
+}
@@ -3,12 +3,19 @@ package fr.ensitech.biblio2.service;
 import fr.ensitech.biblio2.entity.Book;
 import fr.ensitech.biblio2.entity.Reservation;
 import fr.ensitech.biblio2.entity.User;
+import fr.ensitech.biblio2.event.BookReservedEvent;
+import fr.ensitech.biblio2.exception.AuthenticationFailedException;
+import fr.ensitech.biblio2.exception.ConflictException;
+import fr.ensitech.biblio2.exception.NotFoundException;
 import fr.ensitech.biblio2.repository.IBookRepository;
 import fr.ensitech.biblio2.repository.IReservationRepository;
 import fr.ensitech.biblio2.repository.IUserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Date;
 import java.util.List;
@@ -28,33 +35,50 @@ public class ReservationService implements IReservationService {
   @Autowired
   private EmailService emailService;
 
+  @Autowired
+  private BookLockRegistry bookLockRegistry;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  /**
+   * Pas de @Transactional ici : le verrou du livre est pris avant l'ouverture de la transaction,
+   * sinon l'instantané REPEATABLE READ de MySQL, figé à la première lecture, masquerait la réservation
+   * que le détenteur précédent vient de valider. Le verrou est rendu après le commit.
+   */
   @Override
-  @Transactional
   public Reservation reserveBook(long bookId, String email) throws Exception {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    return bookLockRegistry.withLock(bookId, () -> transaction.execute(status -> reserveLocked(bookId, email)));
+  }
+
+  private Reservation reserveLocked(long bookId, String email) {
     User user = userRepository.findByEmail(email);
     if (user == null) {
-      throw new Exception("Utilisateur non trouvé");
+      throw new NotFoundException("Utilisateur non trouvé");
     }
     if (!user.isActive()) {
-      throw new Exception("Compte utilisateur non activé");
+      throw new AuthenticationFailedException("Compte utilisateur non activé");
     }
 
     Book book = bookRepository.findById(bookId)
-            .orElseThrow(() -> new Exception("Livre non trouvé"));
+            .orElseThrow(() -> new NotFoundException("Livre non trouvé"));
 
     long existingReservation = reservationRepository.countActiveReservationsByUserAndBook(user.getId(), bookId);
     if (existingReservation > 0) {
-      throw new Exception("Vous avez déjà réservé ce livre");
+      throw new ConflictException("Vous avez déjà réservé ce livre");
     }
 
     long userActiveReservations = reservationRepository.countActiveReservationsByUserId(user.getId());
     if (userActiveReservations >= 3) {
-      throw new Exception("Vous avez atteint la limite de 3 réservations actives");
+      throw new ConflictException("Vous avez atteint la limite de 3 réservations actives");
     }
 
-    int availableStock = getAvailableStock(bookId);
-    if (availableStock <= 0) {
-      throw new Exception("Ce livre n'est plus disponible");
+    if (availableStock(book) <= 0) {
+      throw new ConflictException("Ce livre n'est plus disponible");
     }
 
     Reservation reservation = new Reservation();
@@ -64,6 +88,7 @@ public class ReservationService implements IReservationService {
     reservation.setStatus("ACTIVE");
 
     Reservation savedReservation = reservationRepository.save(reservation);
+    eventPublisher.publishEvent(new BookReservedEvent(bookId));
 
     emailService.sendReservationConfirmationEmail(
             user.getEmail(),
@@ -76,10 +101,11 @@ public class ReservationService implements IReservationService {
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<Reservation> getUserReservations(String email) throws Exception {
     User user = userRepository.findByEmail(email);
     if (user == null) {
-      throw new Exception("Utilisateur non trouvé");
+      throw new NotFoundException("Utilisateur non trouvé");
     }
     return reservationRepository.findByUserAndStatus(user, "ACTIVE");
   }
@@ -88,17 +114,21 @@ public class ReservationService implements IReservationService {
   @Transactional
   public void cancelReservation(long reservationId) throws Exception {
     Reservation reservation = reservationRepository.findById(reservationId)
-            .orElseThrow(() -> new Exception("Réservation non trouvée"));
+            .orElseThrow(() -> new NotFoundException("Réservation non trouvée"));
 
     reservation.setStatus("CANCELLED");
     reservationRepository.save(reservation);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public int getAvailableStock(long bookId) throws Exception {
     Book book = bookRepository.findById(bookId)
-            .orElseThrow(() -> new Exception("Livre non trouvé"));
+            .orElseThrow(() -> new NotFoundException("Livre non trouvé"));
+    return availableStock(book);
+  }
 
+  private int availableStock(Book book) {
     int totalStock = book.getStock();
 
     List<Reservation> activeReservations = reservationRepository.findByBookAndStatus(book, "ACTIVE");
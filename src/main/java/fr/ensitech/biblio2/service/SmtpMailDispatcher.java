@@ -0,0 +1,176 @@
+package fr.ensitech.biblio2.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File d'envoi des mails vidée par quelques threads, chacun gardant sa propre connexion SMTP ouverte :
+ * STARTTLS et l'authentification ne sont payés qu'à la connexion, pas à chaque mail.
+ * Les mails en attente partent par lots sur la même session. Une coupure de connexion la ferme et
+ * le mail est retenté une fois sur une connexion neuve ; un refus propre au mail (destinataire rejeté)
+ * garde la session. Les échecs passent par ErrorReporter, limité par type pendant une panne SMTP.
+ */
+@Component
+public class SmtpMailDispatcher {
+
+  private final JavaMailSender mailSender;
+  private final ErrorReporter errorReporter;
+  private final int batchSize;
+  private final long idleTimeoutMillis;
+  private final BlockingQueue<SimpleMailMessage> queue;
+  private final List<Thread> workers = new ArrayList<>();
+  private volatile boolean running = true;
+
+  @Autowired
+  public SmtpMailDispatcher(JavaMailSender mailSender,
+                            ErrorReporter errorReporter,
+                            @Value("${biblio.mail.transport.connections:2}") int connections,
+                            @Value("${biblio.mail.transport.batch-size:50}") int batchSize,
+                            @Value("${biblio.mail.transport.idle-timeout-ms:30000}") long idleTimeoutMillis,
+                            @Value("${biblio.mail.transport.queue-capacity:10000}") int queueCapacity) {
+    this.mailSender = mailSender;
+    this.errorReporter = errorReporter;
+    this.batchSize = batchSize;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    for (int i = 1; i <= connections; i++) {
+      Thread worker = new Thread(this::work, "smtp-" + i);
+      worker.setDaemon(true);
+      workers.add(worker);
+      worker.start();
+    }
+  }
+
+  /**
+   * Met le mail en file. File pleine : l'appelant l'envoie lui-même plutôt que de le perdre.
+   */
+  public void enqueue(SimpleMailMessage message) {
+    if (!running || !queue.offer(message)) {
+      mailSender.send(message);
+    }
+  }
+
+  /**
+   * Laisse les threads vider la file avant l'arrêt.
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    running = false;
+    for (Thread worker : workers) {
+      worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+  }
+
+  private void work() {
+    SmtpConnection connection = new SmtpConnection();
+    List<SimpleMailMessage> batch = new ArrayList<>(batchSize);
+    long lastUse = System.currentTimeMillis();
+    try {
+      while (running || !queue.isEmpty()) {
+        SimpleMailMessage first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+          // Les serveurs SMTP coupent les sessions inactives : on ferme la nôtre avant
+          if (System.currentTimeMillis() - lastUse > idleTimeoutMillis) {
+            connection.close();
+          }
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        send(connection, batch);
+        batch.clear();
+        lastUse = System.currentTimeMillis();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      connection.close();
+    }
+  }
+
+  private void send(SmtpConnection connection, List<SimpleMailMessage> batch) {
+    if (!(mailSender instanceof JavaMailSenderImpl sender)) {
+      // Autre implémentation (bouchon de test) : elle gère elle-même sa connexion pour le lot
+      try {
+        mailSender.send(batch.toArray(new SimpleMailMessage[0]));
+      } catch (MailException e) {
+        errorReporter.report("SmtpMailDispatcher.send", e);
+      }
+      return;
+    }
+    for (SimpleMailMessage message : batch) {
+      MimeMessage mimeMessage = sender.createMimeMessage();
+      try {
+        message.copyTo(new MimeMailMessage(mimeMessage));
+        mimeMessage.setSentDate(new Date());
+        mimeMessage.saveChanges();
+        try {
+          connection.send(sender, mimeMessage);
+        } catch (MessagingException | IllegalStateException e) {
+          if (!isConnectionFailure(e)) {
+            throw e;
+          }
+          connection.close();
+          connection.send(sender, mimeMessage);
+        }
+      } catch (MessagingException | MailException | IllegalStateException e) {
+        errorReporter.report("SmtpMailDispatcher.send", e);
+      }
+    }
+  }
+
+  /**
+   * SendFailedException : le serveur a refusé ce mail ou ses destinataires, la session reste utilisable.
+   * Le reste (IOException sous-jacente, « Not connected », authentification) impose de se reconnecter.
+   */
+  static boolean isConnectionFailure(Exception e) {
+    return !(e instanceof SendFailedException);
+  }
+
+  /**
+   * Connexion SMTP d'un thread, ouverte à la demande et gardée entre les lots.
+   */
+  private static final class SmtpConnection {
+
+    private Transport transport;
+
+    // Pas de isConnected() avant chaque envoi : il coûte un NOOP, l'échec de l'envoi suffit à détecter la coupure
+    void send(JavaMailSenderImpl sender, MimeMessage message) throws MessagingException {
+      if (transport == null) {
+        Transport opened = sender.getSession().getTransport(sender.getProtocol() != null ? sender.getProtocol() : "smtp");
+        opened.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+        transport = opened;
+      }
+      transport.sendMessage(message, message.getAllRecipients());
+    }
+
+    void close() {
+      if (transport != null) {
+        try {
+          transport.close();
+        } catch (MessagingException e) {
+          // Connexion déjà perdue
+        }
+        transport = null;
+      }
+    }
+  }
+}
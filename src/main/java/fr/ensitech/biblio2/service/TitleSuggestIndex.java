@@ -0,0 +1,269 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.dto.BookSuggestion;
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.event.BookReservedEvent;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import fr.ensitech.biblio2.repository.IReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Autocomplétion des titres : tableau trié des titres normalisés, une recherche par préfixe
+ * est une recherche dichotomique suivie d'un parcours de la plage contiguë.
+ * Les suggestions sont classées par nombre de réservations du livre.
+ * Le tableau est remplacé à l'écriture : les lectures ne prennent aucun verrou.
+ */
+@Component
+public class TitleSuggestIndex {
+
+  private static final Entries EMPTY = new Entries(new String[0], new String[0], new long[0], new int[0]);
+
+  @Autowired
+  private IBookRepository bookRepository;
+
+  @Autowired
+  private IReservationRepository reservationRepository;
+
+  private volatile Entries entries = EMPTY;
+  private final Map<Long, String> keyById = new HashMap<>();
+  private volatile boolean ready;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void load() {
+    if (ready) {
+      return;
+    }
+    Map<Long, Integer> reservations = new HashMap<>();
+    for (Object[] row : reservationRepository.countReservationsByBook()) {
+      reservations.put((Long) row[0], ((Long) row[1]).intValue());
+    }
+
+    List<Object[]> rows = bookRepository.findTitles();
+    String[] keys = new String[rows.size()];
+    Integer[] order = new Integer[rows.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = TitleTrigramIndex.normalize((String) rows.get(i)[1]);
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> {
+      int byKey = keys[a].compareTo(keys[b]);
+      return byKey != 0 ? byKey : Long.compare((Long) rows.get(a)[0], (Long) rows.get(b)[0]);
+    });
+
+    Entries loaded = new Entries(new String[keys.length], new String[keys.length],
+            new long[keys.length], new int[keys.length]);
+    for (int i = 0; i < order.length; i++) {
+      Object[] row = rows.get(order[i]);
+      Long id = (Long) row[0];
+      loaded.keys[i] = keys[order[i]];
+      loaded.titles[i] = (String) row[1];
+      loaded.ids[i] = id;
+      loaded.weights[i] = reservations.getOrDefault(id, 0);
+      keyById.put(id, keys[order[i]]);
+    }
+    entries = loaded;
+    ready = true;
+  }
+
+  /**
+   * Appliqué tout de suite, et relu depuis la base si la transaction qui écrit est annulée.
+   */
+  @EventListener
+  public void onBookChanged(BookChangedEvent event) {
+    Long bookId = event.bookId();
+    if (bookId == null) {
+      return;
+    }
+    if (event.isDeletion()) {
+      remove(bookId);
+    } else {
+      put(event.book());
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status == STATUS_ROLLED_BACK) {
+            refresh(bookId);
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * La popularité n'a pas besoin d'être lue par la transaction qui réserve : on attend le commit.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onBookReserved(BookReservedEvent event) {
+    String key = keyById.get(event.bookId());
+    if (key == null) {
+      return;
+    }
+    Entries current = entries;
+    int position = find(current, key, event.bookId());
+    if (position >= 0) {
+      // Un int écrit en place : un lecteur voit l'ancienne ou la nouvelle valeur, les deux conviennent
+      current.weights[position]++;
+    }
+  }
+
+  /**
+   * Au plus limit titres commençant par le préfixe (casse, accents et ponctuation ignorés),
+   * les plus réservés d'abord, puis les plus courts, puis par ordre alphabétique.
+   */
+  public List<BookSuggestion> suggest(String prefix, int limit) {
+    if (!ready) {
+      load();
+    }
+    String key = TitleTrigramIndex.normalize(prefix);
+    if (key.isEmpty() || limit <= 0) {
+      return new ArrayList<>();
+    }
+    Entries current = entries;
+    int[] best = new int[limit];
+    int found = 0;
+    for (int i = lowerBound(current.keys, key); i < current.keys.length && current.keys[i].startsWith(key); i++) {
+      if (found == limit && !ranksBefore(current, i, best[limit - 1])) {
+        continue;
+      }
+      int slot = found < limit ? found++ : limit - 1;
+      while (slot > 0 && ranksBefore(current, i, best[slot - 1])) {
+        best[slot] = best[slot - 1];
+        slot--;
+      }
+      best[slot] = i;
+    }
+
+    List<BookSuggestion> suggestions = new ArrayList<>(found);
+    for (int i = 0; i < found; i++) {
+      int position = best[i];
+      suggestions.add(new BookSuggestion(current.ids[position], current.titles[position], current.weights[position]));
+    }
+    return suggestions;
+  }
+
+  void refresh(long bookId) {
+    Optional<Book> book = bookRepository.findById(bookId);
+    if (book.isPresent()) {
+      put(book.get());
+    } else {
+      remove(bookId);
+    }
+  }
+
+  synchronized void put(Book book) {
+    String key = TitleTrigramIndex.normalize(book.getTitle());
+    Entries current = entries;
+    int weight = 0;
+    String previous = keyById.get(book.getId());
+    if (previous != null) {
+      int position = find(current, previous, book.getId());
+      weight = current.weights[position];
+      current = current.without(position);
+    }
+    int position = find(current, key, book.getId());
+    entries = current.with(-position - 1, key, book.getTitle(), book.getId(), weight);
+    keyById.put(book.getId(), key);
+  }
+
+  synchronized void remove(long bookId) {
+    String previous = keyById.remove(bookId);
+    if (previous != null) {
+      entries = entries.without(find(entries, previous, bookId));
+    }
+  }
+
+  // Plus réservé, puis titre plus court, puis position dans le tableau (ordre alphabétique)
+  private static boolean ranksBefore(Entries entries, int a, int b) {
+    if (entries.weights[a] != entries.weights[b]) {
+      return entries.weights[a] > entries.weights[b];
+    }
+    if (entries.keys[a].length() != entries.keys[b].length()) {
+      return entries.keys[a].length() < entries.keys[b].length();
+    }
+    return a < b;
+  }
+
+  private static int lowerBound(String[] keys, String key) {
+    int low = 0;
+    int high = keys.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (keys[middle].compareTo(key) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  // Position de (key, id) si présent, sinon -(point d'insertion) - 1 comme Arrays.binarySearch
+  private static int find(Entries entries, String key, long id) {
+    int low = 0;
+    int high = entries.keys.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int compare = entries.keys[middle].compareTo(key);
+      if (compare == 0) {
+        compare = Long.compare(entries.ids[middle], id);
+      }
+      if (compare < 0) {
+        low = middle + 1;
+      } else if (compare > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -low - 1;
+  }
+
+  /**
+   * Tableaux parallèles triés par (titre normalisé, id).
+   */
+  private record Entries(String[] keys, String[] titles, long[] ids, int[] weights) {
+
+    Entries with(int at, String key, String title, long id, int weight) {
+      Entries copy = new Entries(new String[keys.length + 1], new String[keys.length + 1],
+              new long[keys.length + 1], new int[keys.length + 1]);
+      copyInto(copy, 0, 0, at);
+      copyInto(copy, at, at + 1, keys.length - at);
+      copy.keys[at] = key;
+      copy.titles[at] = title;
+      copy.ids[at] = id;
+      copy.weights[at] = weight;
+      return copy;
+    }
+
+    Entries without(int at) {
+      Entries copy = new Entries(new String[keys.length - 1], new String[keys.length - 1],
+              new long[keys.length - 1], new int[keys.length - 1]);
+      copyInto(copy, 0, 0, at);
+      copyInto(copy, at + 1, at, keys.length - at - 1);
+      return copy;
+    }
+
+    private void copyInto(Entries target, int from, int to, int length) {
+      System.arraycopy(keys, from, target.keys, to, length);
+      System.arraycopy(titles, from, target.titles, to, length);
+      System.arraycopy(ids, from, target.ids, to, length);
+      System.arraycopy(weights, from, target.weights, to, length);
+    }
+  }
+}
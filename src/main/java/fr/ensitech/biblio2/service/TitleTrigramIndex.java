@@ -0,0 +1,421 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index de trigrammes sur les titres pour la recherche tolérante aux fautes de frappe.
+ * Les trigrammes communs présélectionnent les candidats, une distance d'édition bornée
+ * (la requête peut correspondre à n'importe quelle suite de mots du titre) tranche ensuite.
+ * Les trigrammes sont calculés mot par mot, bordures comprises : un fragment de mot comme « ava »
+ * pour « Java » ne passe pas la présélection, il relève de la recherche LIKE de getBooksByTitleContaining.
+ */
+@Component
+public class TitleTrigramIndex {
+
+  /** Nombre maximal de candidats vérifiés par distance d'édition. */
+  static final int MAX_CANDIDATES = 200;
+
+  public record Match(long bookId, double similarity, int edits) {
+  }
+
+  @Autowired
+  private IBookRepository bookRepository;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Long, Posting> postings = new HashMap<>();
+  private final Map<Long, Integer> docById = new HashMap<>();
+  private final BitSet live = new BitSet();
+  private long[] idByDoc = new long[1024];
+  private String[] titleByDoc = new String[1024];
+  private int nextDoc;
+  private int deadDocs;
+  private volatile boolean ready;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    lock.writeLock().lock();
+    try {
+      if (ready) {
+        return;
+      }
+      for (Object[] row : bookRepository.findTitles()) {
+        index((Long) row[0], (String) row[1]);
+      }
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Appliqué tout de suite, et relu depuis la base si la transaction qui écrit est annulée.
+   */
+  @EventListener
+  public void onBookChanged(BookChangedEvent event) {
+    Long bookId = event.bookId();
+    if (bookId == null) {
+      return;
+    }
+    if (event.isDeletion()) {
+      remove(bookId);
+    } else {
+      put(bookId, event.book().getTitle());
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status == STATUS_ROLLED_BACK) {
+            refresh(bookId);
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Titres proches de la requête, au plus maxEdits fautes, du plus proche au plus lointain.
+   */
+  public List<Match> search(String query, int maxEdits, int limit) {
+    String normalized = normalize(query);
+    if (normalized.isEmpty()) {
+      return List.of();
+    }
+    if (!ready) {
+      load();
+    }
+    long[] queryGrams = trigrams(normalized);
+
+    // Une faute détruit au plus quatre trigrammes distincts (trois, plus l'espacement des mots) :
+    // un titre à maxEdits fautes partage donc au moins minShared trigrammes avec la requête
+    int minShared = Math.max(1, queryGrams.length - 4 * maxEdits);
+
+    lock.readLock().lock();
+    try {
+      Posting[] lists = new Posting[queryGrams.length];
+      for (int i = 0; i < queryGrams.length; i++) {
+        lists[i] = postings.getOrDefault(queryGrams[i], Posting.EMPTY);
+      }
+      Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+      // Filtre par préfixe : un candidat figure forcément dans l'une des listes les plus courtes.
+      // Ces listes sont fusionnées dans l'ordre des documents, les plus longues seulement
+      // avancées par saut jusqu'au candidat : les accès mémoire restent séquentiels.
+      int prefix = lists.length - minShared + 1;
+      int[] cursors = new int[lists.length];
+      // (trigrammes communs << 32) | document, et nombre de candidats par nombre de trigrammes communs
+      long[] candidates = new long[64];
+      int candidateCount = 0;
+      int[] histogram = new int[lists.length + 1];
+      while (true) {
+        int doc = Integer.MAX_VALUE;
+        for (int k = 0; k < prefix; k++) {
+          if (cursors[k] < lists[k].size) {
+            doc = Math.min(doc, lists[k].docs[cursors[k]]);
+          }
+        }
+        if (doc == Integer.MAX_VALUE) {
+          break;
+        }
+        int shared = 0;
+        for (int k = 0; k < prefix; k++) {
+          if (cursors[k] < lists[k].size && lists[k].docs[cursors[k]] == doc) {
+            shared++;
+            cursors[k]++;
+          }
+        }
+        if (!live.get(doc)) {
+          continue;
+        }
+        for (int k = prefix; k < lists.length && shared + lists.length - k >= minShared; k++) {
+          cursors[k] = lists[k].seek(cursors[k], doc);
+          if (cursors[k] < lists[k].size && lists[k].docs[cursors[k]] == doc) {
+            shared++;
+          }
+        }
+        if (shared >= minShared) {
+          if (candidateCount == candidates.length) {
+            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+          }
+          candidates[candidateCount++] = ((long) shared << 32) | doc;
+          histogram[shared]++;
+        }
+      }
+
+      // Seuls les MAX_CANDIDATES meilleurs sont vérifiés : sélection par l'histogramme, sans tri complet.
+      // Tous les candidats au-dessus du seuil tiennent, ceux au seuil complètent.
+      int threshold = lists.length;
+      int kept = histogram[threshold];
+      while (kept < MAX_CANDIDATES && threshold > minShared) {
+        kept += histogram[--threshold];
+      }
+      long[] selected = new long[Math.min(kept, MAX_CANDIDATES)];
+      int selectedCount = 0;
+      for (int i = 0; i < candidateCount; i++) {
+        if ((int) (candidates[i] >>> 32) > threshold) {
+          selected[selectedCount++] = candidates[i];
+        }
+      }
+      for (int i = 0; i < candidateCount && selectedCount < selected.length; i++) {
+        if ((int) (candidates[i] >>> 32) == threshold) {
+          selected[selectedCount++] = candidates[i];
+        }
+      }
+      Arrays.sort(selected, 0, selectedCount);
+
+      List<Match> matches = new ArrayList<>();
+      for (int i = selectedCount - 1; i >= 0; i--) {
+        int doc = (int) selected[i];
+        int shared = (int) (selected[i] >>> 32);
+        int edits = substringEditDistance(normalized, titleByDoc[doc], maxEdits);
+        if (edits <= maxEdits) {
+          matches.add(new Match(idByDoc[doc], shared / (double) queryGrams.length, edits));
+        }
+      }
+      matches.sort((a, b) -> a.edits() != b.edits()
+              ? Integer.compare(a.edits(), b.edits())
+              : Double.compare(b.similarity(), a.similarity()));
+      return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  void refresh(long bookId) {
+    Optional<Book> book = bookRepository.findById(bookId);
+    if (book.isPresent()) {
+      put(bookId, book.get().getTitle());
+    } else {
+      remove(bookId);
+    }
+  }
+
+  void put(long bookId, String title) {
+    lock.writeLock().lock();
+    try {
+      unindex(bookId);
+      index(bookId, title);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  void remove(long bookId) {
+    lock.writeLock().lock();
+    try {
+      unindex(bookId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Appelé sous le verrou d'écriture
+  private void index(long bookId, String title) {
+    String normalized = normalize(title);
+    int doc = nextDoc++;
+    if (doc == idByDoc.length) {
+      idByDoc = Arrays.copyOf(idByDoc, doc * 2);
+      titleByDoc = Arrays.copyOf(titleByDoc, doc * 2);
+    }
+    idByDoc[doc] = bookId;
+    titleByDoc[doc] = normalized;
+    docById.put(bookId, doc);
+    live.set(doc);
+    for (long gram : trigrams(normalized)) {
+      postings.computeIfAbsent(gram, g -> new Posting()).add(doc);
+    }
+  }
+
+  // Le document est seulement marqué mort ; l'index est compacté quand les morts dépassent le quart
+  private void unindex(long bookId) {
+    Integer doc = docById.remove(bookId);
+    if (doc == null) {
+      return;
+    }
+    live.clear(doc);
+    titleByDoc[doc] = null;
+    if (++deadDocs > 1024 && deadDocs > nextDoc / 4) {
+      compact();
+    }
+  }
+
+  private void compact() {
+    long[] ids = new long[docById.size()];
+    String[] titles = new String[docById.size()];
+    int n = 0;
+    for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+      ids[n] = idByDoc[doc];
+      titles[n++] = titleByDoc[doc];
+    }
+    postings.clear();
+    docById.clear();
+    live.clear();
+    nextDoc = 0;
+    deadDocs = 0;
+    idByDoc = new long[Math.max(1024, n)];
+    titleByDoc = new String[idByDoc.length];
+    for (int i = 0; i < n; i++) {
+      int doc = nextDoc++;
+      idByDoc[doc] = ids[i];
+      titleByDoc[doc] = titles[i];
+      docById.put(ids[i], doc);
+      live.set(doc);
+      for (long gram : trigrams(titles[i])) {
+        postings.computeIfAbsent(gram, g -> new Posting()).add(doc);
+      }
+    }
+  }
+
+  /**
+   * Minuscules, sans accents, ponctuation remplacée par des espaces simples.
+   */
+  static String normalize(String text) {
+    if (text == null) {
+      return "";
+    }
+    String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+    StringBuilder out = new StringBuilder(decomposed.length());
+    boolean space = true;
+    for (int i = 0; i < decomposed.length(); i++) {
+      char c = decomposed.charAt(i);
+      if (Character.getType(c) == Character.NON_SPACING_MARK) {
+        continue;
+      }
+      if (Character.isLetterOrDigit(c)) {
+        out.append(Character.toLowerCase(c));
+        space = false;
+      } else if (!space) {
+        out.append(' ');
+        space = true;
+      }
+    }
+    int length = out.length();
+    if (length > 0 && out.charAt(length - 1) == ' ') {
+      out.setLength(length - 1);
+    }
+    return out.toString();
+  }
+
+  /**
+   * Trigrammes distincts de chaque mot, encadré de deux espaces devant et un derrière.
+   * Trois caractères 16 bits tiennent dans un long.
+   */
+  static long[] trigrams(String normalized) {
+    if (normalized.isEmpty()) {
+      return new long[0];
+    }
+    long[] grams = new long[normalized.length() * 2 + 2];
+    int n = 0;
+    for (String word : normalized.split(" ")) {
+      String padded = "  " + word + " ";
+      for (int i = 0; i + 3 <= padded.length(); i++) {
+        grams[n++] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+      }
+    }
+    long[] distinct = Arrays.copyOf(grams, n);
+    Arrays.sort(distinct);
+    int size = 0;
+    for (int i = 0; i < distinct.length; i++) {
+      if (i == 0 || distinct[i] != distinct[i - 1]) {
+        distinct[size++] = distinct[i];
+      }
+    }
+    return Arrays.copyOf(distinct, size);
+  }
+
+  /**
+   * Nombre minimal de modifications pour retrouver la requête dans une partie quelconque du texte
+   * (algorithme de Sellers avec la coupure d'Ukkonen : seules les lignes encore sous la borne sont calculées).
+   * Renvoie maxEdits + 1 si la borne ne peut pas être tenue.
+   */
+  static int substringEditDistance(String query, String text, int maxEdits) {
+    int m = query.length();
+    if (m <= maxEdits) {
+      return m;
+    }
+    char[] pattern = query.toCharArray();
+    int[] column = new int[m + 1];
+    for (int i = 0; i <= m; i++) {
+      column[i] = i;
+    }
+    int best = maxEdits + 1;
+    int lastActive = maxEdits + 1;
+    for (int j = 0; j < text.length(); j++) {
+      char c = text.charAt(j);
+      int diagonal = 0;
+      int value = 0;
+      for (int i = 1; i <= lastActive; i++) {
+        if (pattern[i - 1] == c) {
+          value = diagonal;
+        } else {
+          value = Math.min(value, Math.min(diagonal, column[i])) + 1;
+        }
+        diagonal = column[i];
+        column[i] = value;
+      }
+      while (column[lastActive] > maxEdits) {
+        lastActive--;
+      }
+      if (lastActive == m) {
+        best = Math.min(best, column[m]);
+        if (best == 0) {
+          return 0;
+        }
+      } else {
+        lastActive++;
+      }
+    }
+    return best;
+  }
+
+  // Documents ajoutés dans l'ordre croissant : la liste reste triée
+  private static final class Posting {
+    private static final Posting EMPTY = new Posting();
+
+    private int[] docs = new int[4];
+    private int size;
+
+    /**
+     * Première position >= from dont le document est >= doc (recherche exponentielle puis dichotomique).
+     */
+    int seek(int from, int doc) {
+      if (from >= size || docs[from] >= doc) {
+        return from;
+      }
+      int low = from;
+      int step = 1;
+      while (low + step < size && docs[low + step] < doc) {
+        low += step;
+        step <<= 1;
+      }
+      int position = Arrays.binarySearch(docs, low + 1, Math.min(low + step + 1, size), doc);
+      return position >= 0 ? position : -position - 1;
+    }
+
+    void add(int doc) {
+      if (size == docs.length) {
+        docs = Arrays.copyOf(docs, size * 2);
+      }
+      docs[size++] = doc;
+    }
+  }
+}
@@ -2,14 +2,20 @@ package fr.ensitech.biblio2.service;
 
 import fr.ensitech.biblio2.dto.AuthenticationResponse;
 import fr.ensitech.biblio2.entity.User;
+import fr.ensitech.biblio2.exception.AuthenticationFailedException;
+import fr.ensitech.biblio2.exception.ConflictException;
+import fr.ensitech.biblio2.exception.InvalidRequestException;
+import fr.ensitech.biblio2.exception.NotFoundException;
 import fr.ensitech.biblio2.repository.IUserRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
@@ -27,37 +33,54 @@ public class UserService implements IUserService {
   @Autowired
   private PasswordRotationService passwordRotationService;
 
-  private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+  @Autowired
+  private PasswordHasher passwordHasher;
+
+  @Autowired
+  private EmailBloomFilter emailBloomFilter;
 
+  /**
+   * Inscription en une seule transaction : insertion, premier mot de passe de l'historique et mail d'activation.
+   * Pas de findByEmail préalable, l'unicité de l'email est vérifiée par la contrainte de la table.
+   */
   @Override
-  @Transactional
+  @Transactional(rollbackFor = Exception.class)
   public void createUser(User user) throws Exception {
-    if (userRepository.findByEmail(user.getEmail()) != null) {
-      throw new Exception("User already exists");
-    }
-
     if (user.getSecurityQuestion() == null) {
-      throw new Exception("Question de sécurité obligatoire");
+      throw new InvalidRequestException("Question de sécurité obligatoire");
     }
     if (user.getSecurityAnswerHash() == null || user.getSecurityAnswerHash().isEmpty()) {
-      throw new Exception("Réponse de sécurité obligatoire");
+      throw new InvalidRequestException("Réponse de sécurité obligatoire");
     }
     if (user.getSecurityAnswerHash().length() > 32) {
-      throw new Exception("La réponse de sécurité ne peut pas dépasser 32 caractères");
+      throw new InvalidRequestException("La réponse de sécurité ne peut pas dépasser 32 caractères");
     }
 
     String hashedSecurityAnswer = securityAnswerService.hashSecurityAnswer(user.getSecurityAnswerHash());
     user.setSecurityAnswerHash(hashedSecurityAnswer);
 
-    String hashedPassword = passwordEncoder.encode(user.getPassword());
+    String hashedPassword = passwordHasher.encode(user.getPassword());
     user.setPassword(hashedPassword);
 
     user.setPasswordUpdatedAt(new Date());
 
     user.setActive(false);
-    User savedUser = userRepository.save(user);
+    User savedUser;
+    try {
+      savedUser = userRepository.saveAndFlush(user);
+    } catch (DataIntegrityViolationException e) {
+      // Seule l'unicité de l'email est un conflit ; NOT NULL, longueur... restent des erreurs
+      if (isDuplicateEmail(e)) {
+        throw new ConflictException("User already exists");
+      }
+      throw e;
+    }
+    emailBloomFilter.add(savedUser.getEmail());
+
+    passwordRotationService.addInitialPassword(savedUser, hashedPassword);
 
-    passwordRotationService.addPasswordToHistory(savedUser, hashedPassword);
+    // Mis en file au commit, rien ne part si l'inscription est annulée
+    emailService.sendActivationEmail(savedUser.getEmail(), savedUser.getId());
   }
 
   @Override
@@ -74,7 +97,7 @@ public class UserService implements IUserService {
   @Override
   public User activeUser(long id) throws Exception {
     User user = userRepository.findById(id)
-            .orElseThrow(() -> new Exception("User not found"));
+            .orElseThrow(() -> new NotFoundException("User not found"));
     user.setActive(true);
     User savedUser = userRepository.save(user);
 
@@ -89,19 +112,25 @@ public class UserService implements IUserService {
 
   @Override
   public AuthenticationResponse authenticatedUser(String email, String password) throws Exception {
-    User user = userRepository.findByEmail(email);
+    User user = findUserByEmail(email);
 
     if (user == null) {
-      throw new Exception("Invalid credentials");
+      throw new AuthenticationFailedException("Invalid credentials");
     }
 
     if (!user.isActive()) {
-      throw new Exception("Account not activated");
+      throw new AuthenticationFailedException("Account not activated");
     }
 
     // Vérification du mot de passe avec BCrypt
-    if (!passwordEncoder.matches(password, user.getPassword())) {
-      throw new Exception("Invalid credentials");
+    if (!passwordHasher.matches(password, user.getPassword())) {
+      throw new AuthenticationFailedException("Invalid credentials");
+    }
+
+    // Hash calculé avec un coût plus faible (ancien réglage) : renforcé tant qu'on a le mot de passe en clair
+    if (passwordHasher.needsRehash(user.getPassword())) {
+      user.setPassword(passwordHasher.encode(password));
+      userRepository.save(user);
     }
 
     if (passwordRotationService.isPasswordExpired(user)) {
@@ -134,10 +163,10 @@ public class UserService implements IUserService {
   @Override
   public boolean verifySecurityAnswer(Long userId, String securityAnswer) throws Exception {
     User user = userRepository.findById(userId)
-            .orElseThrow(() -> new Exception("Utilisateur non trouvé"));
+            .orElseThrow(() -> new NotFoundException("Utilisateur non trouvé"));
 
     if (user.getSecurityAnswerHash() == null) {
-      throw new Exception("Aucune question de sécurité configurée");
+      throw new InvalidRequestException("Aucune question de sécurité configurée");
     }
 
     return securityAnswerService.verifySecurityAnswer(securityAnswer, user.getSecurityAnswerHash());
@@ -146,7 +175,7 @@ public class UserService implements IUserService {
   @Override
   public User deleteUser(long id) throws Exception {
     User user = userRepository.findById(id)
-            .orElseThrow(() -> new Exception("User not found"));
+            .orElseThrow(() -> new NotFoundException("User not found"));
     user.setActive(false);
     User savedUser = userRepository.save(user);
 
@@ -161,9 +190,9 @@ public class UserService implements IUserService {
 
   @Override
   public void sendActivationMail(String email) throws Exception {
-    User user = userRepository.findByEmail(email);
+    User user = findUserByEmail(email);
     if (user == null) {
-      throw new Exception("User not found");
+      throw new NotFoundException("User not found");
     }
 
     emailService.sendActivationEmail(email, user.getId());
@@ -172,7 +201,7 @@ public class UserService implements IUserService {
   @Override
   public void updateUserProfile(long id, User updatedUser) throws Exception {
     User existingUser = userRepository.findById(id)
-            .orElseThrow(() -> new Exception("Utilisateur non trouvé"));
+            .orElseThrow(() -> new NotFoundException("Utilisateur non trouvé"));
 
     if (updatedUser.getFirstName() != null && !updatedUser.getFirstName().isEmpty()) {
       existingUser.setFirstName(updatedUser.getFirstName());
@@ -193,23 +222,23 @@ public class UserService implements IUserService {
   @Transactional
   public void updateUserPassword(long id, String oldPassword, String newPassword) throws Exception {
     User user = userRepository.findById(id)
-            .orElseThrow(() -> new Exception("Utilisateur non trouvé"));
+            .orElseThrow(() -> new NotFoundException("Utilisateur non trouvé"));
 
-    if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
-      throw new Exception("L'ancien mot de passe est incorrect");
+    if (!passwordHasher.matches(oldPassword, user.getPassword())) {
+      throw new AuthenticationFailedException("L'ancien mot de passe est incorrect");
     }
 
-    if (passwordEncoder.matches(newPassword, user.getPassword())) {
-      throw new Exception("Le nouveau mot de passe doit être différent de l'ancien");
+    if (passwordHasher.matches(newPassword, user.getPassword())) {
+      throw new InvalidRequestException("Le nouveau mot de passe doit être différent de l'ancien");
     }
 
     if (passwordRotationService.isPasswordInHistory(user, newPassword)) {
-      throw new Exception("Le nouveau mot de passe ne peut pas être l'un de vos 5 derniers mots de passe");
+      throw new InvalidRequestException("Le nouveau mot de passe ne peut pas être l'un de vos 5 derniers mots de passe");
     }
 
     passwordRotationService.addPasswordToHistory(user, user.getPassword());
 
-    String hashedNewPassword = passwordEncoder.encode(newPassword);
+    String hashedNewPassword = passwordHasher.encode(newPassword);
     user.setPassword(hashedNewPassword);
     user.setPasswordUpdatedAt(new Date());
     userRepository.save(user);
@@ -220,30 +249,30 @@ public class UserService implements IUserService {
   @Override
   @Transactional
   public void renewPassword(String email, String oldPassword, String newPassword) throws Exception {
-    User user = userRepository.findByEmail(email);
+    User user = findUserByEmail(email);
     if (user == null) {
-      throw new Exception("Utilisateur non trouvé");
+      throw new NotFoundException("Utilisateur non trouvé");
     }
 
-    if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
-      throw new Exception("L'ancien mot de passe est incorrect");
+    if (!passwordHasher.matches(oldPassword, user.getPassword())) {
+      throw new AuthenticationFailedException("L'ancien mot de passe est incorrect");
     }
 
-    if (passwordEncoder.matches(newPassword, user.getPassword())) {
-      throw new Exception("Le nouveau mot de passe doit être différent de l'ancien");
+    if (passwordHasher.matches(newPassword, user.getPassword())) {
+      throw new InvalidRequestException("Le nouveau mot de passe doit être différent de l'ancien");
     }
 
     if (passwordRotationService.isPasswordInHistory(user, newPassword)) {
-      throw new Exception("Le nouveau mot de passe ne peut pas être l'un de vos 5 derniers mots de passe");
+      throw new InvalidRequestException("Le nouveau mot de passe ne peut pas être l'un de vos 5 derniers mots de passe");
     }
 
     if (newPassword.length() < 6) {
-      throw new Exception("Le nouveau mot de passe doit contenir au moins 6 caractères");
+      throw new InvalidRequestException("Le nouveau mot de passe doit contenir au moins 6 caractères");
     }
 
     passwordRotationService.addPasswordToHistory(user, user.getPassword());
 
-    String hashedNewPassword = passwordEncoder.encode(newPassword);
+    String hashedNewPassword = passwordHasher.encode(newPassword);
     user.setPassword(hashedNewPassword);
     user.setPasswordUpdatedAt(new Date());
     userRepository.save(user);
@@ -253,9 +282,9 @@ public class UserService implements IUserService {
 
   @Override
   public boolean isPasswordExpired(String email) throws Exception {
-    User user = userRepository.findByEmail(email);
+    User user = findUserByEmail(email);
     if (user == null) {
-      throw new Exception("Utilisateur non trouvé");
+      throw new NotFoundException("Utilisateur non trouvé");
     }
 
     return passwordRotationService.isPasswordExpired(user);
@@ -263,11 +292,30 @@ public class UserService implements IUserService {
 
   @Override
   public long getDaysUntilPasswordExpiration(String email) throws Exception {
-    User user = userRepository.findByEmail(email);
+    User user = findUserByEmail(email);
     if (user == null) {
-      throw new Exception("Utilisateur non trouvé");
+      throw new NotFoundException("Utilisateur non trouvé");
     }
 
     return passwordRotationService.getDaysUntilExpiration(user);
   }
-}
\ No newline at end of file
+
+  // Nom remonté par le pilote : "uk_users_email" ou préfixé par la table selon la base
+  private static boolean isDuplicateEmail(DataIntegrityViolationException e) {
+    return e.getCause() instanceof ConstraintViolationException violation
+            && violation.getConstraintName() != null
+            && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(User.EMAIL_UNIQUE_CONSTRAINT);
+  }
+
+  // Email absent du filtre : inconnu à coup sûr, pas de requête
+  private User findUserByEmail(String email) {
+    if (!emailBloomFilter.mightContain(email)) {
+      return null;
+    }
+    User user = userRepository.findByEmail(email);
+    if (user == null) {
+      emailBloomFilter.recordFalsePositive();
+    }
+    return user;
+  }
+}
@@ -0,0 +1,49 @@
+package fr.ensitech.biblio2.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public final class BookFields {
+
+  private BookFields() {
+  }
+
+  // Colonnes simples de Book ; les associations (auteurs, réservations) ne sont pas projetables
+  private static final Set<String> ALLOWED = Set.of(
+          "id", "isbn", "title", "description", "published", "editor",
+          "publicationDate", "nbPage", "category", "language", "stock");
+
+  /**
+   * Vrai si le paramètre est absent ou ne cite que des champs connus, séparés par des virgules.
+   */
+  public static boolean isValid(String fields) {
+    if (fields == null) {
+      return true;
+    }
+    for (String field : fields.split(",")) {
+      if (!ALLOWED.contains(field.trim())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Champs demandés dans l'ordre, sans doublon, id toujours en tête ; null si le paramètre est absent.
+   */
+  public static List<String> parse(String fields) {
+    if (fields == null) {
+      return null;
+    }
+    List<String> selected = new ArrayList<>();
+    selected.add("id");
+    for (String field : fields.split(",")) {
+      String name = field.trim();
+      if (!selected.contains(name)) {
+        selected.add(name);
+      }
+    }
+    return selected;
+  }
+}
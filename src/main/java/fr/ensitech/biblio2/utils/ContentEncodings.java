@@ -0,0 +1,46 @@
+package fr.ensitech.biblio2.utils;
+
+public final class ContentEncodings {
+
+  private ContentEncodings() {
+  }
+
+  /**
+   * Vrai si l'en-tête Accept-Encoding accepte gzip avec un poids non nul :
+   * "gzip;q=0" refuse gzip, "*" l'accepte sauf si gzip est cité à part.
+   */
+  public static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    float gzip = -1;
+    float wildcard = -1;
+    for (String entry : acceptEncoding.split(",")) {
+      String[] parts = entry.split(";");
+      String coding = parts[0].trim();
+      float quality = quality(parts);
+      if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+        gzip = Math.max(gzip, quality);
+      } else if (coding.equals("*")) {
+        wildcard = Math.max(wildcard, quality);
+      }
+    }
+    return gzip >= 0 ? gzip > 0 : wildcard > 0;
+  }
+
+  // Poids q du codage, 1 par défaut ; une valeur illisible vaut refus
+  private static float quality(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim();
+      if (parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q')
+              && parameter.charAt(1) == '=') {
+        try {
+          return Float.parseFloat(parameter.substring(2).trim());
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+}
@@ -0,0 +1,78 @@
+package fr.ensitech.biblio2.utils;
+
+public final class Isbn {
+
+  private Isbn() {
+  }
+
+  /**
+   * ISBN-10 ou ISBN-13 (tirets et espaces acceptés) converti en ISBN-13 numérique,
+   * ou null si la clé de contrôle est fausse.
+   */
+  public static Long toIsbn13(String isbn) {
+    if (isbn == null) {
+      return null;
+    }
+    StringBuilder digits = new StringBuilder(13);
+    for (int i = 0; i < isbn.length(); i++) {
+      char c = isbn.charAt(i);
+      if (c != '-' && c != ' ') {
+        digits.append(Character.toUpperCase(c));
+      }
+    }
+
+    if (digits.length() == 10) {
+      return fromIsbn10(digits);
+    }
+    if (digits.length() == 13) {
+      return fromIsbn13(digits);
+    }
+    return null;
+  }
+
+  private static Long fromIsbn10(CharSequence digits) {
+    int sum = 0;
+    for (int i = 0; i < 10; i++) {
+      char c = digits.charAt(i);
+      int value;
+      if (c >= '0' && c <= '9') {
+        value = c - '0';
+      } else if (c == 'X' && i == 9) {
+        value = 10;
+      } else {
+        return null;
+      }
+      sum += (10 - i) * value;
+    }
+    if (sum % 11 != 0) {
+      return null;
+    }
+
+    // Préfixe 978, puis nouvelle clé de contrôle ISBN-13
+    long isbn13 = 978;
+    int sum13 = 9 + 3 * 7 + 8;
+    for (int i = 0; i < 9; i++) {
+      int value = digits.charAt(i) - '0';
+      isbn13 = isbn13 * 10 + value;
+      sum13 += (i % 2 == 0 ? 3 : 1) * value;
+    }
+    return isbn13 * 10 + (10 - sum13 % 10) % 10;
+  }
+
+  private static Long fromIsbn13(CharSequence digits) {
+    long isbn13 = 0;
+    int sum = 0;
+    for (int i = 0; i < 13; i++) {
+      char c = digits.charAt(i);
+      if (c < '0' || c > '9') {
+        return null;
+      }
+      isbn13 = isbn13 * 10 + (c - '0');
+      sum += (i % 2 == 0 ? 1 : 3) * (c - '0');
+    }
+    if (sum % 10 != 0 || (isbn13 / 10_000_000_000L != 978 && isbn13 / 10_000_000_000L != 979)) {
+      return null;
+    }
+    return isbn13;
+  }
+}
@@ -0,0 +1,121 @@
+package fr.ensitech.biblio2.utils;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage long -> long à adressage ouvert (sondage linéaire), sans objets ni boxing.
+ * La clé 0 est réservée pour marquer les cases libres. Non synchronisée.
+ */
+public final class LongLongHashMap {
+
+  private static final long FREE = 0L;
+
+  private long[] keys;
+  private long[] values;
+  private int mask;
+  private int size;
+  private int resizeAt;
+
+  public LongLongHashMap(int expectedSize) {
+    allocate(Integer.highestOneBit(Math.max(4, expectedSize * 2) - 1) << 1);
+  }
+
+  /**
+   * Valeur associée à la clé, ou missing si elle est absente.
+   */
+  public long get(long key, long missing) {
+    for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+      long current = keys[slot];
+      if (current == key) {
+        return values[slot];
+      }
+      if (current == FREE) {
+        return missing;
+      }
+    }
+  }
+
+  public void put(long key, long value) {
+    if (key == FREE) {
+      throw new IllegalArgumentException("key must not be 0");
+    }
+    int slot = slot(key);
+    while (keys[slot] != FREE) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size >= resizeAt) {
+      rehash(keys.length * 2);
+    }
+  }
+
+  /**
+   * Supprime la clé en recompactant la suite de cases qui la suit (pas de marqueur de suppression).
+   */
+  public boolean remove(long key) {
+    int slot = slot(key);
+    while (keys[slot] != key) {
+      if (keys[slot] == FREE) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    int hole = slot;
+    for (int next = (hole + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+      int home = slot(keys[next]);
+      // La clé peut remonter dans le trou si sa case d'origine n'est pas entre le trou et elle
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        keys[hole] = keys[next];
+        values[hole] = values[next];
+        hole = next;
+      }
+    }
+    keys[hole] = FREE;
+    values[hole] = 0;
+    size--;
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, FREE);
+    size = 0;
+  }
+
+  private int slot(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new long[capacity];
+    mask = capacity - 1;
+    // Facteur de charge 0,5 : les suites de cases occupées restent courtes
+    resizeAt = capacity / 2;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    long[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != FREE) {
+        int slot = slot(oldKeys[i]);
+        while (keys[slot] != FREE) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package fr.ensitech.biblio2.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * File circulaire bornée, plusieurs producteurs et un seul consommateur, sans verrou.
+ * Un producteur réserve une case par CAS sur la queue puis y dépose l'élément ;
+ * file pleine, offer refuse tout de suite au lieu de bloquer.
+ */
+public final class MpscRingBuffer<E> {
+
+  private final AtomicReferenceArray<E> slots;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  // Écrit par le seul consommateur
+  private volatile long head;
+
+  public MpscRingBuffer(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be greater than 0");
+    }
+    int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+    this.slots = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+  }
+
+  /**
+   * Faux si la file est pleine.
+   */
+  public boolean offer(E element) {
+    while (true) {
+      long claimed = tail.get();
+      if (claimed - head >= slots.length()) {
+        return false;
+      }
+      if (tail.compareAndSet(claimed, claimed + 1)) {
+        slots.set((int) (claimed & mask), element);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Prochain élément, ou null si la file est vide ou si le producteur de la case suivante
+   * ne l'a pas encore remplie. Réservé au thread consommateur.
+   */
+  public E poll() {
+    int index = (int) (head & mask);
+    E element = slots.get(index);
+    if (element == null) {
+      return null;
+    }
+    // Case vidée avant d'avancer la tête : un producteur qui la réserve ensuite la trouve libre
+    slots.set(index, null);
+    head = head + 1;
+    return element;
+  }
+
+  public int capacity() {
+    return slots.length();
+  }
+
+  public int size() {
+    return (int) Math.max(0, tail.get() - head);
+  }
+}
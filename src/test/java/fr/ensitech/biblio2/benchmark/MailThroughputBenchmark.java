@@ -0,0 +1,106 @@
+package fr.ensitech.biblio2.benchmark;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import fr.ensitech.biblio2.service.ErrorReporter;
+import fr.ensitech.biblio2.service.SmtpMailDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mails envoyés par seconde vers un serveur SMTP local (GreenMail) :
+ * une connexion par mail, un lot sur une connexion (JavaMailSender), et la file de SmtpMailDispatcher.
+ *
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark=MailThroughputBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MailThroughputBenchmark {
+
+  private static final int BATCH = 100;
+
+  private GreenMail greenMail;
+  private JavaMailSenderImpl mailSender;
+  private SmtpMailDispatcher dispatcher;
+  private SimpleMailMessage[] messages;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    greenMail = new GreenMail(ServerSetupTest.SMTP);
+    greenMail.start();
+
+    mailSender = new JavaMailSenderImpl();
+    mailSender.setHost("localhost");
+    mailSender.setPort(ServerSetupTest.SMTP.getPort());
+    dispatcher = new SmtpMailDispatcher(mailSender,
+            new ErrorReporter(1024, 5, 100, 10_000, 1000, new SimpleMeterRegistry()), 2, 50, 30_000, 10_000);
+
+    messages = new SimpleMailMessage[BATCH];
+    for (int i = 0; i < BATCH; i++) {
+      SimpleMailMessage message = new SimpleMailMessage();
+      message.setFrom("dev.kentin@gmail.com");
+      message.setTo("lecteur" + i + "@example.com");
+      message.setSubject("Confirmation de réservation - Biblio");
+      message.setText("Livre : Le Petit Prince");
+      messages[i] = message;
+    }
+  }
+
+  @TearDown(Level.Invocation)
+  public void purge() throws Exception {
+    greenMail.purgeEmailFromAllMailboxes();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    dispatcher.shutdown();
+    greenMail.stop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public void connectionPerMail() {
+    for (SimpleMailMessage message : messages) {
+      mailSender.send(message);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public void batchOnOneConnection() {
+    mailSender.send(messages);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public void pooledDispatcher() {
+    for (SimpleMailMessage message : messages) {
+      dispatcher.enqueue(message);
+    }
+    if (!greenMail.waitForIncomingEmail(10_000, BATCH)) {
+      throw new IllegalStateException("Mails non reçus par GreenMail");
+    }
+  }
+}
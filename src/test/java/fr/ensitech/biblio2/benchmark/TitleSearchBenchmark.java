@@ -0,0 +1,114 @@
+package fr.ensitech.biblio2.benchmark;
+
+import fr.ensitech.biblio2.repository.IBookRepository;
+import fr.ensitech.biblio2.service.TitleTrigramIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Latence de la recherche approchée par titre sur un catalogue synthétique.
+ *
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark=TitleSearchBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class TitleSearchBenchmark {
+
+  private static final String[] SYLLABLES = {
+          "la", "ma", "ri", "so", "teu", "nu", "pre", "lon", "ville", "mer", "chan", "beau",
+          "tor", "gue", "mon", "cha", "dou", "fer", "ni", "vo", "ran", "jar", "din", "cour"
+  };
+
+  @Param({"1000000"})
+  private int titles;
+
+  private TitleTrigramIndex index;
+  private String[] exactQueries;
+  private String[] misspelledQueries;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(42);
+    List<Object[]> rows = new ArrayList<>(titles);
+    for (int i = 0; i < titles; i++) {
+      rows.add(new Object[]{(long) i + 1, title(random)});
+    }
+    IBookRepository bookRepository = mock(IBookRepository.class);
+    when(bookRepository.findTitles()).thenReturn(rows);
+
+    index = new TitleTrigramIndex();
+    ReflectionTestUtils.setField(index, "bookRepository", bookRepository);
+    index.load();
+
+    exactQueries = new String[1024];
+    misspelledQueries = new String[1024];
+    for (int i = 0; i < exactQueries.length; i++) {
+      String title = (String) rows.get(random.nextInt(titles))[1];
+      exactQueries[i] = title;
+      misspelledQueries[i] = misspell(title, random);
+    }
+  }
+
+  @Benchmark
+  public List<TitleTrigramIndex.Match> exactTitle() {
+    return index.search(exactQueries[next++ & 1023], 0, 20);
+  }
+
+  @Benchmark
+  public List<TitleTrigramIndex.Match> misspelledTitle() {
+    return index.search(misspelledQueries[next++ & 1023], 2, 20);
+  }
+
+  // Deux à quatre mots de deux à trois syllabes
+  private static String title(Random random) {
+    StringBuilder title = new StringBuilder();
+    int words = 2 + random.nextInt(3);
+    for (int w = 0; w < words; w++) {
+      if (w > 0) {
+        title.append(' ');
+      }
+      int syllables = 2 + random.nextInt(2);
+      for (int s = 0; s < syllables; s++) {
+        title.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+      }
+    }
+    return title.toString();
+  }
+
+  // Une lettre remplacée et deux lettres voisines inversées
+  private static String misspell(String title, Random random) {
+    char[] chars = title.toCharArray();
+    chars[random.nextInt(chars.length)] = (char) ('a' + random.nextInt(26));
+    int swap = random.nextInt(chars.length - 1);
+    char c = chars[swap];
+    chars[swap] = chars[swap + 1];
+    chars[swap + 1] = c;
+    return new String(chars);
+  }
+}
@@ -0,0 +1,46 @@
+package fr.ensitech.biblio2.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Limiteur de concurrence JDBC (mode threads virtuels)")
+class JdbcConcurrencyLimiterTest {
+
+  private JdbcConcurrencyLimiter.PermitLimitedDataSource dataSource;
+
+  @BeforeEach
+  void setUp() {
+    JdbcDataSource h2 = new JdbcDataSource();
+    h2.setURL("jdbc:h2:mem:limiter;DB_CLOSE_DELAY=-1");
+    dataSource = new JdbcConcurrencyLimiter.PermitLimitedDataSource(h2, 2, 50);
+  }
+
+  @Test
+  @DisplayName("Devrait refuser une connexion au-delà de la taille du pool")
+  void shouldRejectConnectionBeyondPoolSize() throws Exception {
+    try (Connection first = dataSource.getConnection();
+         Connection second = dataSource.getConnection()) {
+      assertThat(dataSource.availablePermits()).isZero();
+      assertThatThrownBy(dataSource::getConnection)
+              .isInstanceOf(SQLTransientConnectionException.class);
+    }
+    assertThat(dataSource.availablePermits()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Devrait rendre le permis une seule fois même si la connexion est fermée deux fois")
+  void shouldReleasePermitOnlyOnce() throws Exception {
+    Connection connection = dataSource.getConnection();
+    connection.close();
+    connection.close();
+
+    assertThat(dataSource.availablePermits()).isEqualTo(2);
+  }
+}
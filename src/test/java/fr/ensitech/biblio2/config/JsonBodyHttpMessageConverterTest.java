@@ -0,0 +1,71 @@
+package fr.ensitech.biblio2.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.ensitech.biblio2.dto.JsonConstant;
+import fr.ensitech.biblio2.dto.MessageResponse;
+import fr.ensitech.biblio2.dto.PasswordStatusResponse;
+import fr.ensitech.biblio2.dto.ReservationResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Écriture des réponses JSON typées")
+class JsonBodyHttpMessageConverterTest {
+
+  private final JsonBodyHttpMessageConverter converter = new JsonBodyHttpMessageConverter();
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  @DisplayName("Devrait échapper un message d'erreur contenant guillemets et retours à la ligne")
+  void shouldEscapeDynamicMessage() throws Exception {
+    // Given
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+    // When
+    converter.write(new MessageResponse("Erreur lors de la réservation: colonne \"stock\"\ninconnue"),
+            MediaType.APPLICATION_JSON, output);
+
+    // Then
+    JsonNode json = objectMapper.readTree(output.getBodyAsBytes());
+    assertThat(json.get("message").asText()).isEqualTo("Erreur lors de la réservation: colonne \"stock\"\ninconnue");
+    assertThat(output.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+  }
+
+  @Test
+  @DisplayName("Devrait recopier un corps précalculé avec sa longueur")
+  void shouldCopyConstantBody() throws Exception {
+    // Given
+    JsonConstant constant = JsonConstant.of(new PasswordStatusResponse(true, 0, "Votre mot de passe a expiré."));
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+    // When
+    converter.write(constant, MediaType.APPLICATION_JSON, output);
+
+    // Then
+    JsonNode json = objectMapper.readTree(output.getBodyAsBytes());
+    assertThat(json.get("expired").asBoolean()).isTrue();
+    assertThat(json.get("daysRemaining").asLong()).isZero();
+    assertThat(json.get("message").asText()).isEqualTo("Votre mot de passe a expiré.");
+    assertThat(output.getHeaders().getContentLength()).isEqualTo(constant.length());
+  }
+
+  @Test
+  @DisplayName("Devrait produire les mêmes champs que la sérialisation Jackson du record")
+  void shouldMatchJacksonRecordSerialization() throws Exception {
+    // Given
+    ReservationResponse response = new ReservationResponse("Livre réservé avec succès", 42L);
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+    // When
+    converter.write(response, MediaType.APPLICATION_JSON, output);
+
+    // Then
+    assertThat(objectMapper.readTree(output.getBodyAsBytes())).isEqualTo(objectMapper.valueToTree(response));
+    assertThat(converter.canRead(ReservationResponse.class, MediaType.APPLICATION_JSON)).isFalse();
+    assertThat(converter.canWrite(String.class, MediaType.APPLICATION_JSON)).isFalse();
+  }
+}
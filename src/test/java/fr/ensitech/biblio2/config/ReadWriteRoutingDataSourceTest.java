@@ -0,0 +1,144 @@
+package fr.ensitech.biblio2.config;
+
+import jakarta.servlet.http.Cookie;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Routage lecture/écriture avec deux bases H2 jouant le primaire et le réplica.
+ */
+@DisplayName("Routage lecture/écriture primaire / réplica")
+class ReadWriteRoutingDataSourceTest {
+
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate readWrite;
+  private TransactionTemplate readOnly;
+
+  @BeforeEach
+  void setUp() {
+    DataSource primary = h2("routing_primary", "primary");
+    DataSource replica = h2("routing_replica", "replica");
+
+    ReadWriteRoutingDataSource routing =
+            new ReadWriteRoutingDataSource(primary, replica, new ReadYourWritesStickiness(Duration.ofSeconds(5)));
+    routing.afterPropertiesSet();
+    DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+    readWrite = new TransactionTemplate(transactionManager);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+  }
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  @DisplayName("Devrait lire sur le réplica dans une transaction en lecture seule")
+  void shouldReadFromReplicaInReadOnlyTransaction() {
+    assertThat(readOnly.execute(status -> currentDatabase())).isEqualTo("replica");
+  }
+
+  @Test
+  @DisplayName("Devrait utiliser le primaire dans une transaction en écriture")
+  void shouldUsePrimaryInReadWriteTransaction() {
+    assertThat(readWrite.execute(status -> currentDatabase())).isEqualTo("primary");
+  }
+
+  @Test
+  @DisplayName("Devrait relire sur le primaire quand le client renvoie le cookie posé après une écriture")
+  void shouldStickToPrimaryAfterCommittedWrite() {
+    // Given
+    MockHttpServletRequest firstRequest = new MockHttpServletRequest();
+    MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(firstRequest, firstResponse));
+
+    // When
+    readWrite.executeWithoutResult(status -> jdbcTemplate.update("update marker set name = name"));
+
+    // Then : pas de session HTTP, seulement un cookie de courte durée et l'en-tête
+    assertThat(firstRequest.getSession(false)).isNull();
+    Cookie cookie = firstResponse.getCookie(ReadYourWritesStickiness.COOKIE);
+    assertThat(cookie).isNotNull();
+    assertThat(cookie.getMaxAge()).isEqualTo(5);
+    assertThat(firstResponse.getHeader(ReadYourWritesStickiness.HEADER)).isEqualTo(cookie.getValue());
+    assertThat(readOnly.execute(status -> currentDatabase())).isEqualTo("primary");
+
+    MockHttpServletRequest withCookie = new MockHttpServletRequest();
+    withCookie.setCookies(cookie);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(withCookie));
+    assertThat(readOnly.execute(status -> currentDatabase())).isEqualTo("primary");
+
+    MockHttpServletRequest withHeader = new MockHttpServletRequest();
+    withHeader.addHeader(ReadYourWritesStickiness.HEADER, cookie.getValue());
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(withHeader));
+    assertThat(readOnly.execute(status -> currentDatabase())).isEqualTo("primary");
+
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    assertThat(readOnly.execute(status -> currentDatabase())).isEqualTo("replica");
+  }
+
+  @Test
+  @DisplayName("Ne devrait rien marquer après une transaction en écriture qui n'a fait que lire ou a été annulée")
+  void shouldNotMarkReadOnlyOrRolledBackTransactions() {
+    // Given
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+
+    // When
+    readWrite.execute(status -> currentDatabase());
+    readWrite.executeWithoutResult(status -> {
+      jdbcTemplate.update("update marker set name = name");
+      status.setRollbackOnly();
+    });
+
+    // Then
+    assertThat(response.getCookies()).isEmpty();
+    assertThat(response.getHeader(ReadYourWritesStickiness.HEADER)).isNull();
+    assertThat(request.getSession(false)).isNull();
+    assertThat(readOnly.execute(status -> currentDatabase())).isEqualTo("replica");
+  }
+
+  @Test
+  @DisplayName("Devrait distinguer les lectures des écritures, commentaires Hibernate compris")
+  void shouldClassifySqlStatements() {
+    assertThat(ReadWriteRoutingDataSource.isWrite("  select * from book")).isFalse();
+    assertThat(ReadWriteRoutingDataSource.isWrite("/* load Book */ SELECT b1_0.id from book b1_0")).isFalse();
+    assertThat(ReadWriteRoutingDataSource.isWrite("insert into reservation values (?)")).isTrue();
+    assertThat(ReadWriteRoutingDataSource.isWrite("/* update Book */ update book set stock=?")).isTrue();
+  }
+
+  private String currentDatabase() {
+    return jdbcTemplate.queryForObject("select name from marker", String.class);
+  }
+
+  private static DataSource h2(String database, String marker) {
+    JdbcDataSource dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+    JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+    jdbc.execute("create table if not exists marker (name varchar(16))");
+    jdbc.update("delete from marker");
+    jdbc.update("insert into marker values (?)", marker);
+    return dataSource;
+  }
+}
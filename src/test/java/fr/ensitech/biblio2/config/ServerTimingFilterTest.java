@@ -0,0 +1,100 @@
+package fr.ensitech.biblio2.config;
+
+import fr.ensitech.biblio2.config.RequestTimings.Metric;
+import fr.ensitech.biblio2.dto.MessageResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests unitaires - Server-Timing")
+class ServerTimingFilterTest {
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  @DisplayName("Devrait annoncer le temps total d'une réponse sans corps")
+  void shouldSetHeaderOnBodylessResponse() throws Exception {
+    // Given
+    ServerTimingFilter filter = new ServerTimingFilter(true, true, 0);
+    MockHttpServletRequest request = new MockHttpServletRequest("DELETE", "/api/books/1");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // When
+    filter.doFilter(request, response, new MockFilterChain());
+
+    // Then
+    assertThat(response.getHeader(RequestTimings.HEADER)).startsWith("total;dur=");
+    assertThat(request.getAttribute(RequestTimings.ATTRIBUTE)).isInstanceOf(RequestTimings.class);
+  }
+
+  @Test
+  @DisplayName("Ne devrait rien mesurer quand l'en-tête est désactivé")
+  void shouldSkipWhenDisabled() throws Exception {
+    // Given
+    ServerTimingFilter filter = new ServerTimingFilter(false, true, 0);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // When
+    filter.doFilter(request, response, new MockFilterChain());
+
+    // Then
+    assertThat(response.getHeader(RequestTimings.HEADER)).isNull();
+    assertThat(request.getAttribute(RequestTimings.ATTRIBUTE)).isNull();
+  }
+
+  @Test
+  @DisplayName("Ne devrait pas exposer l'en-tête par défaut tout en mesurant la requête")
+  void shouldMeasureWithoutExposingHeader() throws Exception {
+    // Given
+    ServerTimingFilter filter = new ServerTimingFilter(true, false, 0);
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users/login");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // When
+    filter.doFilter(request, response, new MockFilterChain());
+
+    // Then
+    assertThat(response.getHeader(RequestTimings.HEADER)).isNull();
+    assertThat(request.getAttribute(RequestTimings.ATTRIBUTE)).isInstanceOf(RequestTimings.class);
+  }
+
+  @Test
+  @DisplayName("Devrait détailler base et BCrypt avant d'écrire le corps JSON, la sérialisation étant mesurée après")
+  void shouldWriteBreakdownBeforeBody() throws Exception {
+    // Given
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users/login");
+    RequestTimings timings = new RequestTimings(System.nanoTime(), true);
+    request.setAttribute(RequestTimings.ATTRIBUTE, timings);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    timings.add(Metric.DB, TimeUnit.MILLISECONDS.toNanos(12));
+    timings.add(Metric.DB, TimeUnit.MICROSECONDS.toNanos(300));
+    timings.add(Metric.BCRYPT, TimeUnit.MILLISECONDS.toNanos(80));
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+    // When
+    new JsonBodyHttpMessageConverter().write(new MessageResponse("Connexion réussie"), MediaType.APPLICATION_JSON, output);
+
+    // Then
+    String header = output.getHeaders().getFirst(RequestTimings.HEADER);
+    assertThat(header).startsWith("db;dur=12.3;desc=\"JPA\", bcrypt;dur=80.0;desc=\"BCrypt\", total;dur=");
+    assertThat(header).doesNotContain("mail;").doesNotContain("ser;");
+    assertThat(timings.getCount(Metric.DB)).isEqualTo(2);
+    assertThat(timings.getCount(Metric.SERIALIZATION)).isEqualTo(1);
+    assertThat(output.getBodyAsString()).contains("Connexion réussie");
+  }
+}
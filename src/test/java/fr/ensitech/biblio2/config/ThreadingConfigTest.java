@@ -0,0 +1,61 @@
+package fr.ensitech.biblio2.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Propagation du contexte de requête vers requestExecutor")
+class ThreadingConfigTest {
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  @DisplayName("Devrait exposer la requête à la tâche puis rendre au thread son propre contexte")
+  void shouldRestorePreviousAttributes() {
+    // Given
+    RequestAttributes submitting = new ServletRequestAttributes(new MockHttpServletRequest("PUT", "/api/books/reserver/1/a"));
+    RequestContextHolder.setRequestAttributes(submitting);
+    AtomicReference<RequestAttributes> seen = new AtomicReference<>();
+    Runnable task = ThreadingConfig.withRequestAttributes(() -> seen.set(RequestContextHolder.getRequestAttributes()));
+
+    // When : exécutée sur un thread qui sert lui-même une autre requête
+    RequestAttributes running = new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/books/all"));
+    RequestContextHolder.setRequestAttributes(running);
+    task.run();
+
+    // Then
+    assertThat(seen.get()).isSameAs(submitting);
+    assertThat(RequestContextHolder.getRequestAttributes()).isSameAs(running);
+  }
+
+  @Test
+  @DisplayName("Devrait laisser un thread du pool sans contexte après la tâche")
+  void shouldClearAttributesOnPoolThread() throws Exception {
+    // Given
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    Runnable task = ThreadingConfig.withRequestAttributes(() -> { });
+    AtomicReference<RequestAttributes> after = new AtomicReference<>(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+    // When
+    Thread worker = new Thread(() -> {
+      task.run();
+      after.set(RequestContextHolder.getRequestAttributes());
+    });
+    worker.start();
+    worker.join();
+
+    // Then
+    assertThat(after.get()).isNull();
+  }
+}
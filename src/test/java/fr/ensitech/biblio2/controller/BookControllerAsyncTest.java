@@ -0,0 +1,167 @@
+package fr.ensitech.biblio2.controller;
+
+import fr.ensitech.biblio2.config.JsonBodyHttpMessageConverter;
+import fr.ensitech.biblio2.config.ThreadingConfig;
+import fr.ensitech.biblio2.entity.Reservation;
+import fr.ensitech.biblio2.exception.ConflictException;
+import fr.ensitech.biblio2.service.CatalogSnapshotService;
+import fr.ensitech.biblio2.service.CatalogVersionService;
+import fr.ensitech.biblio2.service.ErrorReporter;
+import fr.ensitech.biblio2.service.IBookService;
+import fr.ensitech.biblio2.service.IReservationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Contrôleur asynchrone monté avec le vrai requestExecutor et ApiExceptionHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires - endpoints asynchrones de BookController")
+class BookControllerAsyncTest {
+
+  @Mock
+  private IBookService bookService;
+
+  @Mock
+  private IReservationService reservationService;
+
+  @Mock
+  private CatalogVersionService catalogVersionService;
+
+  @Mock
+  private CatalogSnapshotService catalogSnapshotService;
+
+  @Mock
+  private ErrorReporter errorReporter;
+
+  @InjectMocks
+  private BookController bookController;
+
+  private ThreadPoolTaskExecutor requestExecutor;
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    // Un seul thread, sans file : la deuxième requête simultanée sature l'exécuteur
+    requestExecutor = new ThreadingConfig().requestExecutor(1, 0);
+    requestExecutor.initialize();
+    ReflectionTestUtils.setField(bookController, "requestExecutor", requestExecutor);
+    mockMvc = MockMvcBuilders.standaloneSetup(bookController)
+            .setControllerAdvice(new ApiExceptionHandler())
+            .setMessageConverters(new JsonBodyHttpMessageConverter(), new MappingJackson2HttpMessageConverter())
+            .build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    requestExecutor.shutdown();
+  }
+
+  @Test
+  @DisplayName("Devrait répondre 200 une fois la réservation terminée sur requestExecutor")
+  void shouldCompleteReservationAsynchronously() throws Exception {
+    // Given
+    Reservation reservation = new Reservation();
+    reservation.setId(42L);
+    when(reservationService.reserveBook(1L, "john.doe@test.com")).thenReturn(reservation);
+
+    // When
+    MvcResult result = mockMvc.perform(put("/api/books/reserver/1/john.doe@test.com"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.reservationId").value(42))
+            .andExpect(jsonPath("$.message").value("Livre réservé avec succès"));
+  }
+
+  @Test
+  @DisplayName("Devrait traduire un refus métier levé dans supplyAsync par ApiExceptionHandler")
+  void shouldMapBusinessExceptionThrownInsideSupplyAsync() throws Exception {
+    // Given
+    when(reservationService.reserveBook(1L, "john.doe@test.com"))
+            .thenThrow(new ConflictException("Vous avez déjà réservé ce livre"));
+
+    // When
+    MvcResult result = mockMvc.perform(put("/api/books/reserver/1/john.doe@test.com"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.message").value("Vous avez déjà réservé ce livre"));
+    verify(errorReporter, never()).report(anyString(), any());
+  }
+
+  @Test
+  @DisplayName("Devrait répondre 500 avec un message fixe sans exposer l'erreur interne")
+  void shouldHideUnexpectedErrorMessage() throws Exception {
+    // Given
+    IllegalStateException failure = new IllegalStateException("Deadlock found when trying to get lock on table reservations");
+    when(reservationService.reserveBook(1L, "john.doe@test.com")).thenThrow(failure);
+
+    // When
+    MvcResult result = mockMvc.perform(put("/api/books/reserver/1/john.doe@test.com"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isInternalServerError())
+            .andExpect(jsonPath("$.message").value("Erreur lors de la réservation"));
+    verify(errorReporter, times(1)).report("BookController.reserveBook", failure);
+  }
+
+  @Test
+  @DisplayName("Devrait répondre 503 avec Retry-After quand requestExecutor est saturé, sans travailler sur le thread du conteneur")
+  void shouldRejectWith503WhenExecutorIsSaturated() throws Exception {
+    // Given : la première réservation occupe l'unique thread
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Reservation reservation = new Reservation();
+    reservation.setId(7L);
+    when(reservationService.reserveBook(1L, "first@test.com")).thenAnswer(invocation -> {
+      started.countDown();
+      release.await();
+      return reservation;
+    });
+    MvcResult first = mockMvc.perform(put("/api/books/reserver/1/first@test.com"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    started.await();
+
+    // When / Then
+    mockMvc.perform(put("/api/books/reserver/2/second@test.com"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    verify(reservationService, never()).reserveBook(2L, "second@test.com");
+
+    release.countDown();
+    mockMvc.perform(asyncDispatch(first))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.reservationId").value(7));
+  }
+}
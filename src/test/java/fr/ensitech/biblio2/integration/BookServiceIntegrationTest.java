@@ -1,5 +1,6 @@
 package fr.ensitech.biblio2.integration;
 
+import fr.ensitech.biblio2.dto.BookBatchResponse;
 import fr.ensitech.biblio2.entity.Author;
 import fr.ensitech.biblio2.entity.Book;
 import fr.ensitech.biblio2.repository.IBookRepository;
@@ -17,6 +18,7 @@ import static org.assertj.core.api.Assertions.*;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @SpringBootTest
@@ -427,4 +429,67 @@ public class BookServiceIntegrationTest {
     assertThat(books).isNotEmpty();
     assertThat(books.get(0).getTitle()).isEqualTo("Livre de Java");
   }
-}
\ No newline at end of file
+
+  @Test
+  @DisplayName("Le cache de requête des livres publiés est invalidé par l'ajout et la suppression")
+  void shouldInvalidatePublishedQueryCacheOnWrites() throws Exception {
+    //GIVEN
+    bookService.addOrUpdateBook(validBook);
+    assertThat(bookService.getBooksByPublished(true)).hasSize(1);
+
+    Book book2 = new Book();
+    book2.setTitle("Livre de Spring");
+    book2.setDescription("Cours Spring Boot");
+    book2.setIsbn("9785555555555");
+    book2.setEditor("Editions Spring");
+    book2.setCategory("Informatique");
+    book2.setNbPage((short) 210);
+    book2.setLanguage("FR");
+    book2.setPublished(true);
+    book2.setPublicationDate(Dates.convertStringToDate("01/06/2021"));
+    book2.setStock(3);
+
+    //WHEN
+    bookService.addOrUpdateBook(book2);
+
+    //THEN
+    assertThat(bookService.getBooksByPublished(true)).extracting(Book::getTitle)
+            .containsExactlyInAnyOrder("Livre de Java", "Livre de Spring");
+
+    bookService.deleteBook(validBook.getId());
+    assertThat(bookService.getBooksByPublished(true)).extracting(Book::getTitle)
+            .containsExactly("Livre de Spring");
+  }
+
+  @Test
+  @DisplayName("Récupération de plusieurs livres par ids en une requête, ids inconnus signalés à part")
+  void shouldGetBooksByIdsAndReportMissing() throws Exception {
+    //GIVEN
+    bookService.addOrUpdateBook(validBook);
+    long unknownId = validBook.getId() + 1000;
+
+    //WHEN
+    BookBatchResponse response = bookService.getBooksByIds(List.of(unknownId, validBook.getId(), validBook.getId()));
+
+    //THEN
+    assertThat(response.getBooks()).extracting(Book::getTitle).containsExactly("Livre de Java");
+    assertThat(response.getMissingIds()).containsExactly(unknownId);
+  }
+
+  @Test
+  @DisplayName("Recherche par titre contenant ne renvoie que les champs demandés")
+  void shouldProjectRequestedFieldsOnly() throws Exception {
+    //GIVEN
+    bookService.addOrUpdateBook(validBook);
+
+    //WHEN
+    List<Map<String, Object>> books = bookService.getBooksByTitleContaining("de ja", List.of("id", "title", "isbn"));
+
+    //THEN
+    assertThat(books).hasSize(1);
+    assertThat(books.get(0)).containsOnlyKeys("id", "title", "isbn")
+            .containsEntry("id", validBook.getId())
+            .containsEntry("title", "Livre de Java");
+    assertThat(bookService.getBooksByTitleContaining("100%", List.of("id"))).isEmpty();
+  }
+}
@@ -0,0 +1,157 @@
+package fr.ensitech.biblio2.integration;
+
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.entity.User;
+import fr.ensitech.biblio2.exception.ConflictException;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import fr.ensitech.biblio2.repository.IReservationRepository;
+import fr.ensitech.biblio2.repository.IUserRepository;
+import fr.ensitech.biblio2.service.ReservationService;
+import fr.ensitech.biblio2.utils.Dates;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Réservations concurrentes contre la vraie base : pas de @Transactional sur la classe,
+ * chaque réservation valide sa propre transaction comme en production.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class ReservationConcurrencyIntegrationTest {
+
+  private static final int THREADS = 8;
+
+  @Autowired
+  private ReservationService reservationService;
+
+  @Autowired
+  private IReservationRepository reservationRepository;
+
+  @Autowired
+  private IUserRepository userRepository;
+
+  @Autowired
+  private IBookRepository bookRepository;
+
+  @MockitoBean
+  private JavaMailSender mailSender;
+
+  private Book testBook;
+  private final List<User> users = new ArrayList<>();
+
+  @BeforeEach
+  @SneakyThrows
+  void setUp() {
+    cleanUp();
+
+    for (int i = 0; i < THREADS; i++) {
+      User user = new User();
+      user.setFirstName("Lecteur" + i);
+      user.setLastName("CONCURRENT");
+      user.setEmail("lecteur" + i + ".concurrent@example.com");
+      user.setPassword("$2a$10$abcdefghijklmnopqrstuuCzCmmOnJ6wSHfBbFVW6H7bxa0xWNa2");
+      user.setRole("U");
+      user.setActive(true);
+      users.add(userRepository.save(user));
+    }
+
+    testBook = new Book();
+    testBook.setTitle("Le Comte de Monte-Cristo");
+    testBook.setDescription("Roman d'aventures");
+    testBook.setIsbn("9782070405374");
+    testBook.setEditor("Folio");
+    testBook.setCategory("Littérature");
+    testBook.setNbPage((short) 1200);
+    testBook.setLanguage("FR");
+    testBook.setPublished(true);
+    testBook.setPublicationDate(Dates.convertStringToDate("01/01/1844"));
+    testBook.setStock(2);
+    testBook = bookRepository.save(testBook);
+  }
+
+  @AfterEach
+  void tearDown() {
+    cleanUp();
+    users.clear();
+  }
+
+  @Test
+  @DisplayName("Des lecteurs simultanés ne devraient pas dépasser le stock du livre")
+  void shouldNotOverbookUnderConcurrentReservations() throws Exception {
+    // When
+    List<Object> outcomes = race(users.stream().map(User::getEmail).toList());
+
+    // Then
+    assertThat(outcomes).filteredOn(outcome -> outcome == null).hasSize(2);
+    assertThat(outcomes).filteredOn(outcome -> outcome instanceof ConflictException).hasSize(THREADS - 2);
+    assertThat(reservationRepository.findByBookAndStatus(testBook, "ACTIVE")).hasSize(2);
+  }
+
+  @Test
+  @DisplayName("Un même lecteur réservant plusieurs fois en parallèle ne devrait obtenir qu'une réservation")
+  void shouldNotDoubleBookSameUserUnderConcurrentReservations() throws Exception {
+    // Given
+    String email = users.get(0).getEmail();
+
+    // When
+    List<Object> outcomes = race(List.of(email, email, email, email));
+
+    // Then
+    assertThat(outcomes).filteredOn(outcome -> outcome == null).hasSize(1);
+    assertThat(outcomes).filteredOn(outcome -> outcome instanceof ConflictException).hasSize(3);
+    assertThat(reservationRepository.countActiveReservationsByUserAndBook(users.get(0).getId(), testBook.getId()))
+            .isEqualTo(1);
+  }
+
+  // null pour une réservation acceptée, l'exception sinon
+  private List<Object> race(List<String> emails) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(emails.size());
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<Object>> futures = new ArrayList<>();
+      for (String email : emails) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          try {
+            reservationService.reserveBook(testBook.getId(), email);
+            return null;
+          } catch (Exception e) {
+            return e;
+          }
+        }));
+      }
+      start.countDown();
+      List<Object> outcomes = new ArrayList<>();
+      for (Future<Object> future : futures) {
+        outcomes.add(future.get(30, TimeUnit.SECONDS));
+      }
+      return outcomes;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void cleanUp() {
+    reservationRepository.deleteAll();
+    bookRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+}
@@ -7,7 +7,10 @@ import fr.ensitech.biblio2.repository.IPasswordHistoryRepository;
 import fr.ensitech.biblio2.repository.IUserRepository;
 import fr.ensitech.biblio2.service.SecurityAnswerService;
 import fr.ensitech.biblio2.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -44,6 +47,9 @@ public class UserServiceIntegrationTest {
   @Autowired
   private SecurityAnswerService securityAnswerService;
 
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
   @MockitoBean
   private JavaMailSender mailSender;
 
@@ -140,6 +146,28 @@ public class UserServiceIntegrationTest {
             .hasMessageContaining("User already exists");
   }
 
+  @Test
+  @DisplayName("Création d'utilisateur en deux requêtes SQL avec envoi du mail d'activation")
+  void shouldCreateUserInTwoStatements() throws Exception {
+    //GIVEN
+    User user = createValidUser("test@example.com", "Test", "USER");
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
+
+    //WHEN
+    userService.createUser(user);
+
+    //THEN
+    // INSERT users + INSERT password_history, aucun SELECT
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    assertThat(statistics.getEntityInsertCount()).isEqualTo(2);
+    assertThat(statistics.getQueryExecutionCount()).isZero();
+    verify(mailSender, times(1)).send(messageCaptor.capture());
+    assertThat(messageCaptor.getValue().getTo()).containsExactly("test@example.com");
+    assertThat(messageCaptor.getValue().getText()).contains("/api/users/activate/" + user.getId());
+  }
+
   @Test
   @DisplayName("Création d'utilisateur sans question de sécurité doit lever une exception")
   void shouldThrowExceptionWhenCreatingUserWithoutSecurityQuestion() {
@@ -719,6 +747,7 @@ public class UserServiceIntegrationTest {
     User user = createValidUser("test@example.com", "Test", "USER");
     userService.createUser(user);
     User savedUser = userRepository.findByEmail("test@example.com");
+    reset(mailSender);
 
     //WHEN & THEN
     assertThatThrownBy(() -> userService.updateUserPassword(savedUser.getId(), "WrongPassword", "NewPassword123!"))
@@ -736,6 +765,7 @@ public class UserServiceIntegrationTest {
     String password = user.getPassword();
     userService.createUser(user);
     User savedUser = userRepository.findByEmail("test@example.com");
+    reset(mailSender);
 
     //WHEN & THEN
     assertThatThrownBy(() -> userService.updateUserPassword(savedUser.getId(), password, password))
@@ -792,6 +822,7 @@ public class UserServiceIntegrationTest {
     User user = createValidUser("test@example.com", "Test", "USER");
     String oldPassword = user.getPassword();
     userService.createUser(user);
+    reset(mailSender);
 
     //WHEN & THEN
     assertThatThrownBy(() -> userService.renewPassword("test@example.com", oldPassword, "12345"))
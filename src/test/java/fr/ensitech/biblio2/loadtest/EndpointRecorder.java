@@ -0,0 +1,73 @@
+package fr.ensitech.biblio2.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latences (en microsecondes) et codes retour d'un endpoint pendant le tir.
+ */
+public class EndpointRecorder {
+
+  private final String name;
+  private final Recorder recorder = new Recorder(3);
+  private final LongAdder successes = new LongAdder();
+  private final LongAdder clientErrors = new LongAdder();
+  private final LongAdder serverErrors = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+
+  public EndpointRecorder(String name) {
+    this.name = name;
+  }
+
+  public void record(long latencyNanos, int status) {
+    recorder.recordValue(Math.max(1, latencyNanos / 1_000));
+    if (status < 400) {
+      successes.increment();
+    } else if (status < 500) {
+      clientErrors.increment();
+    } else {
+      serverErrors.increment();
+    }
+  }
+
+  public void recordFailure() {
+    failures.increment();
+  }
+
+  /**
+   * Oublie tout ce qui a été mesuré pendant la chauffe.
+   */
+  public void reset() {
+    recorder.reset();
+    successes.reset();
+    clientErrors.reset();
+    serverErrors.reset();
+    failures.reset();
+  }
+
+  public Histogram snapshot() {
+    return recorder.getIntervalHistogram();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getSuccesses() {
+    return successes.sum();
+  }
+
+  public long getClientErrors() {
+    return clientErrors.sum();
+  }
+
+  public long getServerErrors() {
+    return serverErrors.sum();
+  }
+
+  public long getFailures() {
+    return failures.sum();
+  }
+}
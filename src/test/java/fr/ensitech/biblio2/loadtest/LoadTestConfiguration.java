@@ -0,0 +1,24 @@
+package fr.ensitech.biblio2.loadtest;
+
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * Configuration ajoutée à l'application pendant un tir de charge :
+ * les emails sont construits normalement mais jamais envoyés.
+ */
+@TestConfiguration
+public class LoadTestConfiguration {
+
+  @Bean
+  public JavaMailSender mailSender() {
+    return new JavaMailSenderImpl() {
+      @Override
+      protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+      }
+    };
+  }
+}
@@ -0,0 +1,245 @@
+package fr.ensitech.biblio2.loadtest;
+
+import fr.ensitech.biblio2.Biblio2Application;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tir de charge intégré : démarre l'application sur le profil h2 avec un jeu de données
+ * synthétique, puis lance des clients sur threads virtuels contre les endpoints principaux.
+ *
+ * <pre>
+ * ./mvnw -Ploadtest test-compile exec:java -Dloadtest.clients=500 -Dloadtest.duration=60
+ * </pre>
+ *
+ * {@code -Dloadtest.threads=virtual} sert les requêtes sur threads virtuels (profil virtual).
+ *
+ * Les arguments passés au main sont transmis à Spring (ex. --server.tomcat.threads.max=50).
+ */
+public class LoadTestHarness {
+
+  enum Scenario {
+    ALL_BOOKS(10),
+    SEARCH_TITLE(20),
+    SEARCH_KEYWORD(10),
+    SEARCH_YEARS(10),
+    SEARCH_PUBLISHED(5),
+    LOGIN(25),
+    RESERVE(20);
+
+    private final int weight;
+
+    Scenario(int weight) {
+      this.weight = weight;
+    }
+  }
+
+  private final HttpClient client;
+  private final String baseUrl;
+  private final SyntheticDataset dataset;
+  private final Map<Scenario, EndpointRecorder> recorders = new EnumMap<>(Scenario.class);
+  private final Scenario[] wheel;
+
+  LoadTestHarness(HttpClient client, String baseUrl, SyntheticDataset dataset) {
+    this.client = client;
+    this.baseUrl = baseUrl;
+    this.dataset = dataset;
+    for (Scenario scenario : Scenario.values()) {
+      recorders.put(scenario, new EndpointRecorder(scenario.name()));
+    }
+    int total = 0;
+    for (Scenario scenario : Scenario.values()) {
+      total += scenario.weight;
+    }
+    wheel = new Scenario[total];
+    int i = 0;
+    for (Scenario scenario : Scenario.values()) {
+      for (int w = 0; w < scenario.weight; w++) {
+        wheel[i++] = scenario;
+      }
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    execute(Settings.fromSystemProperties(), System.out, args);
+  }
+
+  /**
+   * Démarre l'application, exécute un tir complet et renvoie les distributions par endpoint.
+   */
+  static Map<Scenario, Histogram> execute(Settings settings, PrintStream out, String[] args) throws Exception {
+    SpringApplicationBuilder builder = new SpringApplicationBuilder(Biblio2Application.class, LoadTestConfiguration.class)
+            .properties("server.port=0", "biblio.login.throttle.enabled=false",
+                    "spring.jpa.properties.hibernate.generate_statistics=true");
+    if (settings.virtualThreads()) {
+      builder.profiles("h2", "virtual");
+    } else {
+      builder.profiles("h2");
+    }
+
+    ConfigurableApplicationContext context = builder.run(args);
+    try {
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      SyntheticDataset dataset = SyntheticDataset.load(context, settings.books(), settings.users());
+
+      ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+      HttpClient client = HttpClient.newBuilder()
+              .executor(clientThreads)
+              .connectTimeout(Duration.ofSeconds(5))
+              .build();
+
+      LoadTestHarness harness = new LoadTestHarness(client, "http://localhost:" + port, dataset);
+      out.printf("Tir (threads %s) : %d clients virtuels, %ds de chauffe, %ds de mesure, %d livres, %d utilisateurs%n",
+              settings.virtualThreads() ? "virtuels" : "plateforme", settings.clients(), settings.warmupSeconds(),
+              settings.durationSeconds(), settings.books(), settings.users());
+      harness.run(settings.clients(), settings.warmupSeconds(), settings.durationSeconds());
+      Map<Scenario, Histogram> histograms = harness.report(settings.durationSeconds(), out, settings.output());
+
+      clientThreads.shutdownNow();
+      return histograms;
+    } finally {
+      context.close();
+    }
+  }
+
+  record Settings(int clients, int warmupSeconds, int durationSeconds, int books, int users,
+                  boolean virtualThreads, Path output) {
+
+    static Settings fromSystemProperties() {
+      return new Settings(
+              Integer.getInteger("loadtest.clients", 200),
+              Integer.getInteger("loadtest.warmup", 10),
+              Integer.getInteger("loadtest.duration", 60),
+              Integer.getInteger("loadtest.books", 2_000),
+              Integer.getInteger("loadtest.users", 500),
+              "virtual".equalsIgnoreCase(System.getProperty("loadtest.threads", "platform")),
+              Path.of(System.getProperty("loadtest.output", "target/loadtest")));
+    }
+
+    Settings withThreads(boolean virtual) {
+      return new Settings(clients, warmupSeconds, durationSeconds, books, users, virtual,
+              output.resolve(virtual ? "virtual" : "platform"));
+    }
+  }
+
+  void run(int clients, int warmupSeconds, int durationSeconds) throws InterruptedException {
+    long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+    long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+    try (ExecutorService virtualClients = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < clients; i++) {
+        virtualClients.submit(() -> {
+          while (System.nanoTime() < end) {
+            fire(wheel[ThreadLocalRandom.current().nextInt(wheel.length)]);
+          }
+        });
+      }
+
+      Thread.sleep(TimeUnit.NANOSECONDS.toMillis(Math.max(0, warmupEnd - System.nanoTime())));
+      recorders.values().forEach(EndpointRecorder::reset);
+    }
+  }
+
+  private void fire(Scenario scenario) {
+    EndpointRecorder recorder = recorders.get(scenario);
+    HttpRequest request = buildRequest(scenario);
+    long start = System.nanoTime();
+    try {
+      HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+      recorder.record(System.nanoTime() - start, response.statusCode());
+    } catch (IOException e) {
+      recorder.recordFailure();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private HttpRequest buildRequest(Scenario scenario) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    List<Long> bookIds = dataset.getBookIds();
+    List<String> emails = dataset.getEmails();
+
+    return switch (scenario) {
+      case ALL_BOOKS -> get("/api/books/all");
+      case SEARCH_TITLE -> get("/api/books/search/by-title-containing?title="
+              + SyntheticDataset.WORDS[random.nextInt(SyntheticDataset.WORDS.length)]);
+      case SEARCH_KEYWORD -> get("/api/books/search/by-keyword?keyword="
+              + SyntheticDataset.WORDS[random.nextInt(SyntheticDataset.WORDS.length)]);
+      case SEARCH_YEARS -> {
+        int start = random.nextInt(SyntheticDataset.FIRST_YEAR, SyntheticDataset.LAST_YEAR);
+        yield get("/api/books/search/by-years?startYear=" + start + "&endYear=" + (start + random.nextInt(1, 6)));
+      }
+      case SEARCH_PUBLISHED -> get("/api/books/search/by-published?published=" + random.nextBoolean());
+      case LOGIN -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/login?email="
+                      + encode(emails.get(random.nextInt(emails.size())))
+                      + "&password=" + encode(SyntheticDataset.PASSWORD)))
+              .POST(HttpRequest.BodyPublishers.noBody())
+              .build();
+      case RESERVE -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/books/reserver/"
+                      + bookIds.get(random.nextInt(bookIds.size())) + "/"
+                      + encode(emails.get(random.nextInt(emails.size())))))
+              .PUT(HttpRequest.BodyPublishers.noBody())
+              .build();
+    };
+  }
+
+  private HttpRequest get(String path) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  Map<Scenario, Histogram> report(int durationSeconds, PrintStream out, Path output) throws IOException {
+    Map<Scenario, Histogram> histograms = new EnumMap<>(Scenario.class);
+    Files.createDirectories(output);
+    out.printf("%n%-18s %10s %10s %8s %8s %8s %10s %10s %10s %10s%n",
+            "endpoint", "req/s", "count", "4xx", "5xx", "io", "p50(ms)", "p95(ms)", "p99(ms)", "p999(ms)");
+
+    for (Map.Entry<Scenario, EndpointRecorder> entry : recorders.entrySet()) {
+      EndpointRecorder recorder = entry.getValue();
+      Histogram histogram = recorder.snapshot();
+      histograms.put(entry.getKey(), histogram);
+      out.printf("%-18s %10.1f %10d %8d %8d %8d %10.2f %10.2f %10.2f %10.2f%n",
+              recorder.getName(),
+              histogram.getTotalCount() / (double) durationSeconds,
+              histogram.getTotalCount(),
+              recorder.getClientErrors(),
+              recorder.getServerErrors(),
+              recorder.getFailures(),
+              histogram.getValueAtPercentile(50) / 1000.0,
+              histogram.getValueAtPercentile(95) / 1000.0,
+              histogram.getValueAtPercentile(99) / 1000.0,
+              histogram.getValueAtPercentile(99.9) / 1000.0);
+
+      // Distribution complète au format .hgrm (valeurs en millisecondes)
+      try (PrintStream hgrm = new PrintStream(Files.newOutputStream(output.resolve(recorder.getName() + ".hgrm")))) {
+        histogram.outputPercentileDistribution(hgrm, 1000.0);
+      }
+    }
+    out.println("\nDistributions HdrHistogram écrites dans " + output.toAbsolutePath());
+    return histograms;
+  }
+}
@@ -0,0 +1,102 @@
+package fr.ensitech.biblio2.loadtest;
+
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.entity.User;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import fr.ensitech.biblio2.repository.IUserRepository;
+import fr.ensitech.biblio2.service.EmailBloomFilter;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Jeu de données synthétique injecté dans la base H2 avant le tir.
+ */
+public class SyntheticDataset {
+
+  public static final String PASSWORD = "LoadTest123!";
+  public static final int FIRST_YEAR = 1950;
+  public static final int LAST_YEAR = 2024;
+
+  static final String[] WORDS = {
+          "java", "spring", "histoire", "roman", "voyage", "cuisine", "jardin", "musique",
+          "science", "nuit", "mer", "montagne", "guerre", "paix", "amour", "ville"
+  };
+  private static final String[] CATEGORIES = {"Informatique", "Roman", "Histoire", "Science", "Jeunesse"};
+  private static final String[] LANGUAGES = {"FR", "EN", "ES"};
+  private static final int BATCH_SIZE = 500;
+
+  private final List<Long> bookIds = new ArrayList<>();
+  private final List<String> emails = new ArrayList<>();
+
+  public static SyntheticDataset load(ConfigurableApplicationContext context, int books, int users) {
+    SyntheticDataset dataset = new SyntheticDataset();
+    dataset.loadBooks(context.getBean(IBookRepository.class), books);
+    dataset.loadUsers(context.getBean(IUserRepository.class), users);
+    // Utilisateurs insérés sans passer par l'inscription : le filtre des emails doit les relire
+    context.getBean(EmailBloomFilter.class).rebuild();
+    return dataset;
+  }
+
+  private void loadBooks(IBookRepository bookRepository, int count) {
+    List<Book> batch = new ArrayList<>(BATCH_SIZE);
+    Calendar calendar = Calendar.getInstance();
+    for (int i = 0; i < count; i++) {
+      calendar.set(FIRST_YEAR + i % (LAST_YEAR - FIRST_YEAR + 1), i % 12, 1 + i % 28);
+
+      Book book = new Book();
+      book.setTitle(WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i);
+      book.setDescription("Livre synthétique numéro " + i + " sur le thème " + WORDS[(i * 7) % WORDS.length]);
+      book.setEditor("Editions " + (i % 20));
+      book.setPublicationDate(calendar.getTime());
+      book.setIsbn(String.format("978%010d", i));
+      book.setNbPage((short) (50 + i % 900));
+      book.setCategory(CATEGORIES[i % CATEGORIES.length]);
+      book.setLanguage(LANGUAGES[i % LANGUAGES.length]);
+      book.setPublished(i % 10 != 0);
+      book.setStock(1 + i % 5);
+      batch.add(book);
+
+      if (batch.size() == BATCH_SIZE || i == count - 1) {
+        bookRepository.saveAll(batch).forEach(saved -> bookIds.add(saved.getId()));
+        batch.clear();
+      }
+    }
+  }
+
+  private void loadUsers(IUserRepository userRepository, int count) {
+    // Un seul hash BCrypt partagé : le coût de calcul ne doit pas retarder le tir
+    String passwordHash = new BCryptPasswordEncoder().encode(PASSWORD);
+    Date now = new Date();
+
+    List<User> batch = new ArrayList<>(BATCH_SIZE);
+    for (int i = 0; i < count; i++) {
+      User user = new User();
+      user.setFirstName("Load" + i);
+      user.setLastName("TEST");
+      user.setEmail("load" + i + "@biblio.test");
+      user.setPassword(passwordHash);
+      user.setRole("U");
+      user.setActive(true);
+      user.setPasswordUpdatedAt(now);
+      batch.add(user);
+
+      if (batch.size() == BATCH_SIZE || i == count - 1) {
+        userRepository.saveAll(batch).forEach(saved -> emails.add(saved.getEmail()));
+        batch.clear();
+      }
+    }
+  }
+
+  public List<Long> getBookIds() {
+    return bookIds;
+  }
+
+  public List<String> getEmails() {
+    return emails;
+  }
+}
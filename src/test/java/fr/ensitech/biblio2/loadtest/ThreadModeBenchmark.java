@@ -0,0 +1,38 @@
+package fr.ensitech.biblio2.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+/**
+ * Compare le même tir en threads plateforme puis en threads virtuels (profil virtual).
+ *
+ * <pre>
+ * ./mvnw -Ploadtest test-compile exec:java \
+ *   -Dexec.mainClass=fr.ensitech.biblio2.loadtest.ThreadModeBenchmark -Dloadtest.clients=2000
+ * </pre>
+ */
+public class ThreadModeBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    LoadTestHarness.Settings settings = LoadTestHarness.Settings.fromSystemProperties();
+
+    Map<LoadTestHarness.Scenario, Histogram> platform =
+            LoadTestHarness.execute(settings.withThreads(false), System.out, args);
+    Map<LoadTestHarness.Scenario, Histogram> virtual =
+            LoadTestHarness.execute(settings.withThreads(true), System.out, args);
+
+    System.out.printf("%n%-18s %14s %14s %14s %14s%n",
+            "endpoint", "plat. req/s", "virt. req/s", "plat. p99(ms)", "virt. p99(ms)");
+    for (LoadTestHarness.Scenario scenario : LoadTestHarness.Scenario.values()) {
+      Histogram p = platform.get(scenario);
+      Histogram v = virtual.get(scenario);
+      System.out.printf("%-18s %14.1f %14.1f %14.2f %14.2f%n",
+              scenario.name(),
+              p.getTotalCount() / (double) settings.durationSeconds(),
+              v.getTotalCount() / (double) settings.durationSeconds(),
+              p.getValueAtPercentile(99) / 1000.0,
+              v.getValueAtPercentile(99) / 1000.0);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import fr.ensitech.biblio2.utils.Dates;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires - BookFacetIndex")
+class BookFacetIndexTest {
+
+  @Mock
+  private IBookRepository bookRepository;
+
+  @InjectMocks
+  private BookFacetIndex bookFacetIndex;
+
+  @SneakyThrows
+  @BeforeEach
+  void setUp() {
+    List<Object[]> rows = List.of(
+            new Object[]{1L, "Informatique", "FR", true, Dates.convertStringToDate("15/03/2001")},
+            new Object[]{2L, "Informatique", "EN", true, Dates.convertStringToDate("01/06/2001")},
+            new Object[]{3L, "Roman", "FR", false, Dates.convertStringToDate("10/10/1999")});
+    when(bookRepository.findFacetValues()).thenReturn(rows);
+    bookFacetIndex.load();
+  }
+
+  @Test
+  @DisplayName("Devrait intersecter les filtres et compter chaque facette sans son propre filtre")
+  void shouldIntersectFiltersAndCountFacets() {
+    // When
+    BookFacetIndex.Result result = bookFacetIndex.browse(Map.of(
+            BookFacetIndex.Facet.CATEGORY, "Informatique",
+            BookFacetIndex.Facet.LANGUAGE, "FR"), 0, 10);
+
+    // Then
+    assertThat(result.total()).isEqualTo(1);
+    assertThat(result.ids()).containsExactly(1L);
+    assertThat(result.counts().get(BookFacetIndex.Facet.LANGUAGE))
+            .containsExactly(entry("EN", 1), entry("FR", 1));
+    assertThat(result.counts().get(BookFacetIndex.Facet.CATEGORY))
+            .containsExactly(entry("Informatique", 1), entry("Roman", 1));
+    assertThat(result.counts().get(BookFacetIndex.Facet.YEAR)).containsExactly(entry("2001", 1));
+  }
+
+  @Test
+  @DisplayName("Devrait paginer les résultats dans l'ordre de l'index")
+  void shouldPaginateResults() {
+    // When
+    BookFacetIndex.Result result = bookFacetIndex.browse(Map.of(), 1, 2);
+
+    // Then
+    assertThat(result.total()).isEqualTo(3);
+    assertThat(result.ids()).containsExactly(3L);
+  }
+
+  @Test
+  @SneakyThrows
+  @DisplayName("Devrait refléter les mises à jour et suppressions sans rechargement")
+  void shouldUpdateIncrementallyOnWrites() {
+    // Given
+    Book updated = new Book();
+    updated.setId(3L);
+    updated.setCategory("Informatique");
+    updated.setLanguage("FR");
+    updated.setPublished(true);
+    updated.setPublicationDate(Dates.convertStringToDate("01/01/2001"));
+
+    // When
+    bookFacetIndex.onBookChanged(BookChangedEvent.saved(updated));
+    bookFacetIndex.onBookChanged(BookChangedEvent.deleted(2L));
+    BookFacetIndex.Result result = bookFacetIndex.browse(Map.of(BookFacetIndex.Facet.CATEGORY, "Informatique"), 0, 10);
+
+    // Then
+    assertThat(result.ids()).containsExactly(1L, 3L);
+    assertThat(result.counts().get(BookFacetIndex.Facet.CATEGORY)).containsOnlyKeys("Informatique");
+    verify(bookRepository, times(1)).findFacetValues();
+  }
+
+  @Test
+  @DisplayName("Devrait renvoyer une page vide au lieu de déborder sur un numéro de page très grand")
+  void shouldNotOverflowOnHugePage() {
+    // When
+    BookFacetIndex.Result result = bookFacetIndex.browse(Map.of(), Integer.MAX_VALUE / 2, 4);
+
+    // Then
+    assertThat(result.total()).isEqualTo(3);
+    assertThat(result.ids()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Devrait compacter les documents supprimés sans perdre l'ordre ni les facettes")
+  void shouldCompactDeletedDocs() {
+    // Given : 3 000 livres ajoutés puis supprimés entre les livres chargés
+    for (long id = 100; id < 3_100; id++) {
+      Book book = new Book();
+      book.setId(id);
+      book.setCategory("Temporaire");
+      book.setLanguage("FR");
+      bookFacetIndex.onBookChanged(BookChangedEvent.saved(book));
+      bookFacetIndex.onBookChanged(BookChangedEvent.deleted(id));
+    }
+    Book kept = new Book();
+    kept.setId(4L);
+    kept.setCategory("Roman");
+    kept.setLanguage("EN");
+    bookFacetIndex.onBookChanged(BookChangedEvent.saved(kept));
+
+    // When
+    BookFacetIndex.Result result = bookFacetIndex.browse(Map.of(BookFacetIndex.Facet.LANGUAGE, "FR"), 0, 10);
+
+    // Then
+    assertThat(bookFacetIndex.docSlots()).isLessThan(1_500);
+    assertThat(result.ids()).containsExactly(1L, 3L);
+    assertThat(result.counts().get(BookFacetIndex.Facet.CATEGORY))
+            .containsExactly(entry("Informatique", 1), entry("Roman", 1));
+    assertThat(bookFacetIndex.browse(Map.of(), 0, 10).ids()).containsExactly(1L, 2L, 3L, 4L);
+  }
+}
@@ -1,7 +1,10 @@
 package fr.ensitech.biblio2.service;
 
+import fr.ensitech.biblio2.dto.BookBatchResponse;
+import fr.ensitech.biblio2.dto.BookBrowseResponse;
 import fr.ensitech.biblio2.entity.Author;
 import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
 import fr.ensitech.biblio2.repository.IBookRepository;
 import fr.ensitech.biblio2.utils.Dates;
 import lombok.SneakyThrows;
@@ -10,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.*;
 
@@ -28,6 +32,24 @@ public class BookServiceTest {
   @Mock
   private IBookRepository bookRepository;
 
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private PublicationYearIndex publicationYearIndex;
+
+  @Mock
+  private BookFacetIndex bookFacetIndex;
+
+  @Mock
+  private TitleTrigramIndex titleTrigramIndex;
+
+  @Mock
+  private IsbnIndex isbnIndex;
+
+  @Mock
+  private TitleSuggestIndex titleSuggestIndex;
+
   @InjectMocks
   private BookService bookService;
 
@@ -490,12 +512,29 @@ public class BookServiceTest {
       verify(bookRepository).findByTitleContainingIgnoreCase("Java");
     }
 
+    @Test
+    @SneakyThrows
+    @DisplayName("Devrait proposer les titres proches quand la recherche exacte ne trouve rien")
+    void shouldFallBackToFuzzySearchWhenTitleNotFound() {
+      // GIVEN
+      when(bookRepository.findByTitleContainingIgnoreCase("Livre de Jvaa")).thenReturn(List.of());
+      when(titleTrigramIndex.search("Livre de Jvaa", 2, 20))
+              .thenReturn(List.of(new TitleTrigramIndex.Match(1L, 0.6, 2)));
+      when(bookRepository.findAllById(List.of(1L))).thenReturn(List.of(validBook));
+
+      // WHEN
+      List<Book> result = bookService.getBooksByTitleContaining("Livre de Jvaa");
+
+      // THEN
+      assertThat(result).containsExactly(validBook);
+    }
+
     @Test
     @SneakyThrows
     @DisplayName("Devrait rechercher par ISBN")
     void shouldSearchByIsbn() {
       // GIVEN
-      when(bookRepository.findByIsbnIgnoreCase("9781234567890")).thenReturn(validBook);
+      when(bookRepository.findByIsbn("9781234567890")).thenReturn(validBook);
 
       // WHEN
       Book result = bookService.getBookByIsbn("9781234567890");
@@ -506,7 +545,24 @@ public class BookServiceTest {
               .extracting(Book::getIsbn)
               .isEqualTo("9781234567890");
 
-      verify(bookRepository).findByIsbnIgnoreCase("9781234567890");
+      verify(bookRepository).findByIsbn("9781234567890");
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Devrait résoudre un ISBN-10 avec tirets par l'index ISBN-13 en mémoire")
+    void shouldResolveValidIsbnThroughIndex() {
+      // GIVEN
+      when(isbnIndex.isReady()).thenReturn(true);
+      when(isbnIndex.findBookId(9780306406157L)).thenReturn(1L);
+      when(bookRepository.findById(1L)).thenReturn(Optional.of(validBook));
+
+      // WHEN
+      Book result = bookService.getBookByIsbn("0-306-40615-2");
+
+      // THEN
+      assertThat(result).isSameAs(validBook);
+      verify(bookRepository, never()).findByIsbn13(anyLong());
     }
 
     @Test
@@ -591,6 +647,78 @@ public class BookServiceTest {
       verify(bookRepository).findByPublicationDateBetween(any(Date.class), any(Date.class));
     }
 
+    @Test
+    @SneakyThrows
+    @DisplayName("Devrait garder la requête par plage de dates même quand l'index est chargé")
+    void shouldKeepRangeQueryWhenIndexIsReady() {
+      // GIVEN
+      when(publicationYearIndex.isReady()).thenReturn(true);
+      when(publicationYearIndex.countBetween(1999, 2001)).thenReturn(1);
+      when(bookRepository.findByPublicationDateBetween(any(Date.class), any(Date.class)))
+              .thenReturn(List.of(validBook));
+
+      // WHEN
+      List<Book> results = bookService.getBooksBetweenYears(1999, 2001);
+
+      // THEN
+      assertThat(results).containsExactly(validBook);
+      verify(bookRepository, never()).findAllById(anyIterable());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Ne devrait pas interroger la base quand l'index ne compte aucun livre dans la plage")
+    void shouldSkipQueryForEmptyRangeFromIndex() {
+      // GIVEN
+      when(publicationYearIndex.isReady()).thenReturn(true);
+      when(publicationYearIndex.countBetween(2002, 2010)).thenReturn(0);
+
+      // WHEN
+      List<Book> results = bookService.getBooksBetweenYears(2002, 2010);
+
+      // THEN
+      assertThat(results).isEmpty();
+      verify(bookRepository, never()).findByPublicationDateBetween(any(Date.class), any(Date.class));
+    }
+
+    @Test
+    @DisplayName("Devrait résoudre une liste d'ids en un seul appel et signaler les ids manquants")
+    void shouldGetBooksByIdsAndReportMissing() {
+      // GIVEN
+      when(bookRepository.findAllByIdCached(List.of(1L, 99L))).thenReturn(Arrays.asList(validBook, null));
+
+      // WHEN
+      BookBatchResponse response = bookService.getBooksByIds(List.of(1L, 99L, 1L));
+
+      // THEN
+      assertThat(response.getBooks()).containsExactly(validBook);
+      assertThat(response.getMissingIds()).containsExactly(99L);
+      verify(bookRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Devrait naviguer par facettes et renvoyer les livres dans l'ordre de l'index")
+    void shouldBrowseBooksByFacets() {
+      // GIVEN
+      Book other = new Book();
+      other.setId(2L);
+      Map<BookFacetIndex.Facet, String> filters = Map.of(
+              BookFacetIndex.Facet.LANGUAGE, "FR",
+              BookFacetIndex.Facet.PUBLISHED, "true");
+      BookFacetIndex.Result result = new BookFacetIndex.Result(2, List.of(2L, 1L),
+              Map.of(BookFacetIndex.Facet.LANGUAGE, Map.of("FR", 2, "EN", 1)));
+      when(bookFacetIndex.browse(filters, 0, 20)).thenReturn(result);
+      when(bookRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(validBook, other));
+
+      // WHEN
+      BookBrowseResponse response = bookService.browseBooks(null, "FR", true, null, 0, 20);
+
+      // THEN
+      assertThat(response.getTotal()).isEqualTo(2);
+      assertThat(response.getBooks()).containsExactly(other, validBook);
+      assertThat(response.getFacets().get("language")).containsEntry("EN", 1);
+    }
+
     @Test
     @SneakyThrows
     @DisplayName("Devrait retourner null pour getBooksByAuthor (non implémenté)")
@@ -666,5 +794,28 @@ public class BookServiceTest {
       verify(bookRepository).findById(999L);
       verify(bookRepository, never()).save(any(Book.class));
     }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Devrait publier un événement de catalogue après l'ajout et la suppression")
+    void shouldPublishCatalogEventsOnWrites() {
+      // GIVEN
+      Book newBook = new Book();
+      newBook.setTitle("New Book");
+      Book savedBook = new Book();
+      savedBook.setId(5L);
+      savedBook.setTitle("New Book");
+
+      when(bookRepository.save(newBook)).thenReturn(savedBook);
+      when(bookRepository.findById(5L)).thenReturn(Optional.of(savedBook));
+
+      // WHEN
+      bookService.addOrUpdateBook(newBook);
+      bookService.deleteBook(5L);
+
+      // THEN
+      verify(eventPublisher).publishEvent(BookChangedEvent.saved(savedBook));
+      verify(eventPublisher).publishEvent(BookChangedEvent.deleted(5L));
+    }
   }
-}
\ No newline at end of file
+}
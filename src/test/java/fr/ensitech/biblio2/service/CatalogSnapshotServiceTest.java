@@ -0,0 +1,109 @@
+package fr.ensitech.biblio2.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires - CatalogSnapshotService")
+class CatalogSnapshotServiceTest {
+
+  @Mock
+  private IBookRepository bookRepository;
+
+  @Mock
+  private CatalogVersionService catalogVersionService;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private CatalogSnapshotService catalogSnapshotService;
+
+  private Book book;
+
+  @BeforeEach
+  void setUp() {
+    catalogSnapshotService = new CatalogSnapshotService(
+            bookRepository, catalogVersionService, new ObjectMapper(), transactionManager, 50);
+    when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+    book = new Book();
+    book.setId(1L);
+    book.setIsbn("9781234567890");
+    book.setTitle("Le Petit Prince");
+  }
+
+  @AfterEach
+  void tearDown() {
+    catalogSnapshotService.shutdown();
+  }
+
+  @Test
+  @DisplayName("Devrait servir le même JSON en clair et compressé, avec l'ETag du catalogue")
+  void shouldBuildJsonAndGzipVariants() throws Exception {
+    // Given
+    when(bookRepository.findAllWithAuthors()).thenReturn(List.of(book));
+    when(catalogVersionService.getCatalogETag()).thenReturn("\"c1-1\"");
+
+    // When
+    CatalogSnapshotService.Snapshot snapshot = catalogSnapshotService.getSnapshot();
+
+    // Then
+    assertThat(snapshot.size()).isEqualTo(1);
+    assertThat(snapshot.eTag()).isEqualTo("\"c1-1\"");
+    assertThat(snapshot.gzipETag()).isEqualTo("\"c1-1-gz\"");
+    assertThat(new String(snapshot.json())).contains("\"title\":\"Le Petit Prince\"");
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(snapshot.gzip()))) {
+      assertThat(gzip.readAllBytes()).isEqualTo(snapshot.json());
+    }
+  }
+
+  @Test
+  @DisplayName("Ne devrait pas relire la base tant que le catalogue ne change pas")
+  void shouldReuseSnapshotBetweenRequests() {
+    // Given
+    when(bookRepository.findAllWithAuthors()).thenReturn(List.of(book));
+
+    // When
+    CatalogSnapshotService.Snapshot first = catalogSnapshotService.getSnapshot();
+    CatalogSnapshotService.Snapshot second = catalogSnapshotService.getSnapshot();
+
+    // Then
+    assertThat(second).isSameAs(first);
+    verify(bookRepository, times(1)).findAllWithAuthors();
+  }
+
+  @Test
+  @DisplayName("Devrait regrouper des écritures rapprochées en une seule reconstruction")
+  void shouldDebounceRebuildsAfterWrites() {
+    // Given
+    when(bookRepository.findAllWithAuthors()).thenReturn(List.of(book));
+
+    // When
+    catalogSnapshotService.onBookChanged(BookChangedEvent.saved(book));
+    catalogSnapshotService.onBookChanged(BookChangedEvent.saved(book));
+    catalogSnapshotService.onBookChanged(BookChangedEvent.deleted(1L));
+
+    // Then
+    verify(bookRepository, after(300).times(1)).findAllWithAuthors();
+    assertThat(catalogSnapshotService.getSnapshot().size()).isEqualTo(1);
+  }
+}
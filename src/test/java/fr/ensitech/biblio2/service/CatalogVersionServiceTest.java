@@ -0,0 +1,85 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires - CatalogVersionService")
+class CatalogVersionServiceTest {
+
+  @Mock
+  private IBookRepository bookRepository;
+
+  @InjectMocks
+  private CatalogVersionService catalogVersionService;
+
+  private Book book;
+
+  @BeforeEach
+  void setUp() {
+    book = new Book();
+    book.setId(3L);
+    book.setVersion(2L);
+    book.setLastModified(new Date(1_700_000_000_123L));
+  }
+
+  @Test
+  @DisplayName("Devrait charger les versions des livres au démarrage")
+  void shouldLoadBookStampsAtStartup() {
+    // Given
+    List<Object[]> rows = List.<Object[]>of(new Object[]{3L, 2L, new Date(1_700_000_000_123L)});
+    when(bookRepository.findVersionStamps()).thenReturn(rows);
+
+    // When
+    catalogVersionService.load();
+
+    // Then
+    CatalogVersionService.BookStamp stamp = catalogVersionService.getStamp(3L);
+    assertThat(stamp.eTag()).isEqualTo("\"b3-2\"");
+    assertThat(stamp.lastModified()).isEqualTo(1_700_000_000_000L);
+  }
+
+  @Test
+  @DisplayName("Devrait changer l'ETag du catalogue à chaque écriture")
+  void shouldChangeCatalogETagOnEachWrite() {
+    // Given
+    String before = catalogVersionService.getCatalogETag();
+
+    // When
+    catalogVersionService.onBookChanged(BookChangedEvent.saved(book));
+    String afterSave = catalogVersionService.getCatalogETag();
+    catalogVersionService.onBookChanged(BookChangedEvent.deleted(3L));
+
+    // Then
+    assertThat(afterSave).isNotEqualTo(before);
+    assertThat(catalogVersionService.getCatalogETag()).isNotEqualTo(afterSave);
+    assertThat(catalogVersionService.getStamp(3L)).isNull();
+  }
+
+  @Test
+  @DisplayName("Devrait suivre la version d'un livre mis à jour")
+  void shouldTrackUpdatedBookVersion() {
+    // When
+    catalogVersionService.onBookChanged(BookChangedEvent.saved(book));
+    book.setVersion(3L);
+    catalogVersionService.onBookChanged(BookChangedEvent.saved(book));
+
+    // Then
+    assertThat(catalogVersionService.getStamp(3L).eTag()).isEqualTo("\"b3-3\"");
+    verifyNoInteractions(bookRepository);
+  }
+}
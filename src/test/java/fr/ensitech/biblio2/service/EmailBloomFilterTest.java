@@ -0,0 +1,153 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.repository.IUserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires - EmailBloomFilter")
+class EmailBloomFilterTest {
+
+  @Mock
+  private IUserRepository userRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private final AtomicLong now = new AtomicLong(1_000_000);
+  private SimpleMeterRegistry meterRegistry;
+  private EmailBloomFilter emailBloomFilter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    emailBloomFilter = new EmailBloomFilter(userRepository, transactionManager, 0.01, 0, 0, meterRegistry, now::get);
+  }
+
+  @Test
+  @DisplayName("Devrait tout laisser passer tant que le filtre n'est pas chargé")
+  void shouldAllowEverythingBeforeLoad() {
+    assertThat(emailBloomFilter.mightContain("inconnu@test.com")).isTrue();
+    assertThat(emailBloomFilter.getMemoryBytes()).isZero();
+  }
+
+  @Test
+  @DisplayName("Devrait reconnaître les emails chargés et ajoutés, sans tenir compte de la casse")
+  void shouldContainLoadedAndAddedEmails() {
+    // Given
+    when(userRepository.count()).thenReturn(2L);
+    when(userRepository.findAllEmails()).thenReturn(List.of("john.doe@test.com", "jane.doe@test.com"));
+
+    // When
+    emailBloomFilter.rebuild();
+    emailBloomFilter.add("new@test.com");
+
+    // Then
+    assertThat(emailBloomFilter.mightContain("john.doe@test.com")).isTrue();
+    assertThat(emailBloomFilter.mightContain("Jane.Doe@Test.com")).isTrue();
+    assertThat(emailBloomFilter.mightContain("new@test.com")).isTrue();
+    assertThat(emailBloomFilter.mightContain("inconnu@test.com")).isFalse();
+    assertThat(meterRegistry.get("biblio.user.email-filter.lookups").tag("outcome", "skipped")
+            .functionCounter().count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Devrait confondre les emails que la base confond : casse, accents, espaces")
+  void shouldNormalizeLikeDatabaseCollation() {
+    // Given
+    when(userRepository.count()).thenReturn(1L);
+    when(userRepository.findAllEmails()).thenReturn(List.of("helene.dupre@test.com"));
+
+    // When
+    emailBloomFilter.rebuild();
+
+    // Then
+    assertThat(emailBloomFilter.mightContain(" Hélène.Dupré@Test.com ")).isTrue();
+    assertThat(EmailBloomFilter.normalize("john.doe+biblio@test.com")).isEqualTo("john.doe+biblio@test.com");
+  }
+
+  @Test
+  @DisplayName("Devrait laisser chercher en base un email absent pendant le délai de grâce après chargement")
+  void shouldFallBackToDatabaseDuringGracePeriod() {
+    // Given
+    SimpleMeterRegistry graceRegistry = new SimpleMeterRegistry();
+    EmailBloomFilter filter = new EmailBloomFilter(userRepository, transactionManager, 0.01, 0, 60_000,
+            graceRegistry, now::get);
+    when(userRepository.count()).thenReturn(1L);
+    when(userRepository.findAllEmails()).thenReturn(List.of("john.doe@test.com"));
+    filter.rebuild();
+
+    // When & Then : inscrit ailleurs pendant le chargement, encore cherché en base
+    assertThat(filter.mightContain("autre.instance@test.com")).isTrue();
+    assertThat(graceRegistry.get("biblio.user.email-filter.lookups").tag("outcome", "grace")
+            .functionCounter().count()).isEqualTo(1);
+
+    now.addAndGet(60_000);
+    assertThat(filter.mightContain("autre.instance@test.com")).isFalse();
+  }
+
+  @Test
+  @DisplayName("Devrait rester proche du taux de faux positifs visé et le mesurer")
+  void shouldKeepFalsePositiveRateNearTarget() {
+    // Given : 5 000 inscrits en base, 10 000 emails au total après les inscriptions suivantes
+    List<String> registered = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      registered.add("lecteur" + i + "@biblio.test");
+    }
+    when(userRepository.count()).thenReturn(5_000L);
+    when(userRepository.findAllEmails()).thenReturn(registered);
+    emailBloomFilter.rebuild();
+    for (int i = 5_000; i < 10_000; i++) {
+      emailBloomFilter.add("lecteur" + i + "@biblio.test");
+    }
+
+    // When
+    int positives = 0;
+    for (int i = 0; i < 20_000; i++) {
+      if (emailBloomFilter.mightContain("visiteur" + i + "@exemple.org")) {
+        positives++;
+        emailBloomFilter.recordFalsePositive();
+      }
+    }
+
+    // Then
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(emailBloomFilter.mightContain("lecteur" + i + "@biblio.test")).isTrue();
+    }
+    assertThat(positives / 20_000.0).isLessThan(0.02);
+    assertThat(emailBloomFilter.getObservedFalsePositiveRate()).isEqualTo(positives / 20_000.0);
+    assertThat(emailBloomFilter.getExpectedFalsePositiveRate()).isBetween(0.001, 0.02);
+    assertThat(emailBloomFilter.getMemoryBytes()).isBetween(10_000L, 15_000L);
+  }
+
+  @Test
+  @DisplayName("Devrait oublier à la reconstruction les emails qui ne sont plus en base")
+  void shouldForgetDeletedEmailsOnRebuild() {
+    // Given
+    when(userRepository.count()).thenReturn(1L);
+    when(userRepository.findAllEmails())
+            .thenReturn(List.of("supprime@test.com"))
+            .thenReturn(List.of("john.doe@test.com"));
+    emailBloomFilter.rebuild();
+
+    // When
+    emailBloomFilter.rebuild();
+
+    // Then
+    assertThat(emailBloomFilter.mightContain("supprime@test.com")).isFalse();
+    assertThat(emailBloomFilter.mightContain("john.doe@test.com")).isTrue();
+  }
+}
@@ -0,0 +1,86 @@
+package fr.ensitech.biblio2.service;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Chemin de production (biblio.mail.async=true) : le profil de test envoie les mails de façon synchrone.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires - EmailService en mode asynchrone")
+class EmailServiceTest {
+
+  @Mock
+  private JavaMailSender mailSender;
+
+  @Mock
+  private MailDigestCoalescer mailDigestCoalescer;
+
+  @InjectMocks
+  private EmailService emailService;
+
+  private TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(emailService, "async", true);
+    JdbcDataSource dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:email_service;DB_CLOSE_DELAY=-1");
+    transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+  }
+
+  @Test
+  @DisplayName("Devrait confier le mail au regroupement seulement après le commit")
+  void shouldSubmitMailAfterCommit() {
+    // When
+    transactionTemplate.executeWithoutResult(status -> {
+      emailService.sendReservationConfirmationEmail("john.doe@test.com", "John", "Doe", "Le Petit Prince");
+      verifyNoInteractions(mailDigestCoalescer);
+    });
+
+    // Then
+    verify(mailDigestCoalescer).submit(eq(MailDigestCoalescer.MailType.RESERVATION), any(SimpleMailMessage.class),
+            eq("John Doe"), eq("Le Petit Prince"));
+    verifyNoInteractions(mailSender);
+  }
+
+  @Test
+  @DisplayName("Ne devrait envoyer aucun mail quand la transaction est annulée")
+  void shouldNotSendMailOnRollback() {
+    // When
+    transactionTemplate.executeWithoutResult(status -> {
+      emailService.sendReservationConfirmationEmail("john.doe@test.com", "John", "Doe", "Le Petit Prince");
+      status.setRollbackOnly();
+    });
+
+    // Then
+    verifyNoInteractions(mailDigestCoalescer);
+    verifyNoInteractions(mailSender);
+  }
+
+  @Test
+  @DisplayName("Devrait confier le mail tout de suite hors transaction")
+  void shouldSubmitImmediatelyOutsideTransaction() {
+    // When
+    emailService.sendPasswordChangedEmail("john.doe@test.com", "John", "Doe");
+
+    // Then
+    verify(mailDigestCoalescer).submit(eq(MailDigestCoalescer.MailType.PASSWORD_CHANGED), any(SimpleMailMessage.class),
+            eq("John Doe"), isNull());
+  }
+}
@@ -0,0 +1,140 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.utils.MpscRingBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests unitaires - ErrorReporter")
+class ErrorReporterTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  @DisplayName("Devrait tracer les premières erreurs d'un type, échantillonner puis seulement compter les suivantes")
+  void shouldLimitAndSamplePerErrorType() {
+    // Given
+    ErrorReporter errorReporter = new ErrorReporter(64, 3, 10, 10_000, 100, meterRegistry);
+
+    // When
+    for (int i = 0; i < 33; i++) {
+      errorReporter.report("BookController.createBook", new IllegalStateException("base indisponible"));
+    }
+    errorReporter.report("UserController.createUser", new IllegalStateException("base indisponible"));
+    errorReporter.drain();
+
+    // Then : 3 premières + 3 échantillons (13e, 23e, 33e) pour createBook, 1 pour createUser
+    assertThat(reported("logged")).isEqualTo(4);
+    assertThat(reported("sampled")).isEqualTo(3);
+    assertThat(reported("aggregated")).isEqualTo(27);
+    assertThat(reported("dropped")).isZero();
+  }
+
+  @Test
+  @DisplayName("Devrait rouvrir le quota à chaque fenêtre et oublier les types inactifs")
+  void shouldResetQuotaEachWindow() {
+    // Given
+    ErrorReporter errorReporter = new ErrorReporter(64, 2, 0, 10_000, 100, meterRegistry);
+    for (int i = 0; i < 5; i++) {
+      errorReporter.report("BookController.reserveBook", new IllegalStateException());
+    }
+
+    // When
+    errorReporter.endWindow();
+    errorReporter.report("BookController.reserveBook", new IllegalStateException());
+    errorReporter.drain();
+
+    // Then
+    assertThat(reported("logged")).isEqualTo(3);
+    assertThat(reported("aggregated")).isEqualTo(3);
+
+    errorReporter.endWindow();
+    errorReporter.endWindow();
+    assertThat(errorReporter.trackedTypes()).isZero();
+  }
+
+  @Test
+  @DisplayName("Devrait compter sans bloquer quand la file est pleine et borner le nombre de types")
+  void shouldNeverBlockWhenBufferIsFull() {
+    // Given
+    ErrorReporter errorReporter = new ErrorReporter(4, 1_000, 0, 10_000, 8, meterRegistry);
+
+    // When
+    for (int i = 0; i < 100; i++) {
+      errorReporter.report("Source" + i, new IllegalStateException());
+    }
+
+    // Then
+    assertThat(reported("dropped")).isEqualTo(96);
+    assertThat(errorReporter.trackedTypes()).isLessThanOrEqualTo(9);
+    errorReporter.drain();
+    assertThat(reported("logged")).isEqualTo(4);
+  }
+
+  @Test
+  @DisplayName("Devrait remettre au consommateur chaque élément déposé par plusieurs producteurs")
+  void shouldDeliverEveryElementFromConcurrentProducers() throws Exception {
+    // Given
+    MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(64);
+    int producers = 4;
+    int perProducer = 10_000;
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      int base = p * perProducer;
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        for (int i = 0; i < perProducer; i++) {
+          while (!buffer.offer(base + i)) {
+            Thread.yield();
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+
+    // When
+    start.countDown();
+    boolean[] seen = new boolean[producers * perProducer];
+    int received = 0;
+    while (received < seen.length) {
+      Integer value = buffer.poll();
+      if (value == null) {
+        Thread.yield();
+      } else {
+        assertThat(seen[value]).isFalse();
+        seen[value] = true;
+        received++;
+      }
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    // Then
+    assertThat(buffer.poll()).isNull();
+    assertThat(buffer.size()).isZero();
+  }
+
+  private double reported(String outcome) {
+    return meterRegistry.get("biblio.errors.reported").tag("outcome", outcome).functionCounter().count();
+  }
+}
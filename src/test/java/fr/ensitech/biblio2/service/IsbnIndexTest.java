@@ -0,0 +1,66 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.repository.IBookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires - IsbnIndex")
+class IsbnIndexTest {
+
+  @Mock
+  private IBookRepository bookRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @InjectMocks
+  private IsbnIndex isbnIndex;
+
+  @Test
+  @DisplayName("Devrait ignorer un livre saisi en double en ISBN-10 et ISBN-13 au lieu de bloquer le démarrage")
+  void shouldSkipDuplicateIsbnsInBackfill() {
+    // Given : 1 et 2 sont le même livre, 3 double le livre 4 déjà renseigné
+    List<Object[]> rows = List.of(
+            new Object[]{1L, "0-306-40615-2", null},
+            new Object[]{2L, "978-0-306-40615-7", null},
+            new Object[]{3L, "080442957x", null},
+            new Object[]{4L, "9780804429573", 9780804429573L});
+    when(bookRepository.findIsbns()).thenReturn(rows);
+
+    // When
+    isbnIndex.load();
+
+    // Then
+    assertThat(isbnIndex.isReady()).isTrue();
+    assertThat(isbnIndex.findBookId(9780306406157L)).isEqualTo(1L);
+    assertThat(isbnIndex.findBookId(9780804429573L)).isEqualTo(4L);
+    verify(bookRepository).updateIsbn13(1L, 9780306406157L);
+    verify(bookRepository, never()).updateIsbn13(eq(2L), anyLong());
+    verify(bookRepository, never()).updateIsbn13(eq(3L), anyLong());
+  }
+
+  @Test
+  @DisplayName("Devrait démarrer même si la contrainte unique refuse le renseignement de la colonne")
+  void shouldNotFailStartupWhenBackfillViolatesConstraint() {
+    // Given
+    List<Object[]> rows = List.<Object[]>of(new Object[]{1L, "0-306-40615-2", null});
+    when(bookRepository.findIsbns()).thenReturn(rows);
+    doThrow(new DataIntegrityViolationException("Duplicate entry")).when(bookRepository).updateIsbn13(1L, 9780306406157L);
+
+    // When / Then
+    assertThatCode(() -> isbnIndex.load()).doesNotThrowAnyException();
+    assertThat(isbnIndex.findBookId(9780306406157L)).isEqualTo(1L);
+  }
+}
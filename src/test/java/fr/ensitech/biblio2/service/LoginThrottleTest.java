@@ -0,0 +1,149 @@
+package fr.ensitech.biblio2.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests unitaires - LoginThrottle")
+class LoginThrottleTest {
+
+  private final AtomicLong now = new AtomicLong(120_000);
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  @DisplayName("Devrait refuser un email au-delà du seuil puis le libérer à mesure que la fenêtre glisse")
+  void shouldSlideWindowPerEmail() {
+    // Given
+    LoginThrottle throttle = new LoginThrottle(true, 60_000, 3, 100, 1_000, meterRegistry, now::get);
+
+    // When & Then
+    assertThat(throttle.tryAcquire("john.doe@test.com", "10.0.0.1")).isTrue();
+    assertThat(throttle.tryAcquire("John.Doe@test.com ", "10.0.0.2")).isTrue();
+    assertThat(throttle.tryAcquire("john.doe@test.com", "10.0.0.3")).isTrue();
+    assertThat(throttle.tryAcquire("john.doe@test.com", "10.0.0.4")).isFalse();
+    assertThat(throttle.tryAcquire("jane.doe@test.com", "10.0.0.4")).isTrue();
+
+    // Mi-chemin de la fenêtre suivante : les 3 tentatives précédentes comptent pour 1,5
+    now.set(210_000);
+    assertThat(throttle.estimateForEmail("john.doe@test.com")).isEqualTo(1.5);
+    assertThat(throttle.tryAcquire("john.doe@test.com", "10.0.0.1")).isTrue();
+    assertThat(throttle.tryAcquire("john.doe@test.com", "10.0.0.1")).isTrue();
+    assertThat(throttle.tryAcquire("john.doe@test.com", "10.0.0.1")).isFalse();
+
+    assertThat(meterRegistry.get("biblio.login.throttle.requests").tag("outcome", "rejected-email").counter().count())
+            .isEqualTo(2);
+    assertThat(meterRegistry.get("biblio.login.throttle.requests").tag("outcome", "allowed").counter().count())
+            .isEqualTo(6);
+  }
+
+  @Test
+  @DisplayName("Devrait refuser une IP qui essaie beaucoup d'emails différents")
+  void shouldThrottlePerIp() {
+    // Given
+    LoginThrottle throttle = new LoginThrottle(true, 60_000, 3, 5, 1_000, meterRegistry, now::get);
+
+    // When
+    int allowed = 0;
+    for (int i = 0; i < 20; i++) {
+      if (throttle.tryAcquire("lecteur" + i + "@test.com", "10.0.0.9")) {
+        allowed++;
+      }
+    }
+
+    // Then
+    assertThat(allowed).isEqualTo(5);
+    assertThat(throttle.tryAcquire("lecteur0@test.com", "10.0.0.10")).isTrue();
+    assertThat(meterRegistry.get("biblio.login.throttle.requests").tag("outcome", "rejected-ip").counter().count())
+            .isEqualTo(15);
+  }
+
+  @Test
+  @DisplayName("Devrait borner le nombre de clés et purger les clés inactives")
+  void shouldBoundMemoryByEvictingIdleKeys() {
+    // Given
+    LoginThrottle throttle = new LoginThrottle(true, 60_000, 3, 5, 16, meterRegistry, now::get);
+    for (int i = 0; i < 200; i++) {
+      throttle.tryAcquire(null, "10.0." + (i / 256) + "." + (i % 256));
+    }
+    assertThat(throttle.trackedIps()).isLessThanOrEqualTo(16);
+
+    // When : deux fenêtres plus tard, les anciennes clés ne comptent plus
+    now.addAndGet(120_000);
+    for (int i = 0; i < 200; i++) {
+      throttle.tryAcquire(null, "192.168." + (i / 256) + "." + (i % 256));
+    }
+
+    // Then
+    assertThat(throttle.trackedIps()).isLessThanOrEqualTo(16);
+    assertThat(meterRegistry.get("biblio.login.throttle.evictions").tag("scope", "ip").functionCounter().count())
+            .isPositive();
+    assertThat(meterRegistry.get("biblio.login.throttle.keys").tag("scope", "ip").gauge().value())
+            .isEqualTo(throttle.trackedIps());
+  }
+
+  @Test
+  @DisplayName("Devrait continuer à compter une nouvelle IP quand toutes les bandes sont pleines de clés actives")
+  void shouldKeepCountingWhenStripesAreFull() {
+    // Given : 200 IPs actives dans la même fenêtre pour 16 places
+    LoginThrottle throttle = new LoginThrottle(true, 60_000, 3, 5, 16, meterRegistry, now::get);
+    for (int i = 0; i < 200; i++) {
+      throttle.tryAcquire(null, "10.0." + (i / 256) + "." + (i % 256));
+    }
+
+    // When
+    int allowed = 0;
+    for (int i = 0; i < 20; i++) {
+      if (throttle.tryAcquire(null, "10.9.9.9")) {
+        allowed++;
+      }
+    }
+
+    // Then
+    assertThat(allowed).isEqualTo(5);
+    assertThat(throttle.trackedIps()).isLessThanOrEqualTo(16);
+    assertThat(meterRegistry.get("biblio.login.throttle.displaced").tag("scope", "ip").functionCounter().count())
+            .isPositive();
+  }
+
+  @Test
+  @DisplayName("Devrait garder une clé chargée quand une rafale de nouvelles clés remplit sa bande")
+  void shouldKeepBusyKeyWhenDisplacing() {
+    // Given
+    LoginThrottle throttle = new LoginThrottle(true, 60_000, 3, 5, 160, meterRegistry, now::get);
+    for (int i = 0; i < 3; i++) {
+      assertThat(throttle.tryAcquire(null, "10.9.9.9")).isTrue();
+    }
+
+    // When : rafale d'IPs vues une seule fois
+    for (int i = 0; i < 500; i++) {
+      throttle.tryAcquire(null, "10.1." + (i / 256) + "." + (i % 256));
+    }
+
+    // Then : les 3 tentatives de l'IP chargée comptent toujours
+    assertThat(throttle.tryAcquire(null, "10.9.9.9")).isTrue();
+    assertThat(throttle.tryAcquire(null, "10.9.9.9")).isTrue();
+    assertThat(throttle.tryAcquire(null, "10.9.9.9")).isFalse();
+  }
+
+  @Test
+  @DisplayName("Devrait tout laisser passer quand il est désactivé")
+  void shouldAllowEverythingWhenDisabled() {
+    // Given
+    LoginThrottle throttle = new LoginThrottle(false, 60_000, 1, 1, 16, meterRegistry, now::get);
+
+    // When & Then
+    for (int i = 0; i < 10; i++) {
+      assertThat(throttle.tryAcquire("john.doe@test.com", "10.0.0.1")).isTrue();
+    }
+  }
+}
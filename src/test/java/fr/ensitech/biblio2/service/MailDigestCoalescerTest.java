@@ -0,0 +1,70 @@
+package fr.ensitech.biblio2.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Tests unitaires - MailDigestCoalescer")
+class MailDigestCoalescerTest {
+
+  private SmtpMailDispatcher mailDispatcher;
+  private MailDigestCoalescer mailDigestCoalescer;
+
+  @BeforeEach
+  void setUp() {
+    mailDispatcher = mock(SmtpMailDispatcher.class);
+    MockEnvironment environment = new MockEnvironment()
+            .withProperty("biblio.mail.digest.window.reservation", "200ms")
+            .withProperty("biblio.mail.digest.window.password-changed", "200ms");
+    mailDigestCoalescer = new MailDigestCoalescer(mailDispatcher, environment);
+  }
+
+  @Test
+  @DisplayName("Devrait fusionner les confirmations de réservation d'un lecteur en un seul mail")
+  void shouldMergeReservationsIntoOneDigest() {
+    // Given
+    ArgumentCaptor<SimpleMailMessage> captor = ArgumentCaptor.forClass(SimpleMailMessage.class);
+
+    // When
+    mailDigestCoalescer.submit(MailDigestCoalescer.MailType.RESERVATION, message("john@test.com"), "John Doe", "Livre A");
+    mailDigestCoalescer.submit(MailDigestCoalescer.MailType.RESERVATION, message("john@test.com"), "John Doe", "Livre B");
+    mailDigestCoalescer.submit(MailDigestCoalescer.MailType.PASSWORD_CHANGED, message("john@test.com"), "John Doe", null);
+
+    // Then
+    verify(mailDispatcher, timeout(2_000)).enqueue(captor.capture());
+    SimpleMailMessage digest = captor.getValue();
+    assertThat(digest.getTo()).containsExactly("john@test.com");
+    assertThat(digest.getSubject()).isEqualTo("Vos notifications - Biblio");
+    assertThat(digest.getText()).contains("Bonjour John Doe", "- Livre A\n- Livre B", "mot de passe a été modifié");
+  }
+
+  @Test
+  @DisplayName("Devrait envoyer tel quel un mail à fenêtre nulle ou resté seul")
+  void shouldSendSingleMailUnchanged() {
+    // Given
+    SimpleMailMessage activation = message("jane@test.com");
+    SimpleMailMessage reservation = message("john@test.com");
+
+    // When
+    mailDigestCoalescer.submit(MailDigestCoalescer.MailType.ACTIVATION, activation, null, "http://lien");
+    mailDigestCoalescer.submit(MailDigestCoalescer.MailType.RESERVATION, reservation, "John Doe", "Livre A");
+
+    // Then
+    verify(mailDispatcher).enqueue(activation);
+    verify(mailDispatcher, timeout(2_000)).enqueue(reservation);
+    verifyNoMoreInteractions(mailDispatcher);
+  }
+
+  private static SimpleMailMessage message(String to) {
+    SimpleMailMessage message = new SimpleMailMessage();
+    message.setFrom("dev.kentin@gmail.com");
+    message.setTo(to);
+    return message;
+  }
+}
@@ -0,0 +1,69 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import fr.ensitech.biblio2.utils.Dates;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires - PublicationYearIndex")
+class PublicationYearIndexTest {
+
+  @Mock
+  private IBookRepository bookRepository;
+
+  @InjectMocks
+  private PublicationYearIndex publicationYearIndex;
+
+  @SneakyThrows
+  @BeforeEach
+  void setUp() {
+    List<Object[]> rows = List.of(
+            new Object[]{3L, Dates.convertStringToDate("15/03/2001")},
+            new Object[]{1L, Dates.convertStringToDate("01/01/1999")},
+            new Object[]{2L, Dates.convertStringToDate("31/12/2001")});
+    when(bookRepository.findPublicationDates()).thenReturn(rows);
+    publicationYearIndex.load();
+  }
+
+  @Test
+  @DisplayName("Devrait compter les livres d'une plage d'années")
+  void shouldCountBetweenYears() {
+    // When / Then
+    assertThat(publicationYearIndex.isReady()).isTrue();
+    assertThat(publicationYearIndex.countBetween(1999, 2001)).isEqualTo(3);
+    assertThat(publicationYearIndex.countBetween(2000, 2001)).isEqualTo(2);
+    assertThat(publicationYearIndex.countBetween(2002, 2010)).isZero();
+  }
+
+  @Test
+  @SneakyThrows
+  @DisplayName("Devrait déplacer un livre d'année et retirer un livre supprimé")
+  void shouldUpdateIncrementallyOnWrites() {
+    // Given
+    Book moved = new Book();
+    moved.setId(3L);
+    moved.setPublicationDate(Dates.convertStringToDate("10/06/1999"));
+
+    // When
+    publicationYearIndex.onBookChanged(BookChangedEvent.saved(moved));
+    publicationYearIndex.onBookChanged(BookChangedEvent.deleted(2L));
+
+    // Then
+    assertThat(publicationYearIndex.countByYear()).containsExactly(entry(1999, 2));
+    assertThat(publicationYearIndex.countBetween(2000, 2010)).isZero();
+  }
+}
@@ -3,16 +3,24 @@ package fr.ensitech.biblio2.service;
 import fr.ensitech.biblio2.entity.Book;
 import fr.ensitech.biblio2.entity.Reservation;
 import fr.ensitech.biblio2.entity.User;
+import fr.ensitech.biblio2.event.BookReservedEvent;
+import fr.ensitech.biblio2.exception.AuthenticationFailedException;
+import fr.ensitech.biblio2.exception.ConflictException;
+import fr.ensitech.biblio2.exception.NotFoundException;
 import fr.ensitech.biblio2.repository.IBookRepository;
 import fr.ensitech.biblio2.repository.IReservationRepository;
 import fr.ensitech.biblio2.repository.IUserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Arrays;
 import java.util.Date;
@@ -42,6 +50,15 @@ class ReservationServiceTest {
   @Mock
   private EmailService emailService;
 
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Spy
+  private BookLockRegistry bookLockRegistry = new BookLockRegistry(16, 1000, new SimpleMeterRegistry());
+
   @InjectMocks
   private ReservationService reservationService;
 
@@ -101,9 +118,10 @@ class ReservationServiceTest {
     assertThat(result).isNotNull();
     assertThat(result.getStatus()).isEqualTo("ACTIVE");
     verify(userRepository, times(1)).findByEmail("john.doe@test.com");
-    // 1er appel dans reserveBook, 2ème dans getAvailableStock
-    verify(bookRepository, times(2)).findById(1L);
+    // Le stock est calculé sur le livre déjà chargé
+    verify(bookRepository, times(1)).findById(1L);
     verify(reservationRepository, times(1)).save(any(Reservation.class));
+    verify(eventPublisher).publishEvent(new BookReservedEvent(1L));
     verify(emailService, times(1)).sendReservationConfirmationEmail(
             anyString(), anyString(), anyString(), anyString());
   }
@@ -116,7 +134,7 @@ class ReservationServiceTest {
 
     // When & Then
     assertThatThrownBy(() -> reservationService.reserveBook(1L, "nonexistent@test.com"))
-            .isInstanceOf(Exception.class)
+            .isInstanceOf(NotFoundException.class)
             .hasMessageContaining("Utilisateur non trouvé");
 
     verify(userRepository, times(1)).findByEmail("nonexistent@test.com");
@@ -132,7 +150,7 @@ class ReservationServiceTest {
 
     // When & Then
     assertThatThrownBy(() -> reservationService.reserveBook(1L, "john.doe@test.com"))
-            .isInstanceOf(Exception.class)
+            .isInstanceOf(AuthenticationFailedException.class)
             .hasMessageContaining("non activé");
 
     verify(userRepository, times(1)).findByEmail("john.doe@test.com");
@@ -148,7 +166,7 @@ class ReservationServiceTest {
 
     // When & Then
     assertThatThrownBy(() -> reservationService.reserveBook(999L, "john.doe@test.com"))
-            .isInstanceOf(Exception.class)
+            .isInstanceOf(NotFoundException.class)
             .hasMessageContaining("Livre non trouvé");
 
     verify(userRepository, times(1)).findByEmail("john.doe@test.com");
@@ -166,7 +184,7 @@ class ReservationServiceTest {
 
     // When & Then
     assertThatThrownBy(() -> reservationService.reserveBook(1L, "john.doe@test.com"))
-            .isInstanceOf(Exception.class)
+            .isInstanceOf(ConflictException.class)
             .hasMessageContaining("déjà réservé");
 
     verify(reservationRepository, times(1))
@@ -185,7 +203,7 @@ class ReservationServiceTest {
 
     // When & Then
     assertThatThrownBy(() -> reservationService.reserveBook(1L, "john.doe@test.com"))
-            .isInstanceOf(Exception.class)
+            .isInstanceOf(ConflictException.class)
             .hasMessageContaining("limite de 3 réservations");
 
     verify(reservationRepository, times(1)).countActiveReservationsByUserId(1L);
@@ -215,12 +233,27 @@ class ReservationServiceTest {
 
     // When & Then
     assertThatThrownBy(() -> reservationService.reserveBook(1L, "john.doe@test.com"))
-            .isInstanceOf(Exception.class)
+            .isInstanceOf(ConflictException.class)
             .hasMessageContaining("plus disponible");
 
     verify(reservationRepository, never()).save(any(Reservation.class));
   }
 
+  @Test
+  @DisplayName("Devrait libérer le verrou du livre après une réservation refusée")
+  void shouldReleaseBookLockWhenReservationRejected() {
+    // Given
+    when(userRepository.findByEmail("john.doe@test.com")).thenReturn(testUser);
+    when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+    when(reservationRepository.countActiveReservationsByUserAndBook(1L, 1L)).thenReturn(1L);
+
+    // When & Then
+    assertThatThrownBy(() -> reservationService.reserveBook(1L, "john.doe@test.com"))
+            .hasMessageContaining("déjà réservé");
+
+    assertThat(bookLockRegistry.stripeFor(1L).isLocked()).isFalse();
+  }
+
   @Test
   @DisplayName("Devrait récupérer les réservations d'un utilisateur")
   void shouldGetUserReservations() throws Exception {
@@ -266,7 +299,7 @@ class ReservationServiceTest {
 
     // When & Then
     assertThatThrownBy(() -> reservationService.cancelReservation(999L))
-            .isInstanceOf(Exception.class)
+            .isInstanceOf(NotFoundException.class)
             .hasMessageContaining("Réservation non trouvée");
 
     verify(reservationRepository, times(1)).findById(999L);
@@ -0,0 +1,87 @@
+package fr.ensitech.biblio2.service;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.net.SocketException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Tests unitaires - SmtpMailDispatcher")
+class SmtpMailDispatcherTest {
+
+  @Test
+  @DisplayName("Devrait envoyer les mails en file par lots et vider la file à l'arrêt")
+  void shouldSendQueuedMailsInBatches() throws Exception {
+    // Given
+    JavaMailSender mailSender = mock(JavaMailSender.class);
+    List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    doAnswer(invocation -> batchSizes.add(invocation.getArguments().length))
+            .when(mailSender).send(any(SimpleMailMessage[].class));
+    SmtpMailDispatcher dispatcher = new SmtpMailDispatcher(mailSender, mock(ErrorReporter.class), 1, 50, 30_000, 1_000);
+
+    // When
+    for (int i = 0; i < 120; i++) {
+      SimpleMailMessage message = new SimpleMailMessage();
+      message.setTo("lecteur" + i + "@example.com");
+      dispatcher.enqueue(message);
+    }
+    dispatcher.shutdown();
+
+    // Then
+    assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(120);
+    assertThat(batchSizes).allSatisfy(size -> assertThat(size).isBetween(1, 50));
+  }
+
+  @Test
+  @DisplayName("Devrait envoyer dans le thread appelant une fois arrêté")
+  void shouldSendInCallerAfterShutdown() throws Exception {
+    // Given
+    JavaMailSender mailSender = mock(JavaMailSender.class);
+    SmtpMailDispatcher dispatcher = new SmtpMailDispatcher(mailSender, mock(ErrorReporter.class), 1, 50, 30_000, 10);
+    dispatcher.shutdown();
+    SimpleMailMessage message = new SimpleMailMessage();
+
+    // When
+    dispatcher.enqueue(message);
+
+    // Then
+    verify(mailSender).send(message);
+  }
+
+  @Test
+  @DisplayName("Devrait signaler un lot en échec à ErrorReporter plutôt que sur la sortie d'erreur")
+  void shouldReportFailedBatch() throws Exception {
+    // Given
+    JavaMailSender mailSender = mock(JavaMailSender.class);
+    ErrorReporter errorReporter = mock(ErrorReporter.class);
+    MailSendException failure = new MailSendException("Connexion SMTP refusée");
+    doThrow(failure).when(mailSender).send(any(SimpleMailMessage[].class));
+    SmtpMailDispatcher dispatcher = new SmtpMailDispatcher(mailSender, errorReporter, 1, 50, 30_000, 1_000);
+
+    // When
+    dispatcher.enqueue(new SimpleMailMessage());
+    dispatcher.shutdown();
+
+    // Then
+    verify(errorReporter).report("SmtpMailDispatcher.send", failure);
+  }
+
+  @Test
+  @DisplayName("Ne devrait se reconnecter que sur une coupure, pas sur un destinataire refusé")
+  void shouldReconnectOnlyOnConnectionFailures() {
+    assertThat(SmtpMailDispatcher.isConnectionFailure(new SendFailedException("550 Destinataire inconnu"))).isFalse();
+    assertThat(SmtpMailDispatcher.isConnectionFailure(
+            new MessagingException("Can't send command to SMTP host", new SocketException("Broken pipe")))).isTrue();
+    assertThat(SmtpMailDispatcher.isConnectionFailure(new IllegalStateException("Not connected"))).isTrue();
+  }
+}
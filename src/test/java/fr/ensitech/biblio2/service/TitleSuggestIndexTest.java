@@ -0,0 +1,91 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.dto.BookSuggestion;
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.event.BookReservedEvent;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import fr.ensitech.biblio2.repository.IReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires - TitleSuggestIndex")
+class TitleSuggestIndexTest {
+
+  @Mock
+  private IBookRepository bookRepository;
+
+  @Mock
+  private IReservationRepository reservationRepository;
+
+  @InjectMocks
+  private TitleSuggestIndex titleSuggestIndex;
+
+  @BeforeEach
+  void setUp() {
+    List<Object[]> titles = List.of(
+            new Object[]{1L, "Le Petit Prince"},
+            new Object[]{2L, "Les Misérables"},
+            new Object[]{3L, "L'Étranger"},
+            new Object[]{4L, "Le Rouge et le Noir"});
+    List<Object[]> reservations = List.of(
+            new Object[]{2L, 5L},
+            new Object[]{4L, 1L});
+    when(bookRepository.findTitles()).thenReturn(titles);
+    when(reservationRepository.countReservationsByBook()).thenReturn(reservations);
+    titleSuggestIndex.load();
+  }
+
+  @Test
+  @DisplayName("Devrait classer les titres du préfixe par nombre de réservations")
+  void shouldRankByReservations() {
+    // When
+    List<BookSuggestion> suggestions = titleSuggestIndex.suggest("le", 10);
+
+    // Then
+    assertThat(suggestions).extracting(BookSuggestion::getId).containsExactly(2L, 4L, 1L);
+    assertThat(suggestions.get(0).getReservations()).isEqualTo(5);
+  }
+
+  @Test
+  @DisplayName("Devrait ignorer casse, accents et ponctuation et limiter le nombre de suggestions")
+  void shouldNormalizePrefixAndLimit() {
+    // When / Then
+    assertThat(titleSuggestIndex.suggest("L'ÉTR", 10)).extracting(BookSuggestion::getTitle)
+            .containsExactly("L'Étranger");
+    assertThat(titleSuggestIndex.suggest("le", 1)).extracting(BookSuggestion::getId).containsExactly(2L);
+    assertThat(titleSuggestIndex.suggest("xyz", 10)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Devrait suivre les réservations, renommages et suppressions sans rechargement")
+  void shouldUpdateIncrementally() {
+    // Given
+    Book renamed = new Book();
+    renamed.setId(4L);
+    renamed.setTitle("La Chartreuse de Parme");
+
+    // When
+    titleSuggestIndex.onBookReserved(new BookReservedEvent(1L));
+    titleSuggestIndex.onBookReserved(new BookReservedEvent(1L));
+    titleSuggestIndex.onBookChanged(BookChangedEvent.saved(renamed));
+    titleSuggestIndex.onBookChanged(BookChangedEvent.deleted(2L));
+
+    // Then
+    assertThat(titleSuggestIndex.suggest("le", 10)).extracting(BookSuggestion::getId).containsExactly(1L);
+    assertThat(titleSuggestIndex.suggest("la ch", 10)).extracting(BookSuggestion::getReservations)
+            .containsExactly(1);
+    verify(bookRepository, times(1)).findTitles();
+  }
+}
@@ -0,0 +1,88 @@
+package fr.ensitech.biblio2.service;
+
+import fr.ensitech.biblio2.entity.Book;
+import fr.ensitech.biblio2.event.BookChangedEvent;
+import fr.ensitech.biblio2.repository.IBookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires - TitleTrigramIndex")
+class TitleTrigramIndexTest {
+
+  @Mock
+  private IBookRepository bookRepository;
+
+  @InjectMocks
+  private TitleTrigramIndex titleTrigramIndex;
+
+  @BeforeEach
+  void setUp() {
+    List<Object[]> rows = List.of(
+            new Object[]{1L, "Le Petit Prince"},
+            new Object[]{2L, "Les Misérables"},
+            new Object[]{3L, "Le Comte de Monte-Cristo"});
+    when(bookRepository.findTitles()).thenReturn(rows);
+    titleTrigramIndex.load();
+  }
+
+  @Test
+  @DisplayName("Devrait retrouver un titre malgré une faute de frappe et sans accents")
+  void shouldMatchMisspelledTitle() {
+    // When
+    List<TitleTrigramIndex.Match> prince = titleTrigramIndex.search("petit prnce", 2, 10);
+    List<TitleTrigramIndex.Match> miserables = titleTrigramIndex.search("les miserable", 2, 10);
+
+    // Then
+    assertThat(prince).extracting(TitleTrigramIndex.Match::bookId).containsExactly(1L);
+    assertThat(prince.get(0).edits()).isEqualTo(1);
+    assertThat(miserables).extracting(TitleTrigramIndex.Match::bookId).containsExactly(2L);
+  }
+
+  @Test
+  @DisplayName("Devrait rejeter un titre au-delà du nombre de fautes autorisé")
+  void shouldRespectMaxEdits() {
+    // When / Then
+    assertThat(titleTrigramIndex.search("petit prnce", 0, 10)).isEmpty();
+    assertThat(TitleTrigramIndex.substringEditDistance("monte cristo", "le comte de monte cristo", 2)).isZero();
+    assertThat(TitleTrigramIndex.substringEditDistance("mnte crsto", "le comte de monte cristo", 1)).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Devrait trouver une suite de mots entiers du titre mais pas un fragment de mot")
+  void shouldMatchWholeWordsOnly() {
+    // When / Then
+    assertThat(titleTrigramIndex.search("monte cristo", 0, 10))
+            .extracting(TitleTrigramIndex.Match::bookId).containsExactly(3L);
+    assertThat(titleTrigramIndex.search("misera", 0, 10)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Devrait suivre les renommages et suppressions du catalogue")
+  void shouldFollowCatalogWrites() {
+    // Given
+    Book renamed = new Book();
+    renamed.setId(1L);
+    renamed.setTitle("Vol de nuit");
+
+    // When
+    titleTrigramIndex.onBookChanged(BookChangedEvent.saved(renamed));
+    titleTrigramIndex.onBookChanged(BookChangedEvent.deleted(2L));
+
+    // Then
+    assertThat(titleTrigramIndex.search("petit prince", 2, 10)).isEmpty();
+    assertThat(titleTrigramIndex.search("miserables", 2, 10)).isEmpty();
+    assertThat(titleTrigramIndex.search("vol de nuit", 0, 10))
+            .extracting(TitleTrigramIndex.Match::bookId).containsExactly(1L);
+  }
+}
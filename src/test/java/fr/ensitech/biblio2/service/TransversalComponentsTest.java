@@ -1,8 +1,20 @@
 package fr.ensitech.biblio2.service;
 
 import fr.ensitech.biblio2.entity.PasswordHistory;
+import fr.ensitech.biblio2.controller.ApiExceptionHandler;
+import fr.ensitech.biblio2.dto.JsonBody;
+import fr.ensitech.biblio2.dto.MessageResponse;
 import fr.ensitech.biblio2.entity.User;
+import fr.ensitech.biblio2.exception.BusinessException;
+import fr.ensitech.biblio2.exception.ConflictException;
+import fr.ensitech.biblio2.exception.NotFoundException;
+import fr.ensitech.biblio2.exception.ServiceBusyException;
 import fr.ensitech.biblio2.repository.IPasswordHistoryRepository;
+import fr.ensitech.biblio2.utils.BookFields;
+import fr.ensitech.biblio2.utils.ContentEncodings;
+import fr.ensitech.biblio2.utils.Isbn;
+import fr.ensitech.biblio2.utils.LongLongHashMap;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -13,12 +25,16 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -29,6 +45,8 @@ import static org.mockito.Mockito.*;
  * Tests du composant de hash de mot de passe
  * Tests de la rotation de mot de passe
  * Tests du service de réponse de sécurité
+ * Tests des refus métier et de leur traduction HTTP
+ * Tests de la négociation gzip
  */
 @ExtendWith(MockitoExtension.class)
 @DisplayName("4.4 - Tests des composants transverses")
@@ -182,7 +200,7 @@ class TransversalComponentsTest {
     private IPasswordHistoryRepository passwordHistoryRepository;
 
     @Spy
-    private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private PasswordHasher passwordHasher = new PasswordHasher(10, 10, 250);
 
     @InjectMocks
     private PasswordRotationService passwordRotationService;
@@ -244,7 +262,7 @@ class TransversalComponentsTest {
     void shouldDetectPasswordInHistory() {
       // Given
       String plainPassword = "OldPassword123";
-      String hashedPassword = passwordEncoder.encode(plainPassword);
+      String hashedPassword = passwordHasher.encode(plainPassword);
 
       PasswordHistory history = new PasswordHistory();
       history.setPasswordHash(hashedPassword);
@@ -265,7 +283,7 @@ class TransversalComponentsTest {
     void shouldNotDetectNewPassword() {
       // Given
       String newPassword = "NewPassword123";
-      String oldHashedPassword = passwordEncoder.encode("OldPassword123");
+      String oldHashedPassword = passwordHasher.encode("OldPassword123");
 
       PasswordHistory history = new PasswordHistory();
       history.setPasswordHash(oldHashedPassword);
@@ -633,4 +651,242 @@ class TransversalComponentsTest {
       assertThat(canReserve).isFalse();
     }
   }
-}
\ No newline at end of file
+
+  // ========================================
+  // 4.4.5 - Tests des verrous de réservation par livre
+  // ========================================
+
+  @Nested
+  @DisplayName("4.4.5 - Tests des verrous de réservation par livre")
+  class BookLockRegistryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookLockRegistry bookLockRegistry;
+
+    @BeforeEach
+    void setUp() {
+      meterRegistry = new SimpleMeterRegistry();
+      bookLockRegistry = new BookLockRegistry(8, 50, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Devrait arrondir le nombre de bandes à une puissance de 2")
+    void shouldRoundStripeCountToPowerOfTwo() {
+      assertThat(new BookLockRegistry(5, 50, meterRegistry).stripeCount()).isEqualTo(8);
+      assertThat(new BookLockRegistry(1, 50, meterRegistry).stripeCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait utiliser des verrous équitables et toujours la même bande pour un livre")
+    void shouldUseFairStableStripePerBook() {
+      assertThat(bookLockRegistry.stripeFor(42L)).isSameAs(bookLockRegistry.stripeFor(42L));
+      assertThat(bookLockRegistry.stripeFor(42L).isFair()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Devrait échouer après le délai si le livre est verrouillé par un autre thread")
+    void shouldTimeoutWhenBookIsLockedByAnotherThread() throws Exception {
+      // Given
+      CountDownLatch locked = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      Thread holder = new Thread(() -> {
+        try {
+          bookLockRegistry.withLock(7L, () -> {
+            locked.countDown();
+            release.await();
+            return null;
+          });
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      holder.start();
+      locked.await();
+
+      // When & Then
+      assertThatThrownBy(() -> bookLockRegistry.withLock(7L, () -> "ko"))
+              .isInstanceOf(ServiceBusyException.class)
+              .hasMessageContaining("indisponible");
+      assertThat(meterRegistry.get("biblio.reservation.lock.wait").tag("outcome", "timeout").timer().count())
+              .isEqualTo(1);
+
+      release.countDown();
+      holder.join();
+      assertThat(bookLockRegistry.withLock(7L, () -> "ok")).isEqualTo("ok");
+    }
+  }
+
+  // ========================================
+  // 4.4.6 - Tests de la normalisation ISBN
+  // ========================================
+
+  @Nested
+  @DisplayName("4.4.6 - Tests de la normalisation ISBN et de la table long -> long")
+  class IsbnNormalizationTest {
+
+    @Test
+    @DisplayName("Devrait convertir ISBN-10 et ISBN-13 avec tirets vers le même ISBN-13 numérique")
+    void shouldNormalizeIsbn10AndIsbn13() {
+      assertThat(Isbn.toIsbn13("0-306-40615-2")).isEqualTo(9780306406157L);
+      assertThat(Isbn.toIsbn13("978-0-306-40615-7")).isEqualTo(9780306406157L);
+      assertThat(Isbn.toIsbn13("080442957x")).isEqualTo(9780804429573L);
+    }
+
+    @Test
+    @DisplayName("Devrait rejeter une clé de contrôle fausse")
+    void shouldRejectInvalidChecksum() {
+      assertThat(Isbn.toIsbn13("9781234567890")).isNull();
+      assertThat(Isbn.toIsbn13("0-306-40615-3")).isNull();
+      assertThat(Isbn.toIsbn13("12345")).isNull();
+    }
+
+    @Test
+    @DisplayName("Devrait retrouver les clés restantes après suppressions et agrandissements")
+    void shouldKeepEntriesAcrossRemovalsAndResizes() {
+      // Given
+      LongLongHashMap map = new LongLongHashMap(2);
+      for (long key = 1; key <= 1_000; key++) {
+        map.put(key, key * 10);
+      }
+
+      // When
+      for (long key = 1; key <= 1_000; key += 2) {
+        map.remove(key);
+      }
+
+      // Then
+      assertThat(map.size()).isEqualTo(500);
+      assertThat(map.get(2, -1)).isEqualTo(20);
+      assertThat(map.get(3, -1)).isEqualTo(-1);
+      assertThat(map.get(1_000, -1)).isEqualTo(10_000);
+    }
+  }
+
+  // ========================================
+  // 4.4.7 - Tests du paramètre fields
+  // ========================================
+
+  @Nested
+  @DisplayName("4.4.7 - Tests de la sélection des champs des livres")
+  class BookFieldsTest {
+
+    @Test
+    @DisplayName("Devrait placer id en tête et ignorer espaces et doublons")
+    void shouldParseFieldsWithIdFirst() {
+      assertThat(BookFields.parse("title, isbn,title")).containsExactly("id", "title", "isbn");
+      assertThat(BookFields.parse(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un champ inconnu ou une association")
+    void shouldRejectUnknownFields() {
+      assertThat(BookFields.isValid("id,title,isbn")).isTrue();
+      assertThat(BookFields.isValid(null)).isTrue();
+      assertThat(BookFields.isValid("title,authors")).isFalse();
+      assertThat(BookFields.isValid("")).isFalse();
+    }
+  }
+
+  // ========================================
+  // 4.4.8 - Tests du calibrage du coût BCrypt
+  // ========================================
+
+  @Nested
+  @DisplayName("4.4.8 - Tests du calibrage du coût BCrypt")
+  class PasswordHasherTest {
+
+    @Test
+    @DisplayName("Devrait borner le coût calibré par min-cost et max-cost")
+    void shouldClampCalibratedCost() {
+      assertThat(new PasswordHasher(4, 6, 0).getCost()).isEqualTo(4);
+      assertThat(new PasswordHasher(4, 6, 60_000).getCost()).isEqualTo(6);
+      assertThat(new PasswordHasher(5, 5, 0).getCost()).isEqualTo(5);
+      assertThatThrownBy(() -> new PasswordHasher(8, 6, 250)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Devrait demander un nouveau hash seulement quand le coût est plus faible que le coût courant")
+    void shouldDetectHashesWithLowerCost() {
+      // Given
+      PasswordHasher passwordHasher = new PasswordHasher(5, 5, 250);
+
+      // When & Then
+      assertThat(passwordHasher.needsRehash(passwordHasher.encode("Password123"))).isFalse();
+      assertThat(passwordHasher.needsRehash(new BCryptPasswordEncoder(4).encode("Password123"))).isTrue();
+      assertThat(passwordHasher.needsRehash(new BCryptPasswordEncoder(6).encode("Password123"))).isFalse();
+      assertThat(passwordHasher.needsRehash("pas-un-hash")).isFalse();
+      assertThat(passwordHasher.matches("Password123", new BCryptPasswordEncoder(6).encode("Password123"))).isTrue();
+    }
+  }
+
+  // ========================================
+  // 4.4.9 - Tests des refus métier
+  // ========================================
+
+  @Nested
+  @DisplayName("4.4.9 - Tests des refus métier et de leur traduction HTTP")
+  class BusinessExceptionTest {
+
+    private final ApiExceptionHandler handler = new ApiExceptionHandler();
+
+    @Test
+    @DisplayName("Devrait créer les refus sans pile d'appels ni exceptions supprimées")
+    void shouldBeStackless() {
+      // Given
+      BusinessException e = new ConflictException("Vous avez déjà réservé ce livre");
+
+      // When
+      e.addSuppressed(new IllegalStateException());
+
+      // Then
+      assertThat(e).isInstanceOf(RuntimeException.class);
+      assertThat(e.getStackTrace()).isEmpty();
+      assertThat(e.fillInStackTrace().getStackTrace()).isEmpty();
+      assertThat(e.getSuppressed()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait traduire chaque refus en statut HTTP avec son message")
+    void shouldMapRefusalsToStatus() {
+      // When
+      ResponseEntity<JsonBody> notFound = handler.handleNotFound(new NotFoundException("Livre non trouvé"));
+      ResponseEntity<JsonBody> conflict = handler.handleConflict(new ConflictException("Ce livre n'est plus disponible"));
+      ResponseEntity<JsonBody> busy = handler.handleServiceBusy(new ServiceBusyException("Réessayez", 2));
+
+      // Then
+      assertThat(notFound.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+      assertThat(notFound.getBody()).isEqualTo(new MessageResponse("Livre non trouvé"));
+      assertThat(conflict.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+      assertThat(conflict.getBody()).isEqualTo(new MessageResponse("Ce livre n'est plus disponible"));
+      assertThat(busy.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+      assertThat(busy.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+  }
+
+  // ========================================
+  // 4.4.10 - Tests de la négociation gzip
+  // ========================================
+
+  @Nested
+  @DisplayName("4.4.10 - Tests de la négociation du codage gzip")
+  class ContentEncodingsTest {
+
+    @Test
+    @DisplayName("Devrait accepter gzip cité ou couvert par le joker avec un poids non nul")
+    void shouldAcceptGzip() {
+      assertThat(ContentEncodings.acceptsGzip("gzip, deflate, br")).isTrue();
+      assertThat(ContentEncodings.acceptsGzip("br;q=1.0, GZIP;q=0.5")).isTrue();
+      assertThat(ContentEncodings.acceptsGzip("*")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser gzip;q=0, même couvert par le joker, et un en-tête absent")
+    void shouldRejectGzipWithZeroQuality() {
+      assertThat(ContentEncodings.acceptsGzip("gzip;q=0")).isFalse();
+      assertThat(ContentEncodings.acceptsGzip("gzip; q=0.000, *")).isFalse();
+      assertThat(ContentEncodings.acceptsGzip("*;q=0")).isFalse();
+      assertThat(ContentEncodings.acceptsGzip("identity")).isFalse();
+      assertThat(ContentEncodings.acceptsGzip(null)).isFalse();
+    }
+  }
+}
@@ -3,7 +3,10 @@ package fr.ensitech.biblio2.service;
 import fr.ensitech.biblio2.dto.AuthenticationResponse;
 import fr.ensitech.biblio2.entity.SecurityQuestion;
 import fr.ensitech.biblio2.entity.User;
+import fr.ensitech.biblio2.exception.ConflictException;
 import fr.ensitech.biblio2.repository.IUserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,9 +14,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -39,6 +45,13 @@ class UserServiceTest {
   @Mock
   private PasswordRotationService passwordRotationService;
 
+  @Spy
+  private PasswordHasher passwordHasher = new PasswordHasher(10, 10, 250);
+
+  // Filtre non chargé : laisse passer tous les emails jusqu'à ce qu'un test le stubbe
+  @Spy
+  private EmailBloomFilter emailBloomFilter = new EmailBloomFilter(null, null, 0.01, 0, 0, new SimpleMeterRegistry());
+
   @InjectMocks
   private UserService userService;
 
@@ -254,6 +267,21 @@ class UserServiceTest {
 
       verify(userRepository, times(1)).findByEmail("unknown@test.com");
       verify(emailService, never()).sendActivationEmail(anyString(), anyLong());
+      verify(emailBloomFilter, times(1)).recordFalsePositive();
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas interroger la base pour un email écarté par le filtre")
+    void shouldSkipRepositoryWhenFilterRulesEmailOut() {
+      // Given
+      doReturn(false).when(emailBloomFilter).mightContain("unknown@test.com");
+
+      // When & Then
+      assertThatThrownBy(() -> userService.sendActivationMail("unknown@test.com"))
+              .isInstanceOf(Exception.class)
+              .hasMessageContaining("not found");
+
+      verify(userRepository, never()).findByEmail(anyString());
     }
   }
 
@@ -575,8 +603,6 @@ class UserServiceTest {
       newUser.setSecurityQuestion(SecurityQuestion.FIRST_PET);
       newUser.setSecurityAnswerHash(""); // Réponse vide
 
-      when(userRepository.findByEmail("new@test.com")).thenReturn(null);
-
       // When & Then
       assertThatThrownBy(() -> userService.createUser(newUser))
               .isInstanceOf(Exception.class)
@@ -595,8 +621,6 @@ class UserServiceTest {
       newUser.setSecurityQuestion(SecurityQuestion.FIRST_PET);
       newUser.setSecurityAnswerHash(null); // Réponse null
 
-      when(userRepository.findByEmail("new@test.com")).thenReturn(null);
-
       // When & Then
       assertThatThrownBy(() -> userService.createUser(newUser))
               .isInstanceOf(Exception.class)
@@ -604,6 +628,80 @@ class UserServiceTest {
 
       verify(userRepository, never()).save(any(User.class));
     }
+
+    @Test
+    @DisplayName("Devrait insérer l'utilisateur et son premier mot de passe, puis envoyer l'activation sans relire la base")
+    void shouldCreateUserWithoutExtraLookups() throws Exception {
+      // Given
+      User newUser = new User();
+      newUser.setEmail("new@test.com");
+      newUser.setPassword("Password123!");
+      newUser.setSecurityQuestion(SecurityQuestion.FIRST_PET);
+      newUser.setSecurityAnswerHash("Rex");
+
+      when(securityAnswerService.hashSecurityAnswer("Rex")).thenReturn("hashedRex");
+      when(userRepository.saveAndFlush(newUser)).thenAnswer(invocation -> {
+        User saved = invocation.getArgument(0);
+        saved.setId(42L);
+        return saved;
+      });
+
+      // When
+      userService.createUser(newUser);
+
+      // Then
+      assertThat(newUser.isActive()).isFalse();
+      assertThat(passwordEncoder.matches("Password123!", newUser.getPassword())).isTrue();
+      verify(passwordRotationService, times(1)).addInitialPassword(newUser, newUser.getPassword());
+      verify(emailBloomFilter, times(1)).add("new@test.com");
+      verify(emailService, times(1)).sendActivationEmail("new@test.com", 42L);
+      verify(userRepository, never()).findByEmail(anyString());
+      verify(passwordRotationService, never()).addPasswordToHistory(any(User.class), anyString());
+    }
+
+    @Test
+    @DisplayName("Devrait traduire la violation de la contrainte d'unicité de l'email")
+    void shouldThrowExceptionWhenEmailAlreadyUsed() {
+      // Given
+      User newUser = new User();
+      newUser.setEmail("john.doe@test.com");
+      newUser.setPassword("Password123!");
+      newUser.setSecurityQuestion(SecurityQuestion.FIRST_PET);
+      newUser.setSecurityAnswerHash("Rex");
+
+      when(userRepository.saveAndFlush(newUser)).thenThrow(new DataIntegrityViolationException("Duplicate entry",
+              new ConstraintViolationException("Duplicate entry", new SQLException("Duplicate entry"),
+                      "users.UK_USERS_EMAIL")));
+
+      // When & Then
+      assertThatThrownBy(() -> userService.createUser(newUser))
+              .isInstanceOf(ConflictException.class)
+              .hasMessage("User already exists");
+
+      verify(passwordRotationService, never()).addInitialPassword(any(User.class), anyString());
+      verify(emailService, never()).sendActivationEmail(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas présenter une autre violation de contrainte comme un email déjà inscrit")
+    void shouldRethrowOtherConstraintViolations() {
+      // Given
+      User newUser = new User();
+      newUser.setEmail("john.doe@test.com");
+      newUser.setPassword("Password123!");
+      newUser.setSecurityQuestion(SecurityQuestion.FIRST_PET);
+      newUser.setSecurityAnswerHash("Rex");
+
+      DataIntegrityViolationException notNull = new DataIntegrityViolationException("Column 'firstName' cannot be null",
+              new ConstraintViolationException("Column 'firstName' cannot be null",
+                      new SQLException("Column 'firstName' cannot be null"), null));
+      when(userRepository.saveAndFlush(newUser)).thenThrow(notNull);
+
+      // When & Then
+      assertThatThrownBy(() -> userService.createUser(newUser)).isSameAs(notNull);
+
+      verify(emailService, never()).sendActivationEmail(anyString(), anyLong());
+    }
   }
 
   @Nested
@@ -677,6 +775,45 @@ class UserServiceTest {
       assertThat(response.getMessage()).contains("réussie");
 
       verify(userRepository, times(1)).findByEmail("john.doe@test.com");
+      verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Devrait renforcer à la connexion un hash dont le coût BCrypt est inférieur à celui de la machine")
+    void shouldRehashPasswordWithOutdatedCost() throws Exception {
+      // Given
+      testUser.setSecurityQuestion(null);
+      testUser.setPassword(new BCryptPasswordEncoder(4).encode("Password123!"));
+
+      when(userRepository.findByEmail("john.doe@test.com")).thenReturn(testUser);
+      when(passwordRotationService.isPasswordExpired(testUser)).thenReturn(false);
+
+      // When
+      userService.authenticatedUser("john.doe@test.com", "Password123!");
+
+      // Then
+      assertThat(testUser.getPassword()).startsWith("$2a$10$");
+      assertThat(passwordHasher.matches("Password123!", testUser.getPassword())).isTrue();
+      verify(userRepository, times(1)).save(testUser);
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas réécrire un hash plus coûteux que le coût courant")
+    void shouldKeepPasswordHashedWithHigherCost() throws Exception {
+      // Given
+      String strongerHash = new BCryptPasswordEncoder(11).encode("Password123!");
+      testUser.setSecurityQuestion(null);
+      testUser.setPassword(strongerHash);
+
+      when(userRepository.findByEmail("john.doe@test.com")).thenReturn(testUser);
+      when(passwordRotationService.isPasswordExpired(testUser)).thenReturn(false);
+
+      // When
+      userService.authenticatedUser("john.doe@test.com", "Password123!");
+
+      // Then
+      assertThat(testUser.getPassword()).isEqualTo(strongerHash);
+      verify(userRepository, never()).save(any(User.class));
     }
   }
-}
\ No newline at end of file
+}